@@ -19,8 +19,7 @@ package net.fabricmc.loader.impl.game.minecraft;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
@@ -115,9 +114,10 @@ public final class McVersionLookup {
 	public static void fillVersionFromJar(SimpleClassPath cp, McVersion.Builder builder) {
 		try {
 			InputStream is;
+			CpEntry entry;
 
 			// version.json - contains version and target release for 18w47b+
-			if ((is = cp.getInputStream("version.json")) != null && fromVersionJson(is, builder)) {
+			if ((entry = cp.getEntry("version.json")) != null && fromVersionJson(entry, builder)) {
 				return;
 			}
 
@@ -136,7 +136,7 @@ public final class McVersionLookup {
 				return;
 			}
 
-			CpEntry entry = cp.getEntry("net/minecraft/client/Minecraft.class");
+			entry = cp.getEntry("net/minecraft/client/Minecraft.class");
 
 			if (entry != null) {
 				// version-like constant return value of a Minecraft method (obfuscated/unknown name)
@@ -166,8 +166,8 @@ public final class McVersionLookup {
 		builder.setFromFileName(cp.getPaths().get(0).getFileName().toString());
 	}
 
-	private static boolean fromVersionJson(InputStream is, McVersion.Builder builder) {
-		try (JsonReader reader = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+	private static boolean fromVersionJson(CpEntry entry, McVersion.Builder builder) {
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(entry.getBytes()))) {
 			String id = null;
 			String name = null;
 			String release = null;
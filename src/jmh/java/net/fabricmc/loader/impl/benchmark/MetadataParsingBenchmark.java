@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.loader.impl.metadata.DependencyOverrides;
+import net.fabricmc.loader.impl.metadata.LoaderModMetadata;
+import net.fabricmc.loader.impl.metadata.ModMetadataParser;
+import net.fabricmc.loader.impl.metadata.ParseMetadataException;
+import net.fabricmc.loader.impl.metadata.VersionOverrides;
+
+/**
+ * Parsing a synthetic corpus of {@code fabric.mod.json} files through the same entry points as mod discovery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataParsingBenchmark {
+	@Param({ "100", "1000", "5000" })
+	public int modCount;
+
+	private List<byte[]> mods;
+	private List<byte[]> encodedMods;
+	private VersionOverrides versionOverrides;
+	private DependencyOverrides depOverrides;
+
+	@Setup
+	public void setup() throws IOException, ParseMetadataException {
+		mods = ModCorpus.generateMods(modCount, ModCorpus.SEED);
+		encodedMods = new ArrayList<>(modCount);
+		versionOverrides = new VersionOverrides();
+		depOverrides = new DependencyOverrides(Paths.get("nonexistent-config-dir"));
+
+		for (byte[] data : mods) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
+			ModMetadataParser.parseMetadata(data, "benchmark", Collections.emptyList(), versionOverrides, depOverrides, false, false, new DataOutputStream(bos));
+			encodedMods.add(bos.toByteArray());
+		}
+	}
+
+	@Benchmark
+	public void parseEager(Blackhole bh) throws ParseMetadataException {
+		for (byte[] data : mods) {
+			bh.consume(ModMetadataParser.parseMetadata(data, "benchmark", Collections.emptyList(), versionOverrides, depOverrides, false, false));
+		}
+	}
+
+	@Benchmark
+	public void parseLazy(Blackhole bh) throws ParseMetadataException {
+		for (byte[] data : mods) {
+			bh.consume(ModMetadataParser.parseMetadata(data, "benchmark", Collections.emptyList(), versionOverrides, depOverrides, false, true));
+		}
+	}
+
+	/**
+	 * Lazy parsing followed by accessing the deferred details, the worst case for lazy parsing.
+	 */
+	@Benchmark
+	public void parseLazyFullAccess(Blackhole bh) throws ParseMetadataException {
+		for (byte[] data : mods) {
+			LoaderModMetadata metadata = ModMetadataParser.parseMetadata(data, "benchmark", Collections.emptyList(), versionOverrides, depOverrides, false, true);
+			bh.consume(metadata.getEntrypointKeys());
+			bh.consume(metadata.getAuthors());
+			bh.consume(metadata.getCustomValues());
+		}
+	}
+
+	@Benchmark
+	public void readEncoded(Blackhole bh) throws ParseMetadataException {
+		for (byte[] data : encodedMods) {
+			bh.consume(ModMetadataParser.readMetadata(new DataInputStream(new ByteArrayInputStream(data)), "benchmark", Collections.emptyList(), versionOverrides, depOverrides, false));
+		}
+	}
+}
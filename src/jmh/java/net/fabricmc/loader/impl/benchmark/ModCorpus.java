@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator for synthetic benchmark inputs.
+ *
+ * <p>The mod metadata mimics what is commonly found in published mods: a handful of dependencies on loader, minecraft,
+ * fabric api and other mods of the corpus, entrypoints, mixin configs, authors with contact info and nested custom
+ * values, with some mods using the less common fields. Everything is generated in memory from the seed, nothing is
+ * read from disk or network.
+ */
+final class ModCorpus {
+	static final long SEED = 0x5eed_f4b1cL;
+
+	private static final String[] LICENSES = { "MIT", "LGPL-3.0-only", "Apache-2.0", "CC0-1.0", "All-Rights-Reserved", "MPL-2.0" };
+	private static final String[] ENVIRONMENTS = { "*", "*", "*", "client", "server" };
+	private static final String[] MC_PREDICATES = { "1.19.x", ">=1.19.2", "~1.19.4", ">=1.18.2 <1.20", "1.19.4", "*" };
+	private static final String[] PRE_RELEASES = { "alpha", "beta", "rc", "pre", "SNAPSHOT" };
+
+	static List<byte[]> generateMods(int count, long seed) {
+		Random random = new Random(seed);
+		List<byte[]> ret = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			ret.add(generateMod(i, count, random).getBytes(StandardCharsets.UTF_8));
+		}
+
+		return ret;
+	}
+
+	private static String generateMod(int idx, int count, Random random) {
+		String id = modId(idx);
+		String pkg = "com.example."+id.replace('-', '_');
+		StringBuilder sb = new StringBuilder(2048);
+
+		sb.append("{\n");
+		sb.append("  \"schemaVersion\": 1,\n");
+		sb.append("  \"id\": \"").append(id).append("\",\n");
+		sb.append("  \"version\": \"").append(version(random)).append("\",\n");
+		sb.append("  \"name\": \"Example Mod ").append(idx).append("\",\n");
+		sb.append("  \"description\": \"Synthetic mod number ").append(idx).append(" with a description of realistic length, \\\"quoted\\\" text and unicode \\u00e9\\u00e8.\",\n");
+		sb.append("  \"authors\": [\n");
+		sb.append("    { \"name\": \"Author ").append(random.nextInt(500)).append("\", \"contact\": { \"homepage\": \"https://example.com/\", \"discord\": \"https://discord.gg/example\" } },\n");
+		sb.append("    \"Contributor ").append(random.nextInt(500)).append("\"\n");
+		sb.append("  ],\n");
+		sb.append("  \"contact\": {\n");
+		sb.append("    \"homepage\": \"https://example.com/").append(id).append("\",\n");
+		sb.append("    \"sources\": \"https://github.com/example/").append(id).append("\",\n");
+		sb.append("    \"issues\": \"https://github.com/example/").append(id).append("/issues\"\n");
+		sb.append("  },\n");
+		sb.append("  \"license\": \"").append(LICENSES[random.nextInt(LICENSES.length)]).append("\",\n");
+		sb.append("  \"icon\": \"assets/").append(id).append("/icon.png\",\n");
+		sb.append("  \"environment\": \"").append(ENVIRONMENTS[random.nextInt(ENVIRONMENTS.length)]).append("\",\n");
+
+		sb.append("  \"entrypoints\": {\n");
+		sb.append("    \"main\": [ \"").append(pkg).append(".ExampleMod\" ],\n");
+		sb.append("    \"client\": [ { \"adapter\": \"default\", \"value\": \"").append(pkg).append(".client.ExampleModClient\" } ]");
+		if (random.nextInt(4) == 0) sb.append(",\n    \"modmenu\": [ \"").append(pkg).append(".compat.ModMenuIntegration\" ]");
+		sb.append("\n  },\n");
+
+		sb.append("  \"mixins\": [ \"").append(id).append(".mixins.json\", { \"config\": \"").append(id).append(".client.mixins.json\", \"environment\": \"client\" } ],\n");
+		if (random.nextInt(3) == 0) sb.append("  \"accessWidener\": \"").append(id).append(".accesswidener\",\n");
+		if (random.nextInt(8) == 0) sb.append("  \"provides\": [ \"").append(id).append("_api\" ],\n");
+		if (random.nextInt(6) == 0) sb.append("  \"jars\": [ { \"file\": \"META-INF/jars/").append(id).append("-lib.jar\" } ],\n");
+
+		sb.append("  \"depends\": {\n");
+		sb.append("    \"fabricloader\": \">=0.14.").append(random.nextInt(22)).append("\",\n");
+		sb.append("    \"minecraft\": \"").append(MC_PREDICATES[random.nextInt(MC_PREDICATES.length)]).append("\",\n");
+		sb.append("    \"java\": \">=17\",\n");
+		sb.append("    \"fabric-api\": \"*\"");
+		int deps = random.nextInt(4);
+
+		for (int i = 0; i < deps && idx > 0; i++) {
+			sb.append(",\n    \"").append(modId(random.nextInt(idx))).append("\": ");
+
+			if (random.nextBoolean()) {
+				sb.append('"').append(predicate(random)).append('"');
+			} else {
+				sb.append("[ \"").append(predicate(random)).append("\", \"").append(predicate(random)).append("\" ]");
+			}
+		}
+
+		sb.append("\n  },\n");
+
+		if (random.nextInt(3) == 0) {
+			sb.append("  \"suggests\": { \"").append(modId(random.nextInt(count))).append("\": \"*\" },\n");
+		}
+
+		if (random.nextInt(5) == 0) {
+			sb.append("  \"breaks\": { \"").append(modId(random.nextInt(count))).append("\": \"<").append(version(random)).append("\" },\n");
+		}
+
+		sb.append("  \"custom\": {\n");
+		sb.append("    \"modmenu\": { \"badges\": [ \"library\" ], \"links\": { \"modmenu.discord\": \"https://discord.gg/example\" }, \"parent\": { \"id\": \"").append(id).append("-parent\", \"name\": \"Parent\", \"icon\": \"assets/").append(id).append("/parent.png\" } },\n");
+		sb.append("    \"loom:injected_interfaces\": { \"net/minecraft/class_1297\": [ \"").append(pkg.replace('.', '/')).append("/EntityExtension\" ] },\n");
+		sb.append("    \"number\": ").append(random.nextInt(1000)).append(", \"flag\": ").append(random.nextBoolean()).append(", \"nothing\": null\n");
+		sb.append("  }\n");
+		sb.append("}\n");
+
+		return sb.toString();
+	}
+
+	static String modId(int idx) {
+		return "example-mod-"+idx;
+	}
+
+	/**
+	 * Generate a semantic version string with pre-release and build metadata mixed in.
+	 *
+	 * <p>Non-semantic versions are left out, the loader logs a warning for each mod using one.
+	 */
+	static String version(Random random) {
+		int type = random.nextInt(20);
+		StringBuilder sb = new StringBuilder();
+		sb.append(random.nextInt(5)).append('.').append(random.nextInt(20)).append('.').append(random.nextInt(30));
+
+		if (type < 4) {
+			sb.append('-').append(PRE_RELEASES[random.nextInt(PRE_RELEASES.length)]).append('.').append(random.nextInt(10));
+		}
+
+		if (type >= 4 && type < 10) {
+			sb.append("+mc1.19.").append(random.nextInt(5));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Generate a version predicate string covering all supported operators and x-ranges.
+	 */
+	static String predicate(Random random) {
+		int major = random.nextInt(5);
+		int minor = random.nextInt(20);
+
+		switch (random.nextInt(9)) {
+		case 0: return "*";
+		case 1: return ">="+major+"."+minor;
+		case 2: return "<"+major+"."+minor+".0";
+		case 3: return "~"+major+"."+minor+"."+random.nextInt(30);
+		case 4: return "^"+major+"."+minor;
+		case 5: return major+"."+minor+".x";
+		case 6: return ">="+major+"."+minor+" <"+(major + 1);
+		case 7: return "="+major+"."+minor+"."+random.nextInt(30);
+		default: return major+"."+minor+"."+random.nextInt(30);
+		}
+	}
+
+	private ModCorpus() { }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.loader.api.SemanticVersion;
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.version.VersionParser;
+
+/**
+ * Version parsing, with and without the parse cache, and comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VersionBenchmark {
+	@Param({ "1000" })
+	public int count;
+
+	private String[] strings;
+	private SemanticVersion[] versions;
+
+	@Setup
+	public void setup() throws VersionParsingException {
+		Random random = new Random(ModCorpus.SEED);
+		strings = new String[count];
+		versions = new SemanticVersion[count];
+
+		for (int i = 0; i < count; i++) {
+			strings[i] = ModCorpus.version(random);
+			versions[i] = VersionParser.parseSemantic(strings[i]);
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole bh) throws VersionParsingException {
+		for (String s : strings) {
+			bh.consume(VersionParser.parse(s, false));
+		}
+	}
+
+	@Benchmark
+	@Fork(jvmArgsAppend = "-D"+SystemProperties.VERSION_PARSE_CACHE_SIZE+"=0")
+	public void parseUncached(Blackhole bh) throws VersionParsingException {
+		for (String s : strings) {
+			bh.consume(VersionParser.parse(s, false));
+		}
+	}
+
+	@Benchmark
+	public int compare() {
+		int ret = 0;
+
+		for (int i = 1; i < versions.length; i++) {
+			ret += versions[i - 1].compareTo((Version) versions[i]);
+		}
+
+		return ret;
+	}
+
+	@Benchmark
+	public SemanticVersion[] sort() {
+		SemanticVersion[] ret = versions.clone();
+		Arrays.sort(ret);
+
+		return ret;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.api.metadata.version.VersionInterval;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.version.VersionParser;
+import net.fabricmc.loader.impl.util.version.VersionPredicateParser;
+
+/**
+ * Version predicate parsing and matching and the version interval operations used by mod resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VersionPredicateBenchmark {
+	private static final int VERSION_COUNT = 64;
+
+	@Param({ "1000" })
+	public int count;
+
+	private String[] strings;
+	private VersionPredicate[] predicates;
+	private VersionInterval[] intervals;
+	private Version[] versions;
+
+	@Setup
+	public void setup() throws VersionParsingException {
+		Random random = new Random(ModCorpus.SEED);
+		strings = new String[count];
+		predicates = new VersionPredicate[count];
+		intervals = new VersionInterval[count];
+		versions = new Version[VERSION_COUNT];
+
+		for (int i = 0; i < count; i++) {
+			strings[i] = ModCorpus.predicate(random);
+			predicates[i] = VersionPredicateParser.parse(strings[i]);
+			intervals[i] = predicates[i].getInterval();
+		}
+
+		for (int i = 0; i < VERSION_COUNT; i++) {
+			versions[i] = VersionParser.parse(ModCorpus.version(random), false);
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole bh) throws VersionParsingException {
+		for (String s : strings) {
+			bh.consume(VersionPredicateParser.parse(s));
+		}
+	}
+
+	@Benchmark
+	@Fork(jvmArgsAppend = "-D"+SystemProperties.VERSION_PARSE_CACHE_SIZE+"=0")
+	public void parseUncached(Blackhole bh) throws VersionParsingException {
+		for (String s : strings) {
+			bh.consume(VersionPredicateParser.parse(s));
+		}
+	}
+
+	/**
+	 * Match every predicate against a fixed set of versions, as done when looking for a dependency's candidates.
+	 */
+	@Benchmark
+	public int match() {
+		int ret = 0;
+
+		for (VersionPredicate predicate : predicates) {
+			for (Version version : versions) {
+				if (predicate.test(version)) ret++;
+			}
+		}
+
+		return ret;
+	}
+
+	@Benchmark
+	public void intervalAnd(Blackhole bh) {
+		for (int i = 1; i < intervals.length; i++) {
+			bh.consume(VersionInterval.and(intervals[i - 1], intervals[i]));
+		}
+	}
+
+	@Benchmark
+	public void intervalOr(Blackhole bh) {
+		for (int i = 1; i < intervals.length; i++) {
+			bh.consume(VersionInterval.or(VersionInterval.not(intervals[i - 1]), intervals[i]));
+		}
+	}
+
+	@Benchmark
+	public void intervalNot(Blackhole bh) {
+		for (VersionInterval interval : intervals) {
+			bh.consume(VersionInterval.not(interval));
+		}
+	}
+}
@@ -30,6 +30,9 @@ import java.util.function.BiConsumer;
  *
  * <p>It is required to prefix the share key with the mod id like {@code mymod:someProperty}. Mods should not
  * modify entries by other mods. The share is thread safe.
+ *
+ * <p>Fabric Loader itself publishes the statistics of its mod resolution as an unmodifiable {@code Map<String, Object>}
+ * under {@code fabricloader:resolutionMetrics}, e.g. for monitoring how long resolving a mod set takes.
  */
 public interface ObjectShare {
 	/**
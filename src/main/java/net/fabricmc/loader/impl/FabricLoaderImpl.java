@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -46,10 +47,15 @@ import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
 import net.fabricmc.loader.impl.discovery.ArgumentModCandidateFinder;
 import net.fabricmc.loader.impl.discovery.ClasspathModCandidateFinder;
 import net.fabricmc.loader.impl.discovery.DirectoryModCandidateFinder;
+import net.fabricmc.loader.impl.discovery.DiscoveryIndex;
 import net.fabricmc.loader.impl.discovery.ModCandidate;
+import net.fabricmc.loader.impl.discovery.ModDataCache;
 import net.fabricmc.loader.impl.discovery.ModDiscoverer;
 import net.fabricmc.loader.impl.discovery.ModResolutionException;
 import net.fabricmc.loader.impl.discovery.ModResolver;
+import net.fabricmc.loader.impl.discovery.NestedModExtractor;
+import net.fabricmc.loader.impl.discovery.ResolutionCache;
+import net.fabricmc.loader.impl.discovery.ResolutionMetrics;
 import net.fabricmc.loader.impl.discovery.RuntimeModRemapper;
 import net.fabricmc.loader.impl.entrypoint.EntrypointStorage;
 import net.fabricmc.loader.impl.game.GameProvider;
@@ -63,6 +69,7 @@ import net.fabricmc.loader.impl.util.LoaderUtil;
 import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
+import net.fabricmc.loader.impl.util.version.VersionParseCache;
 
 @SuppressWarnings("deprecation")
 public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
@@ -77,6 +84,10 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 	private static final String PROCESSED_MODS_DIR_NAME = "processedMods"; // relative to cache dir
 	public static final String REMAPPED_JARS_DIR_NAME = "remappedJars"; // relative to cache dir
 	private static final String TMP_DIR_NAME = "tmp"; // relative to cache dir
+	private static final String DISCOVERY_INDEX_FILE_NAME = "discoveryIndex.bin"; // relative to cache dir
+	private static final String DISCOVERY_TRACE_FILE_NAME = "discoveryTrace.json"; // relative to cache dir
+	private static final String RESOLUTION_CACHE_FILE_NAME = "resolutionCache.bin"; // relative to cache dir
+	private static final String DEPENDENCY_OVERRIDES_CACHE_FILE_NAME = "dependencyOverrides.bin"; // relative to cache dir
 
 	protected final Map<String, ModContainerImpl> modMap = new HashMap<>();
 	private List<ModCandidate> modCandidates;
@@ -198,7 +209,8 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 	private void setup() throws ModResolutionException {
 		boolean remapRegularMods = true;
 		VersionOverrides versionOverrides = new VersionOverrides();
-		DependencyOverrides depOverrides = new DependencyOverrides(configDir);
+		Path cacheDir = gameDir.resolve(CACHE_DIR_NAME);
+		DependencyOverrides depOverrides = new DependencyOverrides(configDir, cacheDir.resolve(DEPENDENCY_OVERRIDES_CACHE_FILE_NAME));
 
 		// discover mods
 
@@ -207,27 +219,46 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 		discoverer.addCandidateFinder(new DirectoryModCandidateFinder(gameDir.resolve("mods").resolve("fabric"), remapRegularMods));
 		discoverer.addCandidateFinder(new ArgumentModCandidateFinder(remapRegularMods));
 
+		if (System.getProperty(SystemProperties.DEBUG_DISABLE_DISCOVERY_INDEX) == null) {
+			discoverer.setIndex(DiscoveryIndex.load(cacheDir.resolve(DISCOVERY_INDEX_FILE_NAME), getEnvironmentType()));
+		}
+
+		if (System.getProperty(SystemProperties.DEBUG_DISCOVERY_TRACE) != null) {
+			discoverer.setTraceFile(cacheDir.resolve(DISCOVERY_TRACE_FILE_NAME));
+		}
+
 		Map<String, Set<ModCandidate>> envDisabledMods = new HashMap<>();
 		modCandidates = discoverer.discoverMods(this, envDisabledMods);
+		VersionParseCache.logStatistics("discovery");
 
 		// dump version and dependency overrides info
 
-		if (!versionOverrides.getAffectedModIds().isEmpty()) {
-			Log.info(LogCategory.GENERAL, "Versions overridden for %s", String.join(", ", versionOverrides.getAffectedModIds()));
+		if (!versionOverrides.getAppliedModIds().isEmpty()) {
+			Log.info(LogCategory.GENERAL, "Versions overridden for %s", String.join(", ", versionOverrides.getAppliedModIds()));
 		}
 
-		if (!depOverrides.getAffectedModIds().isEmpty()) {
-			Log.info(LogCategory.GENERAL, "Dependencies overridden for %s", String.join(", ", depOverrides.getAffectedModIds()));
+		if (!depOverrides.getAppliedModIds().isEmpty()) {
+			Log.info(LogCategory.GENERAL, "Dependencies overridden for %s", String.join(", ", depOverrides.getAppliedModIds()));
 		}
 
 		// resolve mods
 
-		modCandidates = ModResolver.resolve(modCandidates, getEnvironmentType(), envDisabledMods);
+		ResolutionCache resolutionCache = null;
+
+		if (System.getProperty(SystemProperties.DEBUG_DISABLE_RESOLUTION_CACHE) == null) {
+			resolutionCache = ResolutionCache.load(cacheDir.resolve(RESOLUTION_CACHE_FILE_NAME), getEnvironmentType());
+		}
+
+		ResolutionMetrics resolutionMetrics = new ResolutionMetrics();
+		modCandidates = ModResolver.resolve(modCandidates, getEnvironmentType(), envDisabledMods, resolutionCache, resolutionMetrics);
+		objectShare.put(ResolutionMetrics.OBJECT_SHARE_KEY, resolutionMetrics.toMap());
+		VersionParseCache.logStatistics("resolution");
 
 		dumpModList(modCandidates);
 
-		Path cacheDir = gameDir.resolve(CACHE_DIR_NAME);
 		Path outputdir = cacheDir.resolve(PROCESSED_MODS_DIR_NAME);
+		String nestedJarStoreDir = System.getProperty(SystemProperties.NESTED_JAR_STORE_DIR);
+		Path nestedJarStore = nestedJarStoreDir != null ? Paths.get(nestedJarStoreDir) : outputdir;
 
 		// runtime mod remapping
 
@@ -261,20 +292,15 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 			}
 		}
 
-		// add mods
+		// extract nested mods, add mods
 
-		for (ModCandidate mod : modCandidates) {
-			if (!mod.hasPath() && !mod.isBuiltin()) {
-				try {
-					mod.setPaths(Collections.singletonList(mod.copyToDir(outputdir, false)));
-				} catch (IOException e) {
-					throw new RuntimeException("Error extracting mod "+mod, e);
-				}
-			}
+		NestedModExtractor.extract(modCandidates, nestedJarStore);
 
+		for (ModCandidate mod : modCandidates) {
 			addMod(mod);
 		}
 
+		ModDataCache.INSTANCE.clear();
 		modCandidates = null;
 	}
 
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.fabricmc.loader.api.SemanticVersion;
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.api.metadata.version.VersionInterval;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+
+/**
+ * Index of the candidates matching each dependency, shared by all solver runs and the result analysis.
+ *
+ * <p>The candidates of each id with a semantic version are additionally kept sorted by descending version, so the
+ * semantic version interval of each of a dependency's predicates maps to a contiguous range of exactly the matching
+ * candidates found by binary search. A dependency with a single predicate gets that range as is. Non-semantic
+ * candidate versions and predicates are checked with {@link ModDependency#matches} instead.
+ *
+ * <p>The index reflects modsById at the time of each id's first query, it has to be created after preselection.
+ */
+final class CandidateIndex {
+	private final Map<String, List<ModCandidate>> modsById;
+	private final Map<String, SortedCandidates> sortedById = new ConcurrentHashMap<>();
+	private final Map<ModDependency, List<ModCandidate>> matches = new ConcurrentHashMap<>(); // equality is fine, matching only depends on id and predicates
+
+	CandidateIndex(Map<String, List<ModCandidate>> modsById) {
+		this.modsById = modsById;
+	}
+
+	/**
+	 * Get the candidates with the dependency's mod id that match it.
+	 *
+	 * @return unmodifiable list of the matching candidates with semantic versions in descending version order, followed
+	 *         by the remaining ones in modsById order
+	 */
+	List<ModCandidate> getMatches(ModDependency dep) {
+		List<ModCandidate> ret = matches.get(dep);
+
+		if (ret == null) {
+			ret = computeMatches(dep);
+			matches.putIfAbsent(dep, ret);
+		}
+
+		return ret;
+	}
+
+	private List<ModCandidate> computeMatches(ModDependency dep) {
+		List<ModCandidate> mods = modsById.get(dep.getModId());
+		if (mods == null) return Collections.emptyList();
+
+		SortedCandidates sorted = sortedById.computeIfAbsent(dep.getModId(), ignore -> new SortedCandidates(mods));
+		List<ModCandidate> ret = sorted.getMatches(dep.getVersionRequirements());
+
+		if (ret == null) { // not narrowable
+			ret = new ArrayList<>();
+
+			for (ModCandidate mod : sorted.semantic) {
+				if (dep.matches(mod.getVersion())) ret.add(mod);
+			}
+		} else if (sorted.nonSemantic.isEmpty()) {
+			return ret;
+		} else {
+			ret = new ArrayList<>(ret);
+		}
+
+		for (ModCandidate mod : sorted.nonSemantic) {
+			if (dep.matches(mod.getVersion())) ret.add(mod);
+		}
+
+		return ret.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(ret);
+	}
+
+	private static final class SortedCandidates {
+		final List<ModCandidate> semantic = new ArrayList<>(); // descending version, ties in modsById order
+		final SemanticVersion[] versions; // versions of the semantic candidates
+		final List<ModCandidate> nonSemantic = new ArrayList<>(); // modsById order
+
+		SortedCandidates(List<ModCandidate> mods) {
+			for (ModCandidate mod : mods) {
+				if (mod.getVersion() instanceof SemanticVersion) {
+					semantic.add(mod);
+				} else {
+					nonSemantic.add(mod);
+				}
+			}
+
+			semantic.sort((a, b) -> b.getVersion().compareTo(a.getVersion())); // stable
+
+			versions = new SemanticVersion[semantic.size()];
+
+			for (int i = 0; i < versions.length; i++) {
+				versions[i] = (SemanticVersion) semantic.get(i).getVersion();
+			}
+		}
+
+		/**
+		 * Get the semantic candidates matching any of the predicates.
+		 *
+		 * <p>The predicates' intervals are used individually, their union isn't needed.
+		 *
+		 * @return the matching candidates or null if the predicates can't be used for selecting the candidates
+		 */
+		List<ModCandidate> getMatches(Collection<VersionPredicate> predicates) {
+			List<VersionInterval> intervals = new ArrayList<>(predicates.size());
+
+			for (VersionPredicate predicate : predicates) {
+				VersionInterval interval = predicate.getInterval();
+				if (interval == null) continue; // can't match anything
+				if (!interval.isSemantic()) return null;
+
+				intervals.add(interval);
+			}
+
+			if (intervals.isEmpty()) return Collections.emptyList();
+
+			if (intervals.size() == 1) {
+				int[] range = getRange(intervals.get(0));
+
+				return range[0] < range[1] ? Collections.unmodifiableList(semantic.subList(range[0], range[1])) : Collections.emptyList();
+			}
+
+			// merge overlapping ranges to select each candidate once, in order
+
+			List<int[]> ranges = new ArrayList<>(intervals.size());
+
+			for (VersionInterval interval : intervals) {
+				int[] range = getRange(interval);
+				if (range[0] < range[1]) ranges.add(range);
+			}
+
+			ranges.sort(Comparator.comparingInt(range -> range[0]));
+			List<ModCandidate> ret = new ArrayList<>();
+			int end = 0;
+
+			for (int[] range : ranges) {
+				int start = Math.max(range[0], end);
+
+				if (start < range[1]) {
+					ret.addAll(semantic.subList(start, range[1]));
+					end = range[1];
+				}
+			}
+
+			return ret;
+		}
+
+		/**
+		 * @return start (inclusive) and end (exclusive) index of the versions within the interval
+		 */
+		private int[] getRange(VersionInterval interval) {
+			Version min = interval.getMin();
+			Version max = interval.getMax();
+			int start = max == null ? 0 : findFirstBelow(max, interval.isMaxInclusive());
+			int end = min == null ? versions.length : findFirstBelow(min, !interval.isMinInclusive());
+
+			return new int[] { start, end };
+		}
+
+		/**
+		 * Find the first version below bound, or equal to it if inclusive.
+		 */
+		private int findFirstBelow(Version bound, boolean inclusive) {
+			int low = 0;
+			int high = versions.length;
+
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				int cmp = versions[mid].compareTo(bound);
+
+				if (cmp < 0 || cmp == 0 && inclusive) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+
+			return low;
+		}
+	}
+}
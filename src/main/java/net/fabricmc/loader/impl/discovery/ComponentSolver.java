@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.impl.util.ExceptionUtil;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Solves the mod set as independent parts with separate solver instances in parallel.
+ *
+ * <p>Candidates are connected if they share an id (including provided ids), if one has a dependency, recommendation or
+ * breaks entry targeting the other's id or if one is nested in the other. These are all relations the solver creates
+ * constraints for, so the connected components can't constrain each other and the objective is a sum over them. The
+ * optimum of the whole mod set is therefore the union of the components' optima, as long as each component is solved
+ * with the whole mod set's priorities. Components are packed into at most one batch per thread, each batch being solved
+ * as one problem, so the solve time is bound by the largest component instead of the whole mod set.
+ */
+final class ComponentSolver {
+	/**
+	 * Attempt to solve the mod set by components.
+	 *
+	 * @return true if the selection was applied to selectedMods and uniqueSelectedMods, false if the mod set doesn't
+	 * decompose or a component has no solution, leaving the failure analysis to a regular solve
+	 */
+	static boolean trySolve(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods, ResolutionMetrics metrics) throws ContradictionException, TimeoutException, ModResolutionException {
+		List<List<ModCandidate>> components = findComponents(allModsSorted, modsById);
+		if (components == null) return false;
+
+		metrics.setComponents(components.size(), components.isEmpty() ? 0 : components.get(0).size());
+		if (components.size() < 2) return false;
+
+		int threads = Integer.getInteger(SystemProperties.RESOLUTION_THREADS, Runtime.getRuntime().availableProcessors());
+		if (threads <= 0) throw new RuntimeException(String.format("Invalid resolution thread count %d, must be positive", threads));
+
+		if (threads == 1) return false; // a single batch is the same as the regular solve
+
+		List<Batch> batches = createBatches(components, allModsSorted, modsById, Math.min(threads, components.size()));
+
+		Log.debug(LogCategory.RESOLUTION, "Solving %d independent mod groups as %d batches, largest group has %d candidates",
+				components.size(), batches.size(), components.get(0).size());
+
+		Map<ModCandidate, Integer> priorities = ModSolver.computePriorities(allModsSorted);
+		List<List<ModCandidate>> solutions = solveBatches(batches, priorities, selectedMods, uniqueSelectedMods, metrics);
+		if (solutions == null) return false;
+
+		// select in priority order for a consistent result
+
+		Set<ModCandidate> selection = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (List<ModCandidate> solution : solutions) {
+			selection.addAll(solution);
+		}
+
+		for (ModCandidate mod : allModsSorted) {
+			if (selection.remove(mod)) ModResolver.selectMod(mod, selectedMods, uniqueSelectedMods);
+		}
+
+		assert selection.isEmpty();
+
+		return true;
+	}
+
+	/**
+	 * Partition the candidates into components of constraint-connected mods.
+	 *
+	 * @return the components in descending size, or null if some constrained candidates aren't part of allModsSorted
+	 */
+	static List<List<ModCandidate>> findComponents(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById) {
+		Map<ModCandidate, Integer> indices = ModSolver.computePriorities(allModsSorted);
+		int[] parents = new int[allModsSorted.size()];
+
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+
+		for (List<ModCandidate> variants : modsById.values()) {
+			Integer first = indices.get(variants.get(0));
+			if (first == null) return null;
+
+			for (int i = 1; i < variants.size(); i++) {
+				Integer idx = indices.get(variants.get(i));
+				if (idx == null) return null;
+
+				union(parents, first, idx);
+			}
+		}
+
+		for (int i = 0; i < parents.length; i++) {
+			ModCandidate mod = allModsSorted.get(i);
+
+			for (ModDependency dep : mod.getDependencies()) {
+				switch (dep.getKind()) {
+				case DEPENDS:
+				case RECOMMENDS:
+				case BREAKS: {
+					List<ModCandidate> variants = modsById.get(dep.getModId());
+					if (variants != null) union(parents, i, indices.get(variants.get(0)));
+					break;
+				}
+				default:
+					// no constraint
+				}
+			}
+
+			for (ModCandidate parent : mod.getParentMods()) {
+				Integer idx = indices.get(parent);
+				if (idx == null) return null;
+
+				union(parents, i, idx);
+			}
+		}
+
+		Map<Integer, List<ModCandidate>> components = new LinkedHashMap<>();
+
+		for (int i = 0; i < parents.length; i++) {
+			components.computeIfAbsent(find(parents, i), ignore -> new ArrayList<>()).add(allModsSorted.get(i));
+		}
+
+		List<List<ModCandidate>> ret = new ArrayList<>(components.values());
+		ret.sort((a, b) -> Integer.compare(b.size(), a.size())); // stable, ties stay in priority order
+
+		return ret;
+	}
+
+	private static int find(int[] parents, int idx) {
+		while (parents[idx] != idx) {
+			parents[idx] = parents[parents[idx]];
+			idx = parents[idx];
+		}
+
+		return idx;
+	}
+
+	private static void union(int[] parents, int a, int b) {
+		a = find(parents, a);
+		b = find(parents, b);
+
+		if (a < b) {
+			parents[b] = a;
+		} else if (b < a) {
+			parents[a] = b;
+		}
+	}
+
+	/**
+	 * Pack the components into batches of similar size, largest component first into the currently smallest batch.
+	 */
+	private static List<Batch> createBatches(List<List<ModCandidate>> components, List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, int count) {
+		int[] sizes = new int[count];
+		Map<ModCandidate, Integer> batchIndices = new IdentityHashMap<>(allModsSorted.size());
+
+		for (List<ModCandidate> component : components) {
+			int batch = 0;
+
+			for (int i = 1; i < count; i++) {
+				if (sizes[i] < sizes[batch]) batch = i;
+			}
+
+			sizes[batch] += component.size();
+
+			for (ModCandidate mod : component) {
+				batchIndices.put(mod, batch);
+			}
+		}
+
+		List<Batch> ret = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			ret.add(new Batch(sizes[i]));
+		}
+
+		for (ModCandidate mod : allModsSorted) {
+			ret.get(batchIndices.get(mod)).modsSorted.add(mod);
+		}
+
+		for (Map.Entry<String, List<ModCandidate>> entry : modsById.entrySet()) {
+			ret.get(batchIndices.get(entry.getValue().get(0))).modsById.put(entry.getKey(), entry.getValue());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return the solution for each batch or null if any batch has no solution
+	 */
+	private static List<List<ModCandidate>> solveBatches(List<Batch> batches, Map<ModCandidate, Integer> priorities,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods, ResolutionMetrics metrics) throws ContradictionException, TimeoutException {
+		List<Callable<List<ModCandidate>>> tasks = new ArrayList<>(batches.size());
+
+		for (Batch batch : batches) {
+			tasks.add(() -> ModSolver.solvePart(batch.modsSorted, batch.modsById, priorities, selectedMods, uniqueSelectedMods, metrics));
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = task -> {
+			Thread thread = new Thread(task, "Fabric Mod Resolution #"+threadCount.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), threadFactory);
+		List<List<ModCandidate>> ret = new ArrayList<>(batches.size());
+
+		try {
+			for (Future<List<ModCandidate>> future : executor.invokeAll(tasks)) {
+				ret.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while solving the mod set", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ContradictionException) throw (ContradictionException) cause;
+			if (cause instanceof TimeoutException) throw (TimeoutException) cause;
+
+			throw ExceptionUtil.wrap(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (List<ModCandidate> solution : ret) {
+			if (solution == null) return null;
+		}
+
+		return ret;
+	}
+
+	private static final class Batch {
+		final List<ModCandidate> modsSorted;
+		final Map<String, List<ModCandidate>> modsById = new LinkedHashMap<>(); // linked to ensure consistent execution
+
+		Batch(int size) {
+			modsSorted = new ArrayList<>(size);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Content address of a jar, consisting of its size and SHA-256 digest.
+ */
+final class ContentHash {
+	private static final String ALGORITHM = "SHA-256";
+	private static final int DIGEST_SIZE = 32;
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	final long size;
+	private final byte[] digest;
+	private final int hashCode;
+
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e); // required to be present in every JRE
+		}
+	}
+
+	static ContentHash of(ByteBuffer data) {
+		MessageDigest digest = createDigest();
+		long size = data.remaining();
+		digest.update(data.duplicate());
+
+		return new ContentHash(size, digest.digest());
+	}
+
+	static ContentHash of(Path file) throws IOException {
+		MessageDigest digest = createDigest();
+		long size = 0;
+
+		try (FileChannel channel = FileChannel.open(file)) {
+			ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				size += buffer.remaining();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+
+		return new ContentHash(size, digest.digest());
+	}
+
+	static ContentHash read(DataInput in) throws IOException {
+		long size = in.readLong();
+		byte[] digest = new byte[DIGEST_SIZE];
+		in.readFully(digest);
+
+		return new ContentHash(size, digest);
+	}
+
+	ContentHash(long size, byte[] digest) {
+		if (digest.length != DIGEST_SIZE) throw new IllegalArgumentException("invalid digest length: "+digest.length);
+
+		this.size = size;
+		this.digest = digest;
+		this.hashCode = (digest[0] & 0xff) | (digest[1] & 0xff) << 8 | (digest[2] & 0xff) << 16 | (digest[3] & 0xff) << 24;
+	}
+
+	void write(DataOutput out) throws IOException {
+		out.writeLong(size);
+		out.write(digest);
+	}
+
+	/**
+	 * Get the hex representation of the first {@code bytes} digest bytes.
+	 */
+	String toHexString(int bytes) {
+		bytes = Math.min(bytes, digest.length);
+		char[] ret = new char[bytes * 2];
+
+		for (int i = 0; i < bytes; i++) {
+			ret[i * 2] = HEX_DIGITS[(digest[i] >>> 4) & 0xf];
+			ret[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+		}
+
+		return new String(ret);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof ContentHash)) return false;
+
+		ContentHash o = (ContentHash) obj;
+
+		return size == o.size && Arrays.equals(digest, o.digest);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return toHexString(DIGEST_SIZE);
+	}
+}
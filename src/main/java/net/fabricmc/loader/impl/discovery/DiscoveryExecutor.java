@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Runs the tasks of a single mod discovery or extraction run and tracks their progress.
+ *
+ * <p>Discovery tasks never wait for each other, the run is complete once every submitted task finished. The mode is
+ * selected with {@link SystemProperties#DISCOVERY_EXECUTOR}:
+ * <ul>
+ * <li>{@code pool}: a bounded amount of platform threads as set by {@link SystemProperties#DISCOVERY_THREADS}
+ * <li>{@code virtual}: a virtual thread per task, requires Java 21+ and falls back to {@code pool} otherwise
+ * <li>{@code single}: all tasks run in submission order on the thread awaiting completion, for deterministic behavior
+ * </ul>
+ */
+abstract class DiscoveryExecutor {
+	private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private final String name;
+	private final String activity;
+	private final AtomicInteger submittedTasks = new AtomicInteger();
+	private final AtomicInteger completedTasks = new AtomicInteger();
+	private final Object completionLock = new Object();
+
+	/**
+	 * @param activity description of the tasks for progress reporting
+	 * @param threadName name prefix for pool threads
+	 */
+	static DiscoveryExecutor create(String activity, String threadName) {
+		String mode = System.getProperty(SystemProperties.DISCOVERY_EXECUTOR, "pool");
+
+		switch (mode) {
+		case "pool":
+			return createPool(activity, threadName);
+		case "virtual":
+			ExecutorService executor = createVirtualThreadExecutor();
+
+			if (executor == null) {
+				Log.warn(LogCategory.DISCOVERY, "Virtual threads aren't available on Java %s, using the pool discovery executor instead", System.getProperty("java.specification.version"));
+				return createPool(activity, threadName);
+			}
+
+			return new ServiceExecutor("virtual", activity, executor);
+		case "single":
+			return new SingleThreadExecutor(activity);
+		default:
+			throw new RuntimeException(String.format("Invalid discovery executor %s, expected pool, virtual or single", mode));
+		}
+	}
+
+	private static DiscoveryExecutor createPool(String activity, String threadName) {
+		int threads = Integer.getInteger(SystemProperties.DISCOVERY_THREADS, Runtime.getRuntime().availableProcessors());
+		if (threads <= 0) throw new RuntimeException(String.format("Invalid discovery thread count %d, must be positive", threads));
+
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = task -> {
+			Thread ret = new Thread(task, threadName+" #"+threadCount.incrementAndGet());
+			ret.setDaemon(true);
+
+			return ret;
+		};
+
+		return new ServiceExecutor("pool", activity, Executors.newFixedThreadPool(threads, threadFactory));
+	}
+
+	/**
+	 * Get the time limit for a discovery or extraction run as set by {@link SystemProperties#DEBUG_DISCOVERY_TIMEOUT}.
+	 *
+	 * @return timeout in seconds, {@link Integer#MAX_VALUE} if disabled
+	 */
+	static int getTimeout() {
+		int ret = Integer.getInteger(SystemProperties.DEBUG_DISCOVERY_TIMEOUT, 60);
+
+		return ret > 0 ? ret : Integer.MAX_VALUE;
+	}
+
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	protected DiscoveryExecutor(String name, String activity) {
+		this.name = name;
+		this.activity = activity;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getSubmittedTasks() {
+		return submittedTasks.get();
+	}
+
+	int getCompletedTasks() {
+		return completedTasks.get();
+	}
+
+	/**
+	 * Schedule a task for asynchronous execution.
+	 */
+	final void execute(Runnable task) {
+		submittedTasks.incrementAndGet();
+		dispatch(task);
+	}
+
+	/**
+	 * Run a task on the current thread, tracked the same way as asynchronous tasks.
+	 */
+	final void runLocal(Runnable task) {
+		submittedTasks.incrementAndGet();
+		run(task);
+	}
+
+	protected abstract void dispatch(Runnable task);
+
+	protected final void run(Runnable task) {
+		try {
+			task.run();
+		} finally {
+			if (completedTasks.incrementAndGet() == submittedTasks.get()) {
+				synchronized (completionLock) {
+					completionLock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wait until all submitted tasks completed, logging the progress periodically.
+	 *
+	 * @param deadline {@link System#nanoTime} value to give up at
+	 * @return whether all tasks completed before the deadline
+	 */
+	boolean awaitCompletion(long deadline) throws InterruptedException {
+		long nextProgress = System.nanoTime() + PROGRESS_INTERVAL;
+
+		synchronized (completionLock) {
+			while (completedTasks.get() != submittedTasks.get()) {
+				long time = System.nanoTime();
+				if (time - deadline >= 0) return false;
+				if (time - nextProgress >= 0) nextProgress = reportProgress(time);
+
+				TimeUnit.NANOSECONDS.timedWait(completionLock, Math.min(deadline - time, nextProgress - time));
+			}
+		}
+
+		return true;
+	}
+
+	protected final long reportProgress(long time) {
+		Log.debug(LogCategory.DISCOVERY, "%s in progress, %d/%d tasks completed", activity, completedTasks.get(), submittedTasks.get());
+
+		return time + PROGRESS_INTERVAL;
+	}
+
+	/**
+	 * Stop executing tasks, interrupting those still running.
+	 */
+	abstract void shutdown();
+
+	private static final class ServiceExecutor extends DiscoveryExecutor {
+		private final ExecutorService executor;
+
+		ServiceExecutor(String name, String activity, ExecutorService executor) {
+			super(name, activity);
+
+			this.executor = executor;
+		}
+
+		@Override
+		protected void dispatch(Runnable task) {
+			executor.execute(() -> run(task));
+		}
+
+		@Override
+		void shutdown() {
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class SingleThreadExecutor extends DiscoveryExecutor {
+		private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+		SingleThreadExecutor(String activity) {
+			super("single", activity);
+		}
+
+		@Override
+		protected void dispatch(Runnable task) {
+			queue.add(task);
+		}
+
+		@Override
+		boolean awaitCompletion(long deadline) {
+			long nextProgress = System.nanoTime() + PROGRESS_INTERVAL;
+			Runnable task;
+
+			while ((task = queue.poll()) != null) {
+				long time = System.nanoTime();
+				if (time - deadline >= 0) return false;
+				if (time - nextProgress >= 0) nextProgress = reportProgress(time);
+
+				run(task);
+			}
+
+			return true;
+		}
+
+		@Override
+		void shutdown() {
+			queue.clear();
+		}
+	}
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.metadata.ModMetadataCodec;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Persistent record of previous discovery results, allows unchanged mod jars to be restored without opening them.
+ *
+ * <p>Top level jars are keyed by their normalized path and validated against their size and modification time without
+ * opening them. Jars whose modification time doesn't match or is too close to when the index was written to be
+ * conclusive are opened and validated against a fingerprint of their zip central directory instead. Nested jars are
+ * keyed by their {@link ContentHash} and shared between all parents, a changed jar thus only replaces its own record
+ * while the records for unchanged nested jars remain usable.
+ *
+ * <p>The metadata is stored in its {@link ModMetadataCodec} encoding from before applying any overrides, restoring
+ * decodes it and applies the version and dependency overrides as well as metadata verification again.
+ */
+public final class DiscoveryIndex {
+	private static final int MAGIC = 0x46444958; // FDIX
+	private static final int FORMAT_VERSION = 3;
+	private static final long MTIME_GRANULARITY = 2000; // ms, coarsest common file system timestamp resolution (FAT)
+
+	private final Path file;
+	private final EnvType envType;
+	private final Map<String, JarRecord> jars; // records from the previous run, read only
+	private final Map<String, JarRecord> usedJars = new ConcurrentHashMap<>(); // records to retain
+	private final Map<ContentHash, ModRecord> nestedJars;
+	private final long writeTime; // modification time of the loaded index file in ms
+	private volatile boolean dirty;
+
+	public static DiscoveryIndex load(Path file, EnvType envType) {
+		Map<String, JarRecord> jars = new HashMap<>();
+		Map<ContentHash, ModRecord> nestedJars = new ConcurrentHashMap<>();
+		long writeTime = 0;
+
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (is.readInt() != MAGIC
+					|| is.readInt() != FORMAT_VERSION
+					|| !ModMetadataCodec.readHeader(is)
+					|| !is.readUTF().equals(envType.name())) {
+				Log.debug(LogCategory.DISCOVERY, "Discarding outdated discovery index %s", file);
+			} else {
+				for (int i = is.readInt(); i > 0; i--) {
+					String path = is.readUTF();
+					jars.put(path, new JarRecord(is.readLong(), is.readLong(), is.readLong(), ModRecord.read(is)));
+				}
+
+				for (int i = is.readInt(); i > 0; i--) {
+					ContentHash hash = ContentHash.read(is);
+					nestedJars.put(hash, ModRecord.read(is));
+				}
+
+				writeTime = Files.getLastModifiedTime(file).toMillis();
+			}
+		} catch (NoSuchFileException e) {
+			// first run
+		} catch (IOException e) {
+			Log.warn(LogCategory.DISCOVERY, "Error reading discovery index %s, ignoring it", file, e);
+			jars.clear();
+			nestedJars.clear();
+		}
+
+		return new DiscoveryIndex(file, envType, jars, nestedJars, writeTime);
+	}
+
+	private DiscoveryIndex(Path file, EnvType envType, Map<String, JarRecord> jars, Map<ContentHash, ModRecord> nestedJars, long writeTime) {
+		this.file = file;
+		this.envType = envType;
+		this.jars = jars;
+		this.nestedJars = nestedJars;
+		this.writeTime = writeTime;
+	}
+
+	/**
+	 * Get the record for a top level jar with unchanged size and modification time, without opening it.
+	 *
+	 * <p>A jar modified shortly before the index was written may have been modified again without changing its
+	 * modification time, such jars have to be validated through {@link #getState} and {@link #getJar(Path, JarState)}.
+	 *
+	 * @return the record or null if the jar has to be opened to determine whether it changed
+	 */
+	ModRecord getJar(Path path, BasicFileAttributes attrs) {
+		String key = path.toString();
+		JarRecord ret = jars.get(key);
+
+		if (ret == null
+				|| ret.state.size != attrs.size()
+				|| ret.state.mtime != attrs.lastModifiedTime().toMillis()
+				|| ret.state.mtime >= writeTime - MTIME_GRANULARITY
+				|| !isComplete(ret.mod)) {
+			return null;
+		}
+
+		usedJars.put(key, ret);
+
+		return ret.mod;
+	}
+
+	/**
+	 * Determine the current state of an opened top level jar for use with {@link #getJar(Path, JarState)} and
+	 * {@link #putJar}.
+	 *
+	 * <p>The fingerprint is a CRC of the zip central directory, which contains the CRC of every entry. This doesn't need
+	 * to inflate anything.
+	 */
+	static JarState getState(BasicFileAttributes attrs, ZipReader zip) {
+		ByteBuffer cd = zip.getCentralDirectory();
+		CRC32 crc = new CRC32();
+		crc.update(cd.duplicate());
+
+		return new JarState(attrs.size(), attrs.lastModifiedTime().toMillis(), crc.getValue() << 32 | cd.remaining());
+	}
+
+	/**
+	 * Get the record for an opened top level jar with unchanged content, updating the stored modification time.
+	 *
+	 * @return the record or null if the jar changed or some part of its nested jar tree isn't available
+	 */
+	ModRecord getJar(Path path, JarState state) {
+		String key = path.toString();
+		JarRecord ret = jars.get(key);
+
+		if (ret == null
+				|| ret.state.size != state.size
+				|| ret.state.fingerprint != state.fingerprint
+				|| !isComplete(ret.mod)) {
+			return null;
+		}
+
+		usedJars.put(key, new JarRecord(state, ret.mod));
+		dirty = true; // rewrite to make the jar's modification time conclusive
+
+		return ret.mod;
+	}
+
+	void putJar(Path path, JarState state, ModRecord record) {
+		usedJars.put(path.toString(), new JarRecord(state, record));
+		dirty = true;
+	}
+
+	ModRecord getNested(ContentHash hash) {
+		return nestedJars.get(hash);
+	}
+
+	void putNested(ContentHash hash, ModRecord record) {
+		if (nestedJars.put(hash, record) == null) dirty = true;
+	}
+
+	/**
+	 * Determine whether the records for all transitively nested jars are present.
+	 */
+	boolean isComplete(ModRecord record) {
+		if (record.nestedJars == null || record.nestedJars.isEmpty()) return true;
+
+		Set<ContentHash> visited = new HashSet<>();
+		Queue<ModRecord> queue = new ArrayDeque<>();
+		queue.add(record);
+
+		while ((record = queue.poll()) != null) {
+			if (record.nestedJars == null) continue;
+
+			for (NestedRef ref : record.nestedJars) {
+				ContentHash hash = ref.hash;
+				if (hash == null) return false; // still being scanned
+				if (!visited.add(hash)) continue;
+
+				ModRecord child = nestedJars.get(hash);
+				if (child == null) return false;
+
+				queue.add(child);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Write the index back to disk if it changed, retaining only the records that were used or added by this run.
+	 */
+	public void save() {
+		if (!dirty && usedJars.size() == jars.size()) return;
+
+		// collect nested records reachable from the retained top level jars
+
+		Map<ContentHash, ModRecord> retainedNested = new HashMap<>();
+		Queue<ModRecord> queue = new ArrayDeque<>();
+
+		for (JarRecord record : usedJars.values()) {
+			queue.add(record.mod);
+		}
+
+		ModRecord record;
+
+		while ((record = queue.poll()) != null) {
+			if (record.nestedJars == null) continue;
+
+			for (NestedRef ref : record.nestedJars) {
+				if (retainedNested.containsKey(ref.hash)) continue;
+
+				ModRecord child = nestedJars.get(ref.hash);
+				if (child == null) continue;
+
+				retainedNested.put(ref.hash, child);
+				queue.add(child);
+			}
+		}
+
+		Path tmpFile = file.resolveSibling(file.getFileName().toString().concat(".tmp"));
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				os.writeInt(MAGIC);
+				os.writeInt(FORMAT_VERSION);
+				ModMetadataCodec.writeHeader(os);
+				os.writeUTF(envType.name());
+
+				os.writeInt(usedJars.size());
+
+				for (Map.Entry<String, JarRecord> entry : usedJars.entrySet()) {
+					JarRecord jar = entry.getValue();
+
+					os.writeUTF(entry.getKey());
+					os.writeLong(jar.state.size);
+					os.writeLong(jar.state.mtime);
+					os.writeLong(jar.state.fingerprint);
+					jar.mod.write(os);
+				}
+
+				os.writeInt(retainedNested.size());
+
+				for (Map.Entry<ContentHash, ModRecord> entry : retainedNested.entrySet()) {
+					entry.getKey().write(os);
+					entry.getValue().write(os);
+				}
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.DISCOVERY, "Error writing discovery index %s", file, e);
+
+			try {
+				Files.deleteIfExists(tmpFile);
+			} catch (IOException e2) {
+				// ignore
+			}
+		}
+	}
+
+	static final class JarState {
+		final long size;
+		final long mtime;
+		final long fingerprint;
+
+		JarState(long size, long mtime, long fingerprint) {
+			this.size = size;
+			this.mtime = mtime;
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	private static final class JarRecord {
+		final JarState state;
+		final ModRecord mod;
+
+		JarRecord(long size, long mtime, long fingerprint, ModRecord mod) {
+			this(new JarState(size, mtime, fingerprint), mod);
+		}
+
+		JarRecord(JarState state, ModRecord mod) {
+			this.state = state;
+			this.mod = mod;
+		}
+	}
+
+	static final class ModRecord {
+		static final ModRecord NO_MOD = new ModRecord(null, Collections.emptyList());
+
+		final byte[] metadata; // encoded metadata, null if there is no fabric.mod.json
+		final List<NestedRef> nestedJars; // null if the nested jars weren't scanned due to the mod being disabled for the env
+
+		ModRecord(byte[] metadata, List<NestedRef> nestedJars) {
+			this.metadata = metadata;
+			this.nestedJars = nestedJars;
+		}
+
+		static ModRecord read(DataInputStream is) throws IOException {
+			int len = is.readInt();
+			if (len < 0) return NO_MOD;
+
+			byte[] metadata = new byte[len];
+			is.readFully(metadata);
+
+			int count = is.readInt();
+			List<NestedRef> nestedJars;
+
+			if (count < 0) {
+				nestedJars = null;
+			} else if (count == 0) {
+				nestedJars = Collections.emptyList();
+			} else {
+				nestedJars = new ArrayList<>(count);
+
+				for (int i = 0; i < count; i++) {
+					nestedJars.add(new NestedRef(is.readUTF(), ContentHash.read(is)));
+				}
+			}
+
+			return new ModRecord(metadata, nestedJars);
+		}
+
+		void write(DataOutputStream os) throws IOException {
+			if (metadata == null) {
+				os.writeInt(-1);
+				return;
+			}
+
+			os.writeInt(metadata.length);
+			os.write(metadata);
+
+			if (nestedJars == null) {
+				os.writeInt(-1);
+			} else {
+				os.writeInt(nestedJars.size());
+
+				for (NestedRef ref : nestedJars) {
+					os.writeUTF(ref.localPath);
+					ref.hash.write(os);
+				}
+			}
+		}
+	}
+
+	static final class NestedRef {
+		final String localPath; // entry name within the parent
+		volatile ContentHash hash; // null until the nested jar's scan task determined it
+
+		NestedRef(String localPath, ContentHash hash) {
+			this.localPath = localPath;
+			this.hash = hash;
+		}
+	}
+}
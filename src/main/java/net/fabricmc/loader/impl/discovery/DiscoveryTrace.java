@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+import net.fabricmc.loader.impl.util.log.LogLevel;
+
+/**
+ * Per-jar timing and I/O statistics of a mod discovery run, reported as a list of the slowest jars in the debug log and
+ * optionally as a JSON file for further analysis, see {@link net.fabricmc.loader.impl.util.SystemProperties#DEBUG_DISCOVERY_TRACE}.
+ */
+final class DiscoveryTrace {
+	private static final int REPORTED_JAR_COUNT = 10;
+
+	private final Queue<JarTrace> jars = new ConcurrentLinkedQueue<>();
+
+	void add(JarTrace trace) {
+		jars.add(trace);
+	}
+
+	/**
+	 * Log the slowest jars and write all traces to file, sorted by descending scan time.
+	 *
+	 * @param file JSON file to write, may be null
+	 */
+	void report(long totalTime, String executorName, Path file) {
+		boolean log = Log.shouldLog(LogLevel.DEBUG, LogCategory.DISCOVERY);
+		if (!log && file == null) return;
+
+		List<JarTrace> sorted = new ArrayList<>(jars);
+		sorted.sort(Comparator.comparingLong((JarTrace trace) -> trace.getSelfTime()).reversed());
+
+		if (log && !sorted.isEmpty()) {
+			StringBuilder sb = new StringBuilder("Slowest mod jars:");
+
+			for (int i = 0; i < Math.min(sorted.size(), REPORTED_JAR_COUNT); i++) {
+				JarTrace trace = sorted.get(i);
+
+				sb.append(String.format(Locale.ENGLISH, "\n\t%.1f ms %s %s (open %.1f ms, parse %.1f ms, %d bytes read, %d nested jars, %d dedup hits)",
+						trace.getSelfTime() * 1e-6, trace.type, trace.path,
+						trace.openTime * 1e-6, trace.parseTime * 1e-6, trace.bytesRead, trace.nestedJars, trace.dedupHits.get()));
+			}
+
+			Log.debug(LogCategory.DISCOVERY, sb.toString());
+		}
+
+		if (file != null) {
+			try {
+				write(sorted, totalTime, executorName, file);
+			} catch (IOException e) {
+				Log.warn(LogCategory.DISCOVERY, "Error writing discovery trace %s", file, e);
+			}
+		}
+	}
+
+	private static void write(List<JarTrace> traces, long totalTime, String executorName, Path file) throws IOException {
+		Path tmpFile = file.resolveSibling(file.getFileName().toString().concat(".tmp"));
+		Files.createDirectories(file.getParent());
+
+		try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+			writer.write(String.format(Locale.ENGLISH, "{\n\t\"totalMs\": %.3f,\n\t\"executor\": ", totalTime * 1e-6));
+			writeString(executorName, writer);
+			writer.write(",\n\t\"jars\": [");
+
+			for (int i = 0; i < traces.size(); i++) {
+				JarTrace trace = traces.get(i);
+
+				writer.write(i == 0 ? "\n\t\t{\"path\": " : ",\n\t\t{\"path\": ");
+				writeString(trace.path, writer);
+				writer.write(", \"parents\": [");
+
+				for (int j = 0; j < trace.parentPaths.size(); j++) {
+					if (j != 0) writer.write(", ");
+					writeString(trace.parentPaths.get(j), writer);
+				}
+
+				writer.write("], \"type\": ");
+				writeString(trace.type, writer);
+				writer.write(String.format(Locale.ENGLISH, ", \"selfMs\": %.3f, \"openMs\": %.3f, \"parseMs\": %.3f, \"bytesRead\": %d, \"nestedJars\": %d, \"dedupHits\": %d}",
+						trace.getSelfTime() * 1e-6, trace.openTime * 1e-6, trace.parseTime * 1e-6, trace.bytesRead, trace.nestedJars, trace.dedupHits.get()));
+			}
+
+			writer.write("\n\t]\n}\n");
+		}
+
+		Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void writeString(String str, Writer writer) throws IOException {
+		writer.write('"');
+
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+
+		writer.write('"');
+	}
+
+	/**
+	 * Statistics for a single {@link ModDiscoverer.ModScanTask}, only written by the thread running it.
+	 */
+	static final class JarTrace {
+		final String path;
+		final List<String> parentPaths;
+		String type = "unknown"; // dir, jar, nested, the former two with -indexed suffix if restored from the discovery index or nested-duplicate
+		long totalTime;
+		long nestedTime; // time spent running nested scan tasks on the same thread
+		long openTime; // opening the jar and determining its discovery index state
+		long parseTime; // parsing fabric.mod.json
+		long bytesRead; // compressed bytes read from the jar or its parent
+		int nestedJars;
+		final AtomicInteger dedupHits = new AtomicInteger(); // references to this jar's content by further parents, each skipping a scan
+
+		JarTrace(String path, List<String> parentPaths) {
+			this.path = path;
+			this.parentPaths = parentPaths;
+		}
+
+		long getSelfTime() {
+			return totalTime - nestedTime;
+		}
+	}
+}
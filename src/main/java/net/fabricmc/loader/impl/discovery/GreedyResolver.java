@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fabricmc.loader.api.metadata.ModDependency;
+
+/**
+ * Fast path for mod resolution that selects the highest priority candidate of every id without invoking the solver.
+ *
+ * <p>All candidates are loaded greedily (ALWAYS or IF_POSSIBLE), so the solver's objective weighs every mod higher than
+ * all lower priority mods combined and its optimum is the feasible selection that is greatest in priority order. The
+ * selection of the first candidate of every id group is that optimum if it is consistent: each selected mod is also
+ * first in the groups of all ids it provides, and all dependency, nesting and preselection constraints are satisfied.
+ * Every other candidate is then excluded by the single mod per id constraint together with a higher priority selected
+ * mod. Recommendations that aren't met but could be are left to the solver since it weighs them separately.
+ */
+final class GreedyResolver {
+	/**
+	 * Attempt to select the mods without the solver.
+	 *
+	 * @return true if the selection was applied to selectedMods and uniqueSelectedMods, false if the solver is needed
+	 */
+	static boolean trySelect(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods) throws ModResolutionException {
+		// determine the first candidate of every group, which also has to be first for all its ids
+
+		Set<ModCandidate> firstMods = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (List<ModCandidate> variants : modsById.values()) {
+			firstMods.add(variants.get(0));
+		}
+
+		Map<String, ModCandidate> selection = new HashMap<>(selectedMods);
+		List<ModCandidate> newMods = new ArrayList<>(firstMods.size());
+
+		for (ModCandidate mod : allModsSorted) {
+			if (!firstMods.contains(mod)) continue;
+			if (!isFirst(mod, mod.getId(), modsById)) return false;
+
+			for (String provided : mod.getProvides()) {
+				if (!isFirst(mod, provided, modsById)) return false;
+			}
+
+			if (selection.put(mod.getId(), mod) != null) return false;
+
+			for (String provided : mod.getProvides()) {
+				if (selection.put(provided, mod) != null) return false;
+			}
+
+			newMods.add(mod);
+		}
+
+		if (newMods.size() != firstMods.size()) return false; // first mod missing from allModsSorted
+
+		// check the constraints ModSolver would generate
+
+		for (ModCandidate mod : uniqueSelectedMods) {
+			if (!checkPreselectedDeps(mod, modsById, selectedMods, selection)) return false;
+		}
+
+		for (ModCandidate mod : newMods) {
+			if (!mod.isRoot() && !ModSolver.isAnyParentSelected(mod, selection)) return false;
+			if (!checkDeps(mod, modsById, selectedMods, selection)) return false;
+		}
+
+		for (ModCandidate mod : newMods) {
+			ModResolver.selectMod(mod, selectedMods, uniqueSelectedMods);
+		}
+
+		return true;
+	}
+
+	private static boolean isFirst(ModCandidate mod, String id, Map<String, List<ModCandidate>> modsById) {
+		List<ModCandidate> variants = modsById.get(id);
+
+		return variants != null && variants.get(0) == mod;
+	}
+
+	/**
+	 * Check a mod's dependencies against the selection like ModSolver.generateMainConstraints.
+	 */
+	private static boolean checkDeps(ModCandidate mod, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> preselectedMods, Map<String, ModCandidate> selection) {
+		for (ModDependency dep : mod.getDependencies()) {
+			ModCandidate target = selection.get(dep.getModId());
+
+			switch (dep.getKind()) {
+			case DEPENDS:
+				if (target == null || !dep.matches(target.getVersion())) return false;
+				break;
+			case BREAKS:
+				if (target != null && dep.matches(target.getVersion())) return false;
+				break;
+			case RECOMMENDS:
+				if (preselectedMods.containsKey(dep.getModId())) break; // not a constraint for the solver either
+				if (target != null && dep.matches(target.getVersion())) break;
+				if (hasMatch(dep, modsById)) return false; // unmet but satisfiable, the solver weighs this
+
+				break;
+			default:
+				// no constraint
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Check a preselected mod's dependencies against the selection like ModSolver.generatePreselectConstraints, which
+	 * ignores dependencies on other preselected mods and positive dependencies without any candidate.
+	 */
+	private static boolean checkPreselectedDeps(ModCandidate mod, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> preselectedMods, Map<String, ModCandidate> selection) {
+		for (ModDependency dep : mod.getDependencies()) {
+			if (preselectedMods.containsKey(dep.getModId())) continue;
+
+			ModCandidate target = selection.get(dep.getModId());
+
+			switch (dep.getKind()) {
+			case DEPENDS:
+			case RECOMMENDS:
+				if (target != null && dep.matches(target.getVersion())) break;
+				if (hasMatch(dep, modsById)) return false;
+
+				break;
+			case BREAKS:
+				if (target != null && dep.matches(target.getVersion())) return false;
+				break;
+			default:
+				// no constraint
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean hasMatch(ModDependency dep, Map<String, List<ModCandidate>> modsById) {
+		List<ModCandidate> variants = modsById.get(dep.getModId());
+		if (variants == null) return false;
+
+		for (ModCandidate mod : variants) {
+			if (dep.matches(mod.getVersion())) return true;
+		}
+
+		return false;
+	}
+}
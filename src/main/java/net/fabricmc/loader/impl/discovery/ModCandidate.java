@@ -16,22 +16,20 @@
 
 package net.fabricmc.loader.impl.discovery;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 import net.fabricmc.loader.api.Version;
 import net.fabricmc.loader.api.metadata.ModDependency;
@@ -54,41 +52,30 @@ public final class ModCandidate implements DomainObject.Mod {
 	private final List<Path> originPaths;
 	private List<Path> paths;
 	private final String localPath;
-	private final long hash;
+	private final ContentHash hash; // only for nested mods
 	private final LoaderModMetadata metadata;
 	private final boolean requiresRemap;
 	private final Collection<ModCandidate> nestedMods;
 	private final Collection<ModCandidate> parentMods;
 	private int minNestLevel;
-	private SoftReference<ByteBuffer> dataRef;
 
 	static ModCandidate createBuiltin(BuiltinMod mod, VersionOverrides versionOverrides, DependencyOverrides depOverrides) {
 		LoaderModMetadata metadata = new BuiltinMetadataWrapper(mod.metadata);
 		versionOverrides.apply(metadata);
 		depOverrides.apply(metadata);
 
-		return new ModCandidate(mod.paths, null, -1, metadata, false, Collections.emptyList());
+		return new ModCandidate(mod.paths, null, null, metadata, false, Collections.emptyList());
 	}
 
 	static ModCandidate createPlain(List<Path> paths, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
-		return new ModCandidate(paths, null, -1, metadata, requiresRemap, nestedMods);
+		return new ModCandidate(paths, null, null, metadata, requiresRemap, nestedMods);
 	}
 
-	static ModCandidate createNested(String localPath, long hash, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
+	static ModCandidate createNested(String localPath, ContentHash hash, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
 		return new ModCandidate(null, localPath, hash, metadata, requiresRemap, nestedMods);
 	}
 
-	static long hash(ZipEntry entry) {
-		if (entry.getSize() < 0 || entry.getCrc() < 0) throw new IllegalArgumentException("uninitialized entry: "+entry);
-
-		return entry.getCrc() << 32 | entry.getSize();
-	}
-
-	private static long getSize(long hash) {
-		return hash & 0xffffffffL;
-	}
-
-	private ModCandidate(List<Path> paths, String localPath, long hash, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
+	private ModCandidate(List<Path> paths, String localPath, ContentHash hash, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
 		this.originPaths = paths;
 		this.paths = paths;
 		this.localPath = localPath;
@@ -131,6 +118,13 @@ public final class ModCandidate implements DomainObject.Mod {
 		}
 	}
 
+	/**
+	 * Get the content hash of a nested mod's jar, null for other mods.
+	 */
+	ContentHash getHash() {
+		return hash;
+	}
+
 	public LoaderModMetadata getMetadata() {
 		return metadata;
 	}
@@ -209,13 +203,21 @@ public final class ModCandidate implements DomainObject.Mod {
 	}
 
 	void setData(ByteBuffer data) {
-		this.dataRef = new SoftReference<>(data);
+		ModDataCache.INSTANCE.put(this, data);
 	}
 
 	void clearCachedData() {
-		this.dataRef = null;
+		ModDataCache.INSTANCE.remove(this);
 	}
 
+	/**
+	 * Copy the mod's jar into outputDir.
+	 *
+	 * <p>Non-temporary copies of nested mods are content addressed by {@link #getStoreFileName}, so a jar that is already
+	 * present from a previous launch or another mod with the same nested jar is reused after verifying its content hash.
+	 * Such copies are written to a temporary file first and moved into place, which keeps the directory safe to share
+	 * between game instances and to extract into concurrently.
+	 */
 	public Path copyToDir(Path outputDir, boolean temp) throws IOException {
 		Files.createDirectories(outputDir);
 		Path ret = null;
@@ -224,15 +226,25 @@ public final class ModCandidate implements DomainObject.Mod {
 			if (temp) {
 				ret = Files.createTempFile(outputDir, getId(), ".jar");
 			} else {
-				ret = outputDir.resolve(getDefaultFileName());
-
-				if (Files.exists(ret)) {
-					if (Files.size(ret) == getSize(hash)) {
-						return ret;
-					} else {
-						Files.deleteIfExists(ret);
-					}
+				Path target = outputDir.resolve(hash != null ? getStoreFileName() : getDefaultFileName());
+
+				if (hash != null
+						&& Files.exists(target)
+						&& Files.size(target) == hash.size
+						&& hash.equals(ContentHash.of(target))) {
+					return target;
 				}
+
+				ret = Files.createTempFile(outputDir, getId(), ".tmp");
+				copyToFile(ret);
+
+				try {
+					Files.move(ret, target, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(ret, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+
+				return target;
 			}
 
 			copyToFile(ret);
@@ -249,7 +261,7 @@ public final class ModCandidate implements DomainObject.Mod {
 		String ret = String.format("%s-%s-%s.jar",
 				getId(),
 				FILE_NAME_SANITIZING_PATTERN.matcher(getVersion().getFriendlyString()).replaceAll("_"),
-				Long.toHexString(mixHash(hash)));
+				hash != null ? hash.toHexString(8) : "0");
 
 		if (ret.length() > 64) {
 			ret = ret.substring(0, 32).concat(ret.substring(ret.length() - 32));
@@ -258,115 +270,73 @@ public final class ModCandidate implements DomainObject.Mod {
 		return ret;
 	}
 
-	private static long mixHash(long hash) {
-		hash ^= (hash >>> 33);
-		hash *= 0xff51afd7ed558ccdL;
-		hash ^= (hash >>> 33);
-		hash *= 0xc4ceb9fe1a85ec53L;
-		hash ^= (hash >>> 33);
+	/**
+	 * Get the content addressed file name for a nested mod, independent of version overrides.
+	 */
+	String getStoreFileName() {
+		String id = getId();
+		if (id.length() > 31) id = id.substring(0, 31);
 
-		return hash;
+		return String.format("%s-%s.jar", id, hash.toHexString(16));
 	}
 
 	private static final Pattern FILE_NAME_SANITIZING_PATTERN = Pattern.compile("[^\\w\\.\\-\\+]+");
 
 	private void copyToFile(Path out) throws IOException {
-		SoftReference<ByteBuffer> dataRef = this.dataRef;
+		ByteBuffer data = ModDataCache.INSTANCE.get(this);
 
-		if (dataRef != null) {
-			ByteBuffer data = dataRef.get();
-
-			if (data != null) {
-				Files.copy(new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.arrayOffset() + data.limit()), out, StandardCopyOption.REPLACE_EXISTING);
-				return;
-			}
+		if (data != null) {
+			writeFile(data, out);
+			return;
 		}
 
 		if (paths != null) {
 			if (paths.size() != 1) throw new UnsupportedOperationException("multiple paths for "+this);
 
-			Files.copy(paths.get(0), out);
-
+			Files.copy(paths.get(0), out, StandardCopyOption.REPLACE_EXISTING);
 			return;
 		}
 
-		ModCandidate parent = getBestSourcingParent();
-
-		if (parent.paths != null) {
-			if (parent.paths.size() != 1) throw new UnsupportedOperationException("multiple parent paths for "+this);
-
-			try (ZipFile zf = new ZipFile(parent.paths.get(0).toFile())) {
-				ZipEntry entry = zf.getEntry(localPath);
-				if (entry == null) throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
-
-				Files.copy(zf.getInputStream(entry), out);
-			}
-		} else {
-			ByteBuffer data = parent.getData();
+		writeFile(readFromParent(), out);
+	}
 
-			try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.arrayOffset() + data.limit()))) {
-				ZipEntry entry = null;
+	private static void writeFile(ByteBuffer data, Path out) throws IOException {
+		data = data.duplicate();
 
-				while ((entry = zis.getNextEntry()) != null) {
-					if (entry.getName().equals(localPath)) {
-						Files.copy(zis, out);
-						return;
-					}
-				}
+		try (FileChannel channel = FileChannel.open(out, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (data.hasRemaining()) {
+				channel.write(data);
 			}
-
-			throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
 		}
 	}
 
 	private ByteBuffer getData() throws IOException {
-		SoftReference<ByteBuffer> dataRef = this.dataRef;
-
-		if (dataRef != null) {
-			ByteBuffer ret = dataRef.get();
-			if (ret != null) return ret;
-		}
-
-		ByteBuffer ret;
+		ByteBuffer ret = ModDataCache.INSTANCE.get(this);
+		if (ret != null) return ret;
 
 		if (paths != null) {
 			if (paths.size() != 1) throw new UnsupportedOperationException("multiple paths for "+this);
 
 			ret = ByteBuffer.wrap(Files.readAllBytes(paths.get(0)));
 		} else {
-			ModCandidate parent = getBestSourcingParent();
-
-			if (parent.paths != null) {
-				if (parent.paths.size() != 1) throw new UnsupportedOperationException("multiple parent paths for "+this);
+			ret = readFromParent();
+		}
 
-				try (ZipFile zf = new ZipFile(parent.paths.get(0).toFile())) {
-					ZipEntry entry = zf.getEntry(localPath);
-					if (entry == null) throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
+		setData(ret);
 
-					ret = ModDiscoverer.readMod(zf.getInputStream(entry));
-				}
-			} else {
-				ByteBuffer data = parent.getData();
-				ret = null;
-
-				try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.arrayOffset() + data.limit()))) {
-					ZipEntry entry = null;
-
-					while ((entry = zis.getNextEntry()) != null) {
-						if (entry.getName().equals(localPath)) {
-							ret = ModDiscoverer.readMod(zis);
-							break;
-						}
-					}
-				}
+		return ret;
+	}
 
-				if (ret == null) throw new IOException(String.format("can't find nested mod %s in its parent mods %s", this, parent));
-			}
-		}
+	private ByteBuffer readFromParent() throws IOException {
+		ModCandidate parent = getBestSourcingParent();
+		if (parent.paths != null && parent.paths.size() != 1) throw new UnsupportedOperationException("multiple parent paths for "+this);
 
-		this.dataRef = new SoftReference<>(ret);
+		try (ZipReader zip = parent.paths != null ? ZipReader.open(parent.paths.get(0)) : ZipReader.of(parent.getData())) {
+			ZipReader.Entry entry = zip.getEntry(localPath);
+			if (entry == null) throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
 
-		return ret;
+			return zip.getData(entry);
+		}
 	}
 
 	private ModCandidate getBestSourcingParent() {
@@ -378,7 +348,7 @@ public final class ModCandidate implements DomainObject.Mod {
 			if (parent.minNestLevel >= minNestLevel) continue;
 
 			if (parent.paths != null && parent.paths.size() == 1
-					|| parent.dataRef != null && parent.dataRef.get() != null) {
+					|| ModDataCache.INSTANCE.contains(parent)) {
 				return parent;
 			}
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Size bounded LRU cache for the jar contents of mod candidates without their own file, avoids re-reading or
+ * re-inflating nested jars from their parents during discovery and extraction.
+ *
+ * <p>Heap buffers are accounted with the size of their backing array since slices keep all of it alive. With
+ * {@link SystemProperties#MOD_DATA_CACHE_DIRECT} heap data is copied to direct memory instead, which accounts exactly
+ * and keeps the cached jars off the heap.
+ */
+public final class ModDataCache {
+	public static final ModDataCache INSTANCE = new ModDataCache(Long.getLong(SystemProperties.MOD_DATA_CACHE_SIZE, 64L << 20),
+			Boolean.getBoolean(SystemProperties.MOD_DATA_CACHE_DIRECT));
+
+	private final long budget;
+	private final boolean direct;
+	private final Map<ModCandidate, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true); // access order, ModCandidate uses identity equality
+	private long size;
+	private long peakSize;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	ModDataCache(long budget, boolean direct) {
+		this.budget = budget;
+		this.direct = direct;
+	}
+
+	synchronized ByteBuffer get(ModCandidate mod) {
+		CacheEntry entry = entries.get(mod);
+
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+
+		return entry.data;
+	}
+
+	/**
+	 * Determine whether data for a mod is cached, without affecting the eviction order or statistics.
+	 */
+	synchronized boolean contains(ModCandidate mod) {
+		return entries.containsKey(mod);
+	}
+
+	void put(ModCandidate mod, ByteBuffer data) {
+		if (direct && !data.isDirect()) {
+			ByteBuffer copy = ByteBuffer.allocateDirect(data.remaining());
+			copy.put(data.duplicate());
+			copy.flip();
+			data = copy;
+		}
+
+		long charge = data.hasArray() ? data.array().length : data.remaining();
+
+		synchronized (this) {
+			remove(mod);
+			if (charge > budget) return;
+
+			entries.put(mod, new CacheEntry(data, charge));
+			size += charge;
+
+			for (Iterator<CacheEntry> it = entries.values().iterator(); size > budget && it.hasNext(); ) {
+				CacheEntry entry = it.next();
+				it.remove();
+				size -= entry.charge;
+				evictions++;
+			}
+
+			if (size > peakSize) peakSize = size;
+		}
+	}
+
+	synchronized void remove(ModCandidate mod) {
+		CacheEntry entry = entries.remove(mod);
+		if (entry != null) size -= entry.charge;
+	}
+
+	/**
+	 * Release all cached data, logging the cache statistics.
+	 */
+	public synchronized void clear() {
+		if (hits != 0 || misses != 0) {
+			Log.debug(LogCategory.DISCOVERY, "Mod data cache: %d hits, %d misses, %d evictions, peak size %d / %d bytes%s",
+					hits, misses, evictions, peakSize, budget, direct ? " (direct)" : "");
+		}
+
+		entries.clear();
+		size = 0;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized long getPeakSize() {
+		return peakSize;
+	}
+
+	private static final class CacheEntry {
+		final ByteBuffer data;
+		final long charge;
+
+		CacheEntry(ByteBuffer data, long charge) {
+			this.data = data;
+			this.charge = charge;
+		}
+	}
+}
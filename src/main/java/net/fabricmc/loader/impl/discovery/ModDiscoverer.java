@@ -16,34 +16,35 @@
 
 package net.fabricmc.loader.impl.discovery;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.api.metadata.ModMetadata;
@@ -70,8 +71,13 @@ public final class ModDiscoverer {
 	private final DependencyOverrides depOverrides;
 	private final List<ModCandidateFinder> candidateFinders = new ArrayList<>();
 	private final EnvType envType = FabricLoaderImpl.INSTANCE.getEnvironmentType();
-	private final Map<Long, ModScanTask> jijDedupMap = new ConcurrentHashMap<>(); // avoids reading the same jar twice
+	private final boolean lazyMetadata = !FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment() && System.getProperty(SystemProperties.DEBUG_DISABLE_LAZY_METADATA) == null;
+	private final Map<ContentHash, ModScanTask> jijDedupMap = new ConcurrentHashMap<>(); // avoids scanning the same jar twice
 	private final List<NestedModInitData> nestedModInitDatas = Collections.synchronizedList(new ArrayList<>()); // breaks potential cycles from deduplication
+	private DiscoveryIndex index;
+	private Path traceFile;
+	private DiscoveryExecutor executor;
+	private DiscoveryTrace discoveryTrace;
 
 	public ModDiscoverer(VersionOverrides versionOverrides, DependencyOverrides depOverrides) {
 		this.versionOverrides = versionOverrides;
@@ -82,35 +88,32 @@ public final class ModDiscoverer {
 		candidateFinders.add(f);
 	}
 
-	public List<ModCandidate> discoverMods(FabricLoaderImpl loader, Map<String, Set<ModCandidate>> envDisabledModsOut) throws ModResolutionException {
-		long startTime = System.nanoTime();
-		ForkJoinPool pool = new ForkJoinPool();
-		Set<Path> processedPaths = new HashSet<>(); // suppresses duplicate paths
-		List<Future<ModCandidate>> futures = new ArrayList<>();
-
-		ModCandidateConsumer taskSubmitter = (paths, requiresRemap) -> {
-			if (paths.size() == 1) {
-				Path path = LoaderUtil.normalizeExistingPath(paths.get(0));
-
-				if (processedPaths.add(path)) {
-					futures.add(pool.submit(new ModScanTask(Collections.singletonList(path), requiresRemap)));
-				}
-			} else {
-				List<Path> normalizedPaths = new ArrayList<>(paths.size());
-
-				for (Path path : paths) {
-					normalizedPaths.add(LoaderUtil.normalizeExistingPath(path));
-				}
+	public void setIndex(DiscoveryIndex index) {
+		this.index = index;
+	}
 
-				if (!processedPaths.containsAll(normalizedPaths)) {
-					processedPaths.addAll(normalizedPaths);
-					futures.add(pool.submit(new ModScanTask(normalizedPaths, requiresRemap)));
-				}
-			}
-		};
+	public void setTraceFile(Path traceFile) {
+		this.traceFile = traceFile;
+	}
 
-		for (ModCandidateFinder finder : candidateFinders) {
-			finder.findCandidates(taskSubmitter);
+	public List<ModCandidate> discoverMods(FabricLoaderImpl loader, Map<String, Set<ModCandidate>> envDisabledModsOut) throws ModResolutionException {
+		long startTime = System.nanoTime();
+		executor = DiscoveryExecutor.create("Mod discovery", "Fabric Mod Discovery");
+		discoveryTrace = new DiscoveryTrace();
+		Map<Path, Integer> pathOwners = new ConcurrentHashMap<>(); // suppresses duplicate paths, earlier finders take precedence
+		List<TaskSubmitter> taskSubmitters = new ArrayList<>(candidateFinders.size());
+		List<Future<?>> finderFutures = new ArrayList<>(candidateFinders.size());
+
+		// run all finders concurrently, each found path gets scanned right away
+
+		for (int i = 0; i < candidateFinders.size(); i++) {
+			ModCandidateFinder finder = candidateFinders.get(i);
+			TaskSubmitter taskSubmitter = new TaskSubmitter(i, pathOwners);
+			FutureTask<Void> future = new FutureTask<>(() -> finder.findCandidates(taskSubmitter), null);
+
+			taskSubmitters.add(taskSubmitter);
+			finderFutures.add(future);
+			executor.execute(future);
 		}
 
 		List<ModCandidate> candidates = new ArrayList<>();
@@ -126,35 +129,48 @@ public final class ModDiscoverer {
 
 		ModResolutionException exception = null;
 
-		int timeout = Integer.getInteger(SystemProperties.DEBUG_DISCOVERY_TIMEOUT, 60);
-		if (timeout <= 0) timeout = Integer.MAX_VALUE;
+		int timeout = DiscoveryExecutor.getTimeout();
 
 		try {
-			pool.shutdown();
-
-			pool.awaitTermination(timeout, TimeUnit.SECONDS);
-
-			for (Future<ModCandidate> future : futures) {
-				if (!future.isDone()) {
-					throw new TimeoutException();
-				}
+			if (!executor.awaitCompletion(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout))) {
+				throw new TimeoutException();
+			}
 
+			for (Future<?> future : finderFutures) {
 				try {
-					ModCandidate candidate = future.get();
-					if (candidate != null) candidates.add(candidate);
+					future.get();
 				} catch (ExecutionException e) {
-					exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
+					throw ExceptionUtil.wrap(e.getCause());
 				}
 			}
 
-			for (NestedModInitData data : nestedModInitDatas) {
-				for (Future<ModCandidate> future : data.futures) {
+			for (TaskSubmitter taskSubmitter : taskSubmitters) { // in finder order for deterministic results
+				for (ScanSubmission submission : taskSubmitter.submissions) {
+					if (!taskSubmitter.isOwner(submission.paths)) continue; // superseded by an earlier finder
+
+					Future<ModCandidate> future = submission.future;
+
 					if (!future.isDone()) {
 						throw new TimeoutException();
 					}
 
 					try {
 						ModCandidate candidate = future.get();
+						if (candidate != null) candidates.add(candidate);
+					} catch (ExecutionException e) {
+						exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
+					}
+				}
+			}
+
+			for (NestedModInitData data : nestedModInitDatas) {
+				for (ModScanTask task : data.tasks) {
+					if (!task.future.isDone()) {
+						throw new TimeoutException();
+					}
+
+					try {
+						ModCandidate candidate = task.getResult();
 						if (candidate != null) data.target.add(candidate);
 					} catch (ExecutionException e) {
 						exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
@@ -167,12 +183,16 @@ public final class ModDiscoverer {
 					timeout, SystemProperties.DEBUG_DISCOVERY_TIMEOUT);
 		} catch (InterruptedException e) {
 			throw new FormattedException("Mod discovery interrupted!", e);
+		} finally {
+			executor.shutdown();
 		}
 
 		if (exception != null) {
 			throw exception;
 		}
 
+		if (index != null) index.save();
+
 		// gather all mods (root+nested), initialize parent data
 
 		Set<ModCandidate> ret = Collections.newSetFromMap(new IdentityHashMap<>(candidates.size() * 2));
@@ -195,7 +215,10 @@ public final class ModDiscoverer {
 
 		long endTime = System.nanoTime();
 
-		Log.debug(LogCategory.DISCOVERY, "Mod discovery time: %.1f ms", (endTime - startTime) * 1e-6);
+		Log.debug(LogCategory.DISCOVERY, "Mod discovery time: %.1f ms (%d tasks, %s executor)", (endTime - startTime) * 1e-6, executor.getCompletedTasks(), executor.getName());
+		discoveryTrace.report(endTime - startTime, executor.getName(), traceFile);
+		executor = null;
+		discoveryTrace = null;
 
 		return new ArrayList<>(ret);
 	}
@@ -209,34 +232,158 @@ public final class ModDiscoverer {
 		return ModCandidate.createBuiltin(builtinMod, versionOverrides, depOverrides);
 	}
 
-	@SuppressWarnings("serial")
-	final class ModScanTask extends RecursiveTask<ModCandidate> {
+	/**
+	 * Submits scan tasks for the paths found by one finder.
+	 *
+	 * <p>Finders run concurrently, so duplicate paths are resolved through shared ownership records: a path claimed by an
+	 * earlier finder can't be claimed by a later one, while an earlier finder claiming a path a later one already
+	 * submitted supersedes the later submission. This matches the results of running the finders sequentially.
+	 */
+	private final class TaskSubmitter implements ModCandidateConsumer {
+		final int finderIndex;
+		final Map<Path, Integer> pathOwners;
+		final List<ScanSubmission> submissions = new ArrayList<>(); // only accessed by the finder's thread until it completes
+
+		TaskSubmitter(int finderIndex, Map<Path, Integer> pathOwners) {
+			this.finderIndex = finderIndex;
+			this.pathOwners = pathOwners;
+		}
+
+		@Override
+		public void accept(List<Path> paths, boolean requiresRemap) {
+			List<Path> normalizedPaths;
+
+			if (paths.size() == 1) {
+				normalizedPaths = Collections.singletonList(LoaderUtil.normalizeExistingPath(paths.get(0)));
+			} else {
+				normalizedPaths = new ArrayList<>(paths.size());
+
+				for (Path path : paths) {
+					normalizedPaths.add(LoaderUtil.normalizeExistingPath(path));
+				}
+			}
+
+			boolean claimed = false;
+
+			for (Path path : normalizedPaths) {
+				if (claim(path)) claimed = true;
+			}
+
+			if (claimed) {
+				ModScanTask task = new ModScanTask(normalizedPaths, requiresRemap);
+				submissions.add(new ScanSubmission(normalizedPaths, task.future));
+				task.fork();
+			}
+		}
+
+		private boolean claim(Path path) {
+			Integer prev;
+
+			do {
+				prev = pathOwners.putIfAbsent(path, finderIndex);
+				if (prev == null) return true;
+				if (prev <= finderIndex) return false;
+			} while (!pathOwners.replace(path, prev, finderIndex));
+
+			return true;
+		}
+
+		boolean isOwner(List<Path> paths) {
+			for (Path path : paths) {
+				if (pathOwners.get(path) == finderIndex) return true;
+			}
+
+			return false;
+		}
+	}
+
+	private static final class ScanSubmission {
+		final List<Path> paths;
+		final Future<ModCandidate> future;
+
+		ScanSubmission(List<Path> paths, Future<ModCandidate> future) {
+			this.paths = paths;
+			this.future = future;
+		}
+	}
+
+	final class ModScanTask implements Callable<ModCandidate> {
+		final FutureTask<ModCandidate> future = new FutureTask<>(this);
+		final DiscoveryTrace.JarTrace trace;
 		private final List<Path> paths;
 		private final String localPath;
-		private final RewindableInputStream is;
-		private final long hash;
+		private ZipReader.Entry entry; // source for nested jars, released once computed
+		private ByteBuffer rawData;
+		private final DiscoveryIndex.NestedRef ref; // parent's index reference to complete with the hash, may be null
+		private final DiscoveryIndex.ModRecord cached;
+		private ContentHash hash; // only for nested jars, determined by the task itself if reading from the parent
+		private ModScanTask duplicateOf; // task for the same content that was hashed first
 		private final boolean requiresRemap;
 		private final List<String> parentPaths;
 
 		ModScanTask(List<Path> paths, boolean requiresRemap) {
-			this(paths, null, null, -1, requiresRemap, Collections.emptyList());
+			this(paths, null, null, null, null, null, null, requiresRemap, Collections.emptyList());
 		}
 
-		private ModScanTask(List<Path> paths, String localPath, RewindableInputStream is, long hash,
-				boolean requiresRemap, List<String> parentPaths) {
+		private ModScanTask(List<Path> paths, String localPath, ZipReader.Entry entry, ByteBuffer rawData, DiscoveryIndex.NestedRef ref,
+				DiscoveryIndex.ModRecord cached, ContentHash hash, boolean requiresRemap, List<String> parentPaths) {
 			this.paths = paths;
 			this.localPath = localPath != null ? localPath : paths.get(0).toString();
-			this.is = is;
+			this.entry = entry;
+			this.rawData = rawData;
+			this.ref = ref;
+			this.cached = cached;
 			this.hash = hash;
 			this.requiresRemap = requiresRemap;
 			this.parentPaths = parentPaths;
+			this.trace = new DiscoveryTrace.JarTrace(this.localPath, parentPaths);
+		}
+
+		/**
+		 * Schedule this task to run asynchronously.
+		 */
+		void fork() {
+			executor.execute(future);
+		}
+
+		/**
+		 * Run this task on the current thread.
+		 */
+		void invoke() {
+			executor.runLocal(future);
+		}
+
+		/**
+		 * Get the scan result once the task completed, which is the original's result for a duplicate.
+		 */
+		ModCandidate getResult() throws InterruptedException, ExecutionException {
+			ModCandidate ret = future.get();
+
+			return duplicateOf != null ? duplicateOf.getResult() : ret;
 		}
 
 		@Override
-		protected ModCandidate compute() {
-			if (is != null) { // nested jar
+		public ModCandidate call() {
+			long startTime = System.nanoTime();
+
+			try {
+				return compute();
+			} finally {
+				trace.totalTime = System.nanoTime() - startTime;
+				discoveryTrace.add(trace);
+			}
+		}
+
+		private ModCandidate compute() {
+			if (paths == null) { // nested jar
 				try {
-					return computeJarStream();
+					if (cached != null) {
+						trace.type = "nested-indexed";
+						return computeCached(cached, null);
+					} else {
+						trace.type = "nested";
+						return computeNestedJar();
+					}
 				} catch (ParseMetadataException e) { // already contains all context
 					throw ExceptionUtil.wrap(e);
 				} catch (Throwable t) {
@@ -269,292 +416,300 @@ public final class ModDiscoverer {
 
 		private ModCandidate computeDir(Path path) throws IOException, ParseMetadataException {
 			Path modJson = path.resolve("fabric.mod.json");
+			trace.type = "dir";
 			if (!Files.exists(modJson)) return null;
 
-			LoaderModMetadata metadata;
-
-			try (InputStream is = Files.newInputStream(modJson)) {
-				metadata = parseMetadata(is, path.toString());
-			}
+			long startTime = System.nanoTime();
+			byte[] data = Files.readAllBytes(modJson);
+			LoaderModMetadata metadata = parseMetadata(data, path.toString(), null);
+			trace.parseTime += System.nanoTime() - startTime;
+			trace.bytesRead += data.length;
 
 			return ModCandidate.createPlain(paths, metadata, requiresRemap, Collections.emptyList());
 		}
 
 		private ModCandidate computeJarFile(Path path) throws IOException, ParseMetadataException {
-			try (ZipFile zf = new ZipFile(path.toFile())) {
-				ZipEntry entry = zf.getEntry("fabric.mod.json");
-				if (entry == null) return null;
-
-				LoaderModMetadata metadata;
-
-				try (InputStream is = zf.getInputStream(entry)) {
-					metadata = parseMetadata(is, localPath);
+			long startTime = System.nanoTime();
+			BasicFileAttributes attrs = null;
+			trace.type = "jar";
+
+			if (index != null && paths.size() == 1) {
+				attrs = Files.readAttributes(path, BasicFileAttributes.class);
+				DiscoveryIndex.ModRecord record = index.getJar(path, attrs);
+
+				if (record != null) {
+					trace.type = "jar-indexed";
+					trace.openTime += System.nanoTime() - startTime;
+					return computeCached(record, null);
 				}
+			}
 
-				if (!metadata.loadsInEnvironment(envType)) {
-					return ModCandidate.createPlain(paths, metadata, requiresRemap, Collections.emptyList());
-				}
-
-				List<ModScanTask> nestedModTasks;
-
-				if (metadata.getJars().isEmpty()) {
-					nestedModTasks = Collections.emptyList();
-				} else {
-					Set<NestedJarEntry> nestedJarPaths = new HashSet<>(metadata.getJars());
-
-					nestedModTasks = computeNestedMods(new ZipEntrySource() {
-						@Override
-						public ZipEntry getNextEntry() throws IOException {
-							while (jarIt.hasNext()) {
-								NestedJarEntry jar = jarIt.next();
-								ZipEntry ret = zf.getEntry(jar.getFile());
-
-								if (isValidNestedJarEntry(ret)) {
-									currentEntry = ret;
-									jarIt.remove();
-									return ret;
-								}
-							}
-
-							currentEntry = null;
-							return null;
-						}
-
-						@Override
-						public RewindableInputStream getInputStream() throws IOException {
-							try (InputStream is = zf.getInputStream(currentEntry)) {
-								return new RewindableInputStream(is);
-							}
-						}
+			try (ZipReader zip = ZipReader.open(path)) {
+				DiscoveryIndex.JarState state = null;
+				trace.bytesRead += zip.getCentralDirectory().remaining();
 
-						private final Iterator<NestedJarEntry> jarIt = nestedJarPaths.iterator();
-						private ZipEntry currentEntry;
-					});
+				if (attrs != null) {
+					state = DiscoveryIndex.getState(attrs, zip);
+					DiscoveryIndex.ModRecord record = index.getJar(path, state);
 
-					if (!nestedJarPaths.isEmpty() && FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment()) {
-						Log.warn(LogCategory.METADATA, "Mod %s %s references missing nested jars: %s", metadata.getId(), metadata.getVersion(), nestedJarPaths);
+					if (record != null) {
+						trace.type = "jar-indexed";
+						trace.openTime += System.nanoTime() - startTime;
+						return computeCached(record, null);
 					}
 				}
 
-				List<ModCandidate> nestedMods;
+				trace.openTime += System.nanoTime() - startTime;
 
-				if (nestedModTasks.isEmpty()) {
-					nestedMods = Collections.emptyList();
-				} else {
-					nestedMods = new ArrayList<>();
-					nestedModInitDatas.add(new NestedModInitData(nestedModTasks, nestedMods));
-				}
+				ZipScanResult result = computeZip(zip);
+				if (state != null) index.putJar(path, state, result.record);
+				if (result.metadata == null) return null;
 
-				return ModCandidate.createPlain(paths, metadata, requiresRemap, nestedMods);
+				return ModCandidate.createPlain(paths, result.metadata, requiresRemap, createNestedMods(result.nestedModTasks));
 			}
 		}
 
-		private ModCandidate computeJarStream() throws IOException, ParseMetadataException {
-			LoaderModMetadata metadata = null;
-			ZipEntry entry;
-
-			try (ZipInputStream zis = new ZipInputStream(is)) {
-				while ((entry = zis.getNextEntry()) != null) {
-					if (entry.getName().equals("fabric.mod.json")) {
-						metadata = parseMetadata(zis, localPath);
-						break;
-					}
-				}
+		/**
+		 * Scan a nested jar directly from its parent's data.
+		 *
+		 * <p>The parent supplies the jar's raw data, which is a slice of the parent for nested parents and read from the
+		 * file otherwise. DEFLATED jars are only inflated here, in parallel with the jar's siblings. The content hash is
+		 * computed while decoding, a jar whose content was already hashed by another task is deduplicated at this point
+		 * and only the first one gets scanned.
+		 */
+		private ModCandidate computeNestedJar() throws IOException, ParseMetadataException {
+			long startTime = System.nanoTime();
+			ByteBuffer data;
+
+			try {
+				trace.bytesRead += entry.compressedSize;
+				MessageDigest digest = ContentHash.createDigest();
+				data = ZipReader.decode(entry, rawData, digest);
+				hash = new ContentHash(entry.size, digest.digest());
+				if (ref != null) ref.hash = hash;
+				trace.openTime += System.nanoTime() - startTime;
+			} finally {
+				entry = null;
+				rawData = null;
 			}
 
-			if (metadata == null) return null;
+			ModScanTask prev = jijDedupMap.putIfAbsent(hash, this);
 
-			if (!metadata.loadsInEnvironment(envType)) {
-				return ModCandidate.createNested(localPath, hash, metadata, requiresRemap, Collections.emptyList());
+			if (prev != null) {
+				trace.type = "nested-duplicate";
+				duplicateOf = prev;
+				prev.trace.dedupHits.incrementAndGet();
+				return null;
 			}
 
-			Collection<NestedJarEntry> nestedJars = metadata.getJars();
-			List<ModScanTask> nestedModTasks;
+			DiscoveryIndex.ModRecord record = index != null ? index.getNested(hash) : null;
 
-			if (nestedJars.isEmpty()) {
-				nestedModTasks = Collections.emptyList();
-			} else {
-				Set<String> nestedJarPaths = new HashSet<>(nestedJars.size());
+			if (record != null && index.isComplete(record)) { // unchanged nested jar in a changed parent
+				trace.type = "nested-indexed";
+				return computeCached(record, data);
+			}
 
-				for (NestedJarEntry nestedJar : nestedJars) {
-					nestedJarPaths.add(nestedJar.getFile());
-				}
+			ZipScanResult result = computeZip(ZipReader.of(data));
+			if (index != null) index.putNested(hash, result.record);
+			if (result.metadata == null) return null;
 
-				is.rewind();
+			ModCandidate ret = ModCandidate.createNested(localPath, hash, result.metadata, requiresRemap, createNestedMods(result.nestedModTasks));
+			ret.setData(data);
 
-				try (ZipInputStream zis = new ZipInputStream(is)) {
-					nestedModTasks = computeNestedMods(new ZipEntrySource() {
-						@Override
-						public ZipEntry getNextEntry() throws IOException {
-							if (nestedJarPaths.isEmpty()) return null;
+			return ret;
+		}
 
-							ZipEntry ret;
+		/**
+		 * Parse the metadata of a top level or nested jar and submit scan tasks for its nested jars.
+		 */
+		private ZipScanResult computeZip(ZipReader zip) throws IOException, ParseMetadataException {
+			ZipReader.Entry entry = zip.getEntry("fabric.mod.json");
+			if (entry == null) return new ZipScanResult(null, Collections.emptyList(), DiscoveryIndex.ModRecord.NO_MOD);
 
-							while ((ret = zis.getNextEntry()) != null) {
-								if (isValidNestedJarEntry(ret) && nestedJarPaths.remove(ret.getName())) {
-									is = new RewindableInputStream(zis); // reads the entry, which completes the ZipEntry with any trailing header data
-									return ret;
-								}
-							}
+			long startTime = System.nanoTime();
+			byte[] metadataBytes = toByteArray(zip.getData(entry));
+			ByteArrayOutputStream encodedMetadata = index != null ? new ByteArrayOutputStream(metadataBytes.length / 2) : null;
+			LoaderModMetadata metadata = parseMetadata(metadataBytes, localPath, encodedMetadata != null ? new DataOutputStream(encodedMetadata) : null);
+			trace.parseTime += System.nanoTime() - startTime;
+			trace.bytesRead += entry.compressedSize;
 
-							return null;
-						}
+			if (!metadata.loadsInEnvironment(envType)) {
+				return new ZipScanResult(metadata, Collections.emptyList(), createRecord(encodedMetadata, null));
+			}
 
-						@Override
-						public RewindableInputStream getInputStream() throws IOException {
-							return is;
-						}
+			Collection<NestedJarEntry> nestedJars = metadata.getJars();
 
-						private RewindableInputStream is;
-					});
-				}
+			if (nestedJars.isEmpty()) {
+				return new ZipScanResult(metadata, Collections.emptyList(), createRecord(encodedMetadata, Collections.emptyList()));
+			}
 
-				if (!nestedJarPaths.isEmpty() && FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment()) {
-					Log.warn(LogCategory.METADATA, "Mod %s %s references missing nested jars: %s", metadata.getId(), metadata.getVersion(), nestedJarPaths);
-				}
+			Set<String> nestedJarPaths = new LinkedHashSet<>(nestedJars.size());
+
+			for (NestedJarEntry nestedJar : nestedJars) {
+				nestedJarPaths.add(nestedJar.getFile());
 			}
 
-			List<ModCandidate> nestedMods;
+			List<String> parentPaths = getChildParentPaths();
+			List<DiscoveryIndex.NestedRef> nestedRefs = new ArrayList<>(nestedJarPaths.size());
+			List<ModScanTask> nestedModTasks = new ArrayList<>(nestedJarPaths.size());
 
-			if (nestedModTasks.isEmpty()) {
-				nestedMods = Collections.emptyList();
-			} else {
-				nestedMods = new ArrayList<>();
-				nestedModInitDatas.add(new NestedModInitData(nestedModTasks, nestedMods));
+			for (ZipReader.Entry nestedEntry : zip.getEntries(nestedJarPaths).values()) {
+				if (!isValidNestedJarEntry(nestedEntry)) continue;
+
+				nestedJarPaths.remove(nestedEntry.getName());
+
+				// the hash is only known once the task decoded the jar, the index record gets saved after that
+				DiscoveryIndex.NestedRef ref = new DiscoveryIndex.NestedRef(nestedEntry.getName(), null);
+				nestedRefs.add(ref);
+				nestedModTasks.add(new ModScanTask(null, nestedEntry.getName(), nestedEntry, zip.getRawData(nestedEntry), ref, null, null, requiresRemap, parentPaths));
 			}
 
-			ModCandidate ret = ModCandidate.createNested(localPath, hash, metadata, requiresRemap, nestedMods);
-			ret.setData(is.getBuffer());
+			runNestedTasks(nestedModTasks, nestedModTasks.size());
 
-			return ret;
+			if (!nestedJarPaths.isEmpty() && FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment()) {
+				Log.warn(LogCategory.METADATA, "Mod %s %s references missing nested jars: %s", metadata.getId(), metadata.getVersion(), nestedJarPaths);
+			}
+
+			return new ZipScanResult(metadata, nestedModTasks, createRecord(encodedMetadata, nestedRefs));
 		}
 
-		private List<ModScanTask> computeNestedMods(ZipEntrySource entrySource) throws IOException {
-			List<String> parentPaths = new ArrayList<>(this.parentPaths.size() + 1);
-			parentPaths.addAll(this.parentPaths);
-			parentPaths.add(localPath);
+		private DiscoveryIndex.ModRecord createRecord(ByteArrayOutputStream encodedMetadata, List<DiscoveryIndex.NestedRef> nestedRefs) {
+			if (encodedMetadata == null) return null; // no discovery index
 
-			List<ModScanTask> tasks = new ArrayList<>(5);
-			ModScanTask localTask = null;
-			ZipEntry entry;
+			return new DiscoveryIndex.ModRecord(encodedMetadata.toByteArray(), nestedRefs);
+		}
+
+		/**
+		 * Restore a mod from its discovery index record, nested jars are restored from their own records.
+		 *
+		 * @param data the nested jar's content to cache for extraction, may be null
+		 */
+		private ModCandidate computeCached(DiscoveryIndex.ModRecord record, ByteBuffer data) throws IOException, ParseMetadataException {
+			if (record.metadata == null) return null;
+
+			long startTime = System.nanoTime();
+			LoaderModMetadata metadata = ModMetadataParser.readMetadata(new DataInputStream(new ByteArrayInputStream(record.metadata)), localPath, parentPaths,
+					versionOverrides, depOverrides, FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment(), lazyMetadata);
+			trace.parseTime += System.nanoTime() - startTime;
+			List<ModScanTask> nestedModTasks;
 
-			while ((entry = entrySource.getNextEntry()) != null) {
-				long hash = ModCandidate.hash(entry);
-				ModScanTask task = jijDedupMap.get(hash);
+			if (record.nestedJars == null || record.nestedJars.isEmpty()) {
+				nestedModTasks = Collections.emptyList();
+			} else {
+				// the hashes are known, so deduplicate before submitting
+				List<String> parentPaths = getChildParentPaths();
+				List<ModScanTask> newTasks = new ArrayList<>(record.nestedJars.size());
+				nestedModTasks = new ArrayList<>(record.nestedJars.size());
 
-				if (task == null) {
-					task = new ModScanTask(null, entry.getName(), entrySource.getInputStream(), hash, requiresRemap, parentPaths);
-					ModScanTask prev = jijDedupMap.putIfAbsent(hash, task);
+				for (DiscoveryIndex.NestedRef ref : record.nestedJars) {
+					ModScanTask task = jijDedupMap.get(ref.hash);
 
-					if (prev != null) {
-						task = prev;
-					} else if (localTask == null) { // don't fork first task, leave it for this thread
-						localTask = task;
+					if (task != null) {
+						task.trace.dedupHits.incrementAndGet();
 					} else {
-						task.fork();
+						task = new ModScanTask(null, ref.localPath, null, null, null, index.getNested(ref.hash), ref.hash, requiresRemap, parentPaths);
+						ModScanTask prev = jijDedupMap.putIfAbsent(ref.hash, task);
+
+						if (prev != null) {
+							task = prev;
+							task.trace.dedupHits.incrementAndGet();
+						} else {
+							newTasks.add(task);
+						}
 					}
+
+					nestedModTasks.add(task);
 				}
 
-				tasks.add(task);
+				runNestedTasks(newTasks, nestedModTasks.size());
 			}
 
-			if (tasks.isEmpty()) return Collections.emptyList();
-
-			if (localTask != null) localTask.invoke();
+			List<ModCandidate> nestedMods = createNestedMods(nestedModTasks);
+			ModCandidate ret;
 
-			return tasks;
-		}
+			if (paths != null) {
+				ret = ModCandidate.createPlain(paths, metadata, requiresRemap, nestedMods);
+			} else {
+				ret = ModCandidate.createNested(localPath, hash, metadata, requiresRemap, nestedMods);
+				if (data != null) ret.setData(data);
+			}
 
-		private LoaderModMetadata parseMetadata(InputStream is, String localPath) throws ParseMetadataException {
-			return ModMetadataParser.parseMetadata(is, localPath, parentPaths, versionOverrides, depOverrides, FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment());
+			return ret;
 		}
-	}
 
-	private static boolean isValidNestedJarEntry(ZipEntry entry) {
-		return entry != null && !entry.isDirectory() && entry.getName().endsWith(".jar");
-	}
-
-	private interface ZipEntrySource {
-		ZipEntry getNextEntry() throws IOException;
-		RewindableInputStream getInputStream() throws IOException;
-	}
+		private List<ModCandidate> createNestedMods(List<ModScanTask> nestedModTasks) {
+			if (nestedModTasks.isEmpty()) return Collections.emptyList();
 
-	private static final class RewindableInputStream extends InputStream {
-		private final ByteBuffer buffer;
-		private int pos;
+			List<ModCandidate> ret = new ArrayList<>();
+			nestedModInitDatas.add(new NestedModInitData(nestedModTasks, ret));
 
-		RewindableInputStream(InputStream parent) throws IOException { // no parent.close()
-			buffer = readMod(parent);
-
-			assert buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0;
+			return ret;
 		}
 
-		public ByteBuffer getBuffer() {
-			return buffer;
-		}
+		private List<String> getChildParentPaths() {
+			List<String> ret = new ArrayList<>(parentPaths.size() + 1);
+			ret.addAll(parentPaths);
+			ret.add(localPath);
 
-		public void rewind() {
-			pos = 0;
+			return ret;
 		}
 
-		@Override
-		public int read() throws IOException {
-			if (pos >= buffer.limit()) {
-				return -1;
-			} else {
-				return buffer.get(pos++) & 0xff;
+		/**
+		 * Run new nested scan tasks, the first on this thread and the others asynchronously.
+		 *
+		 * @param nestedJarCount number of nested jars including deduplicated ones, for the trace
+		 */
+		private void runNestedTasks(List<ModScanTask> tasks, int nestedJarCount) {
+			trace.nestedJars += nestedJarCount;
+			if (tasks.isEmpty()) return;
+
+			for (int i = 1; i < tasks.size(); i++) {
+				tasks.get(i).fork();
 			}
+
+			long startTime = System.nanoTime();
+			tasks.get(0).invoke();
+			trace.nestedTime += System.nanoTime() - startTime;
 		}
 
-		@Override
-		public int read(byte[] b, int off, int len) throws IOException {
-			int rem = buffer.limit() - pos;
+		private LoaderModMetadata parseMetadata(byte[] data, String localPath, DataOutput encodedOut) throws ParseMetadataException {
+			return ModMetadataParser.parseMetadata(data, localPath, parentPaths, versionOverrides, depOverrides, FabricLoaderImpl.INSTANCE.isDevelopmentEnvironment(), lazyMetadata, encodedOut);
+		}
+	}
 
-			if (rem <= 0) {
-				return -1;
-			} else {
-				len = Math.min(len, rem);
-				System.arraycopy(buffer.array(), pos, b, off, len);
-				pos += len;
+	private static boolean isValidNestedJarEntry(ZipReader.Entry entry) {
+		return !entry.isDirectory() && entry.getName().endsWith(".jar");
+	}
 
-				return len;
-			}
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.limit() == buffer.array().length) {
+			return buffer.array();
 		}
+
+		byte[] ret = new byte[buffer.remaining()];
+		buffer.duplicate().get(ret);
+
+		return ret;
 	}
 
-	static ByteBuffer readMod(InputStream is) throws IOException {
-		int available = is.available();
-		boolean availableGood = available > 1;
-		byte[] buffer = new byte[availableGood ? available : 30_000];
-		int offset = 0;
-		int len;
-
-		while ((len = is.read(buffer, offset, buffer.length - offset)) >= 0) {
-			offset += len;
-
-			if (offset == buffer.length) {
-				if (availableGood) {
-					int val = is.read();
-					if (val < 0) break;
-
-					availableGood = false;
-					buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, 30_000));
-					buffer[offset++] = (byte) val;
-				} else {
-					buffer = Arrays.copyOf(buffer, buffer.length * 2);
-				}
-			}
-		}
+	private static final class ZipScanResult {
+		final LoaderModMetadata metadata; // null if there is no fabric.mod.json
+		final List<ModScanTask> nestedModTasks;
+		final DiscoveryIndex.ModRecord record; // null if there is no discovery index
 
-		return ByteBuffer.wrap(buffer, 0, offset);
+		ZipScanResult(LoaderModMetadata metadata, List<ModScanTask> nestedModTasks, DiscoveryIndex.ModRecord record) {
+			this.metadata = metadata;
+			this.nestedModTasks = nestedModTasks;
+			this.record = record;
+		}
 	}
 
 	private static class NestedModInitData {
-		final List<? extends Future<ModCandidate>> futures;
+		final List<ModScanTask> tasks;
 		final List<ModCandidate> target;
 
-		NestedModInitData(List<? extends Future<ModCandidate>> futures, List<ModCandidate> target) {
-			this.futures = futures;
+		NestedModInitData(List<ModScanTask> tasks, List<ModCandidate> target) {
+			this.tasks = tasks;
 			this.target = target;
 		}
 	}
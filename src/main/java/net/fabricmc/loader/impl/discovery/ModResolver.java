@@ -36,21 +36,48 @@ import net.fabricmc.loader.api.metadata.ModDependency;
 import net.fabricmc.loader.api.metadata.ModDependency.Kind;
 import net.fabricmc.loader.impl.discovery.ModSolver.InactiveReason;
 import net.fabricmc.loader.impl.metadata.ModDependencyImpl;
+import net.fabricmc.loader.impl.metadata.ModMetadataParser;
+import net.fabricmc.loader.impl.metadata.ParseMetadataException;
+import net.fabricmc.loader.impl.util.ExceptionUtil;
+import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 
 public class ModResolver {
 	public static List<ModCandidate> resolve(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods) throws ModResolutionException {
+		return resolve(candidates, envType, envDisabledMods, null, new ResolutionMetrics());
+	}
+
+	/**
+	 * Resolve the mod set, reusing the previous result for an unchanged candidate set.
+	 *
+	 * @param cache cache to restore the result from and to record it in, may be null
+	 * @param metrics metrics to fill in, complete once the method returns successfully
+	 */
+	public static List<ModCandidate> resolve(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods,
+			/* @Nullable */ ResolutionCache cache, ResolutionMetrics metrics) throws ModResolutionException {
 		long startTime = System.nanoTime();
-		List<ModCandidate> result = findCompatibleSet(candidates, envType, envDisabledMods);
+		List<ModCandidate> result = findCompatibleSet(candidates, envType, envDisabledMods, cache, metrics);
 
 		long endTime = System.nanoTime();
+		metrics.setTotalTime(endTime - startTime);
 		Log.debug(LogCategory.RESOLUTION, "Mod resolution time: %.1f ms", (endTime - startTime) * 1e-6);
+		Log.debug(LogCategory.RESOLUTION, "Mod resolution metrics: %s", metrics);
+
+		if (cache != null) cache.save();
 
 		return result;
 	}
 
-	private static List<ModCandidate> findCompatibleSet(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods) throws ModResolutionException {
+	private static List<ModCandidate> findCompatibleSet(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods,
+			ResolutionCache cache, ResolutionMetrics metrics) throws ModResolutionException {
+		long startTime = System.nanoTime();
+		metrics.setCandidateCounts(candidates.size(), envDisabledMods.size());
+
+		// fingerprint the input before it gets modified
+
+		ResolutionCache.Key cacheKey = cache != null ? cache.createKey(candidates, envDisabledMods) : null;
+
 		// sort all mods by priority
 
 		List<ModCandidate> allModsSorted = new ArrayList<>(candidates);
@@ -123,42 +150,30 @@ public class ModResolver {
 			preselectMod(mod, allModsSorted, modsById, selectedMods, uniqueSelectedMods);
 		}
 
-		// solve
+		metrics.setPreselection(preselectedMods.size(), allModsSorted.size());
+		metrics.setPreparationTime(System.nanoTime() - startTime);
 
-		ModSolver.Result result;
+		// restore the previous result or solve
 
-		try {
-			result = ModSolver.solve(allModsSorted, modsById,
-					selectedMods, uniqueSelectedMods);
-		} catch (ContradictionException | TimeoutException e) {
-			throw new ModResolutionException("Solving failed", e);
-		}
+		List<ModCandidate> cachedSelection = cacheKey != null ? cache.getSelection(cacheKey) : null;
 
-		if (!result.success) {
-			Log.warn(LogCategory.RESOLUTION, "Mod resolution failed");
-			Log.info(LogCategory.RESOLUTION, "Immediate reason: %s%n", result.immediateReason);
-			Log.info(LogCategory.RESOLUTION, "Reason: %s%n", result.reason);
-			if (!envDisabledMods.isEmpty()) Log.info(LogCategory.RESOLUTION, "%s environment disabled: %s%n", envType.name(), envDisabledMods.keySet());
+		if (cachedSelection != null && restoreSelection(cachedSelection, allModsSorted, modsById, selectedMods, uniqueSelectedMods)) {
+			Log.debug(LogCategory.RESOLUTION, "Restored mod resolution result from cache");
+			metrics.setStrategy(ResolutionMetrics.Strategy.CACHE);
+		} else {
+			if (cachedSelection != null) Log.debug(LogCategory.RESOLUTION, "Cached mod resolution result is invalid, solving");
 
-			if (result.fix == null) {
-				Log.info(LogCategory.RESOLUTION, "No fix?");
-			} else {
-				Log.info(LogCategory.RESOLUTION, "Fix: add %s, remove %s, replace [%s]%n",
-						result.fix.modsToAdd,
-						result.fix.modsToRemove,
-						result.fix.modReplacements.entrySet().stream().map(e -> String.format("%s -> %s", e.getValue(), e.getKey())).collect(Collectors.joining(", ")));
+			solve(allModsSorted, modsById, selectedMods, uniqueSelectedMods, envType, envDisabledMods, metrics);
 
-				for (Collection<ModCandidate> mods : envDisabledMods.values()) {
-					for (ModCandidate m : mods) {
-						result.fix.inactiveMods.put(m, InactiveReason.WRONG_ENVIRONMENT);
-					}
-				}
-			}
-
-			throw new ModResolutionException("Mod resolution encountered an incompatible mod set!%s",
-					ResultAnalyzer.gatherErrors(result, selectedMods, modsById, envDisabledMods, envType));
+			if (cacheKey != null) cache.putSelection(cacheKey, uniqueSelectedMods);
 		}
 
+		metrics.setSelectedCount(uniqueSelectedMods.size());
+
+		// decode the deferred metadata of the selected mods so malformed fields fail here with the mod's path
+
+		decodeDeferredMetadata(uniqueSelectedMods);
+
 		uniqueSelectedMods.sort(Comparator.comparing(ModCandidate::getId));
 
 		// clear cached data and inbound refs for unused mods, set minNestLevel for used non-root mods to max, queue root mods
@@ -207,7 +222,119 @@ public class ModResolver {
 		return uniqueSelectedMods;
 	}
 
-	private static final Comparator<ModCandidate> modPrioComparator = new Comparator<ModCandidate>() {
+	private static void solve(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods,
+			EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods, ResolutionMetrics metrics) throws ModResolutionException {
+		if (System.getProperty(SystemProperties.DEBUG_DISABLE_GREEDY_RESOLUTION) == null
+				&& GreedyResolver.trySelect(allModsSorted, modsById, selectedMods, uniqueSelectedMods)) {
+			Log.debug(LogCategory.RESOLUTION, "Selected the highest priority mods without conflicts, skipping the solver");
+			metrics.setStrategy(ResolutionMetrics.Strategy.GREEDY);
+			return;
+		}
+
+		ModSolver.Result result;
+
+		try {
+			if (ComponentSolver.trySolve(allModsSorted, modsById, selectedMods, uniqueSelectedMods, metrics)) {
+				metrics.setStrategy(ResolutionMetrics.Strategy.COMPONENTS);
+				return;
+			}
+
+			metrics.setStrategy(ResolutionMetrics.Strategy.SOLVER);
+
+			CandidateIndex candidateIndex = new CandidateIndex(modsById);
+			result = ModSolver.solve(allModsSorted, modsById, candidateIndex,
+					selectedMods, uniqueSelectedMods, metrics);
+		} catch (ContradictionException | TimeoutException e) {
+			throw new ModResolutionException("Solving failed", e);
+		}
+
+		if (!result.success) {
+			Log.warn(LogCategory.RESOLUTION, "Mod resolution failed");
+			Log.info(LogCategory.RESOLUTION, "Immediate reason: %s%n", result.immediateReason);
+			Log.info(LogCategory.RESOLUTION, "Reason: %s%n", result.reason);
+			if (!envDisabledMods.isEmpty()) Log.info(LogCategory.RESOLUTION, "%s environment disabled: %s%n", envType.name(), envDisabledMods.keySet());
+
+			if (result.fix == null) {
+				Log.info(LogCategory.RESOLUTION, "No fix?");
+			} else {
+				Log.info(LogCategory.RESOLUTION, "Fix: add %s, remove %s, replace [%s]%n",
+						result.fix.modsToAdd,
+						result.fix.modsToRemove,
+						result.fix.modReplacements.entrySet().stream().map(e -> String.format("%s -> %s", e.getValue(), e.getKey())).collect(Collectors.joining(", ")));
+
+				for (Collection<ModCandidate> mods : envDisabledMods.values()) {
+					for (ModCandidate m : mods) {
+						result.fix.inactiveMods.put(m, InactiveReason.WRONG_ENVIRONMENT);
+					}
+				}
+			}
+
+			throw new ModResolutionException("Mod resolution encountered an incompatible mod set!%s",
+					ResultAnalyzer.gatherErrors(result, selectedMods, modsById, envDisabledMods, envType));
+		}
+	}
+
+	private static void decodeDeferredMetadata(List<ModCandidate> mods) throws ModResolutionException {
+		ModResolutionException exception = null;
+
+		for (ModCandidate mod : mods) {
+			List<String> parentPaths = new ArrayList<>();
+			ModCandidate parent = mod;
+
+			while (!parent.isRoot()) {
+				parent = parent.getParentMods().iterator().next();
+				parentPaths.add(0, parent.getLocalPath());
+			}
+
+			try {
+				ModMetadataParser.decodeDeferred(mod.getMetadata(), mod.getLocalPath(), parentPaths);
+			} catch (ParseMetadataException e) {
+				exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
+			}
+		}
+
+		if (exception != null) throw exception;
+	}
+
+	/**
+	 * Apply a cached selection on top of the preselected mods after checking it against the basic constraints the solver
+	 * enforces: unique ids, satisfied hard dependencies, selected parents for nested mods and present unique root mods.
+	 *
+	 * @return true if the selection was valid and has been applied
+	 */
+	private static boolean restoreSelection(List<ModCandidate> mods, List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods) {
+		Map<String, ModCandidate> newSelectedMods = new HashMap<>(selectedMods);
+		List<ModCandidate> newUniqueSelectedMods = new ArrayList<>(uniqueSelectedMods);
+
+		try {
+			for (ModCandidate mod : mods) {
+				if (newSelectedMods.get(mod.getId()) != mod) selectMod(mod, newSelectedMods, newUniqueSelectedMods);
+			}
+		} catch (ModResolutionException e) {
+			return false;
+		}
+
+		if (newUniqueSelectedMods.size() != mods.size()) return false; // preselected mod missing from the cached selection
+
+		for (ModCandidate mod : newUniqueSelectedMods) {
+			if (!ModSolver.hasAllDepsSatisfied(mod, newSelectedMods)) return false;
+			if (!mod.isRoot() && !ModSolver.isAnyParentSelected(mod, newSelectedMods)) return false;
+		}
+
+		for (ModCandidate mod : allModsSorted) {
+			if (mod.isRoot() && modsById.get(mod.getId()).size() == 1 && newSelectedMods.get(mod.getId()) != mod) return false;
+		}
+
+		selectedMods.putAll(newSelectedMods);
+		uniqueSelectedMods.clear();
+		uniqueSelectedMods.addAll(newUniqueSelectedMods);
+
+		return true;
+	}
+
+	static final Comparator<ModCandidate> modPrioComparator = new Comparator<ModCandidate>() {
 		@Override
 		public int compare(ModCandidate a, ModCandidate b) {
 			// descending sort prio (less/earlier is higher prio):
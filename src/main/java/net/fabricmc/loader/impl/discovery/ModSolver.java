@@ -26,6 +26,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,47 +53,45 @@ import net.fabricmc.loader.impl.util.version.SemanticVersionImpl;
 import net.fabricmc.loader.impl.util.version.VersionPredicateParser;
 
 final class ModSolver {
-	static Result solve(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
-			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods) throws ContradictionException, TimeoutException, ModResolutionException {
+	static Result solve(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, CandidateIndex candidateIndex,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods, ResolutionMetrics metrics) throws ContradictionException, TimeoutException, ModResolutionException {
 		// build priority index
 
-		Map<ModCandidate, Integer> priorities = new IdentityHashMap<>(allModsSorted.size());
-
-		for (int i = 0; i < allModsSorted.size(); i++) {
-			priorities.put(allModsSorted.get(i), i);
-		}
+		Map<ModCandidate, Integer> priorities = computePriorities(allModsSorted);
 
 		// create and configure solver
 
-		solverPrepTime = System.nanoTime();
-
-		IPBSolver solver = SolverFactory.newDefaultOptimizer();
-
-		int timeout = Integer.getInteger(SystemProperties.DEBUG_RESOLUTION_TIMEOUT, 60);
-		if (timeout > 0) solver.setTimeout(timeout); // in seconds
+		long setupStartTime = System.nanoTime();
 
-		DependencyHelper<DomainObject, Explanation> dependencyHelper = createDepHelper(solver);
+		DependencyHelper<DomainObject, Explanation> dependencyHelper = createDepHelper(createSolver());
+		RelaxDepsVar relaxVar = new RelaxDepsVar();
 
-		setupSolver(allModsSorted, modsById,
+		Collection<DomainObject> disableDepVars = setupSolver(allModsSorted, modsById, candidateIndex,
 				priorities, selectedMods, uniqueSelectedMods,
-				false, null, false,
+				relaxVar, null, false,
 				dependencyHelper);
 
-		// solve
+		// solve with all deps enabled
 
-		solveTime = System.nanoTime();
+		long solveStartTime = System.nanoTime();
 
-		boolean hasSolution = dependencyHelper.hasASolution();
+		List<DomainObject> assumptions = new ArrayList<>(disableDepVars.size() + 1);
+		assumptions.add(new NegatedDomainObject(relaxVar));
 
-		// check solution
+		for (DomainObject var : disableDepVars) {
+			assumptions.add(new NegatedDomainObject(var));
+		}
 
-		solutionFetchTime = System.nanoTime();
+		boolean hasSolution = dependencyHelper.hasASolution(assumptions);
+
+		long solveEndTime = System.nanoTime();
+		metrics.addSolveTimes(solveStartTime - setupStartTime, solveEndTime - solveStartTime);
+
+		// check solution
 
 		if (hasSolution) {
 			Collection<DomainObject> solution = dependencyHelper.getASolution();
 
-			solutionAnalyzeTime = System.nanoTime();
-
 			for (DomainObject obj : solution) {
 				if (obj instanceof ModCandidate) {
 					ModResolver.selectMod((ModCandidate) obj, selectedMods, uniqueSelectedMods);
@@ -101,6 +100,7 @@ final class ModSolver {
 				}
 			}
 
+			metrics.addSolver(dependencyHelper.getSolver());
 			dependencyHelper.reset();
 
 			return Result.createSuccess();
@@ -112,30 +112,83 @@ final class ModSolver {
 			Set<ModDependency> failedDeps = Collections.newSetFromMap(new IdentityHashMap<>());
 			List<Explanation> failedExplanations = new ArrayList<>();
 
-			computeFailureCausesOptional(allModsSorted, modsById,
-					priorities, selectedMods, uniqueSelectedMods,
-					reason, dependencyHelper,
+			computeFailureCausesOptional(relaxVar, dependencyHelper,
 					failedDeps, failedExplanations);
 
-			// find best solution with mod addition/removal
+			metrics.addSolver(dependencyHelper.getSolver());
 
-			fixSetupTime = System.nanoTime();
+			// find best solution with mod addition/removal
 
-			Fix fix = computeFix(uniqueSelectedMods, allModsSorted, modsById,
+			Fix fix = computeFix(uniqueSelectedMods, allModsSorted, modsById, candidateIndex,
 					priorities, selectedMods,
-					failedDeps, dependencyHelper);
+					failedDeps, dependencyHelper, metrics);
 
 			dependencyHelper.reset();
+			metrics.addFailureAnalysisTime(System.nanoTime() - solveEndTime);
 
 			return Result.createFailure(reason, failedExplanations, fix);
 		}
 	}
 
-	static long solverPrepTime;
-	static long solveTime;
-	static long solutionFetchTime;
-	static long solutionAnalyzeTime;
-	static long fixSetupTime;
+	/**
+	 * Solve an independent part of the mod set, without failure analysis.
+	 *
+	 * <p>The part's mods and their id groups must not share any constraint with the rest of the mod set. The priorities
+	 * have to cover the whole mod set so the part's objective matches the whole mod set's objective restricted to it.
+	 *
+	 * @return the selected mods or null if there is no solution
+	 */
+	static List<ModCandidate> solvePart(List<ModCandidate> partModsSorted, Map<String, List<ModCandidate>> partModsById, Map<ModCandidate, Integer> priorities,
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods, ResolutionMetrics metrics) throws ContradictionException, TimeoutException {
+		long setupStartTime = System.nanoTime();
+		DependencyHelper<DomainObject, Explanation> dependencyHelper = createDepHelper(createSolver());
+
+		setupSolver(partModsSorted, partModsById, new CandidateIndex(partModsById),
+				priorities, selectedMods, uniqueSelectedMods,
+				null, null, false,
+				dependencyHelper);
+
+		long solveStartTime = System.nanoTime();
+		boolean hasSolution = dependencyHelper.hasASolution();
+
+		metrics.addSolveTimes(solveStartTime - setupStartTime, System.nanoTime() - solveStartTime);
+		metrics.addSolver(dependencyHelper.getSolver());
+
+		if (!hasSolution) return null;
+
+		List<ModCandidate> ret = new ArrayList<>();
+
+		for (DomainObject obj : dependencyHelper.getASolution()) {
+			if (obj instanceof ModCandidate) {
+				ret.add((ModCandidate) obj);
+			} else {
+				assert obj instanceof OptionalDepVar;
+			}
+		}
+
+		dependencyHelper.reset();
+
+		return ret;
+	}
+
+	static Map<ModCandidate, Integer> computePriorities(List<ModCandidate> allModsSorted) {
+		Map<ModCandidate, Integer> ret = new IdentityHashMap<>(allModsSorted.size());
+
+		for (int i = 0; i < allModsSorted.size(); i++) {
+			ret.put(allModsSorted.get(i), i);
+		}
+
+		return ret;
+	}
+
+	private static IPBSolver createSolver() {
+		IPBSolver ret = SolverFactory.newDefaultOptimizer();
+
+		int timeout = Integer.getInteger(SystemProperties.DEBUG_RESOLUTION_TIMEOUT, 60);
+		if (timeout > 0) ret.setTimeout(timeout); // in seconds
+
+		return ret;
+	}
 
 	static class Result {
 		final boolean success;
@@ -159,19 +212,14 @@ final class ModSolver {
 		}
 	}
 
-	private static void computeFailureCausesOptional(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
-			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods,
-			Set<Explanation> reason, DependencyHelper<DomainObject, Explanation> dependencyHelper,
-			Set<ModDependency> failedDeps, List<Explanation> failedExplanations) throws ContradictionException, TimeoutException {
-		dependencyHelper.reset();
-		dependencyHelper = createDepHelper(dependencyHelper.getSolver()); // dependencyHelper.reset doesn't fully reset the dep helper
-
-		setupSolver(allModsSorted, modsById,
-				priorities, selectedMods, uniqueSelectedMods,
-				true, null, false,
-				dependencyHelper);
-
-		if (dependencyHelper.hasASolution()) {
+	/**
+	 * Determine the deps that have to be disabled for a solution, solving again with the relaxation enabled.
+	 *
+	 * <p>This reuses the constraints from the failed solve, which are already encoded to permit disabling deps.
+	 */
+	private static void computeFailureCausesOptional(RelaxDepsVar relaxVar, DependencyHelper<DomainObject, Explanation> dependencyHelper,
+			Set<ModDependency> failedDeps, List<Explanation> failedExplanations) throws TimeoutException {
+		if (dependencyHelper.hasASolution(Collections.singletonList(relaxVar))) {
 			Collection<DomainObject> solution = dependencyHelper.getASolution();
 			Set<ModDependency> disabledDeps = new HashSet<>(); // DisableDepVar uses equality semantics, not identity
 
@@ -179,7 +227,7 @@ final class ModSolver {
 				if (obj instanceof DisableDepVar) {
 					disabledDeps.add(((DisableDepVar) obj).dep);
 				} else {
-					assert obj instanceof ModCandidate;
+					assert obj instanceof ModCandidate || obj == relaxVar;
 				}
 			}
 
@@ -203,9 +251,17 @@ final class ModSolver {
 		}
 	}
 
-	private static Fix computeFix(List<ModCandidate> uniqueSelectedMods, List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+	/**
+	 * Search for the cheapest mod additions, removals and replacements making the mod set solvable.
+	 *
+	 * <p>Unlike the dep relaxation this isn't incremental, it resets the solver and encodes all constraints again. Sharing
+	 * the encoding would need the AddModVar and RemoveModVar constraints encoded up front behind activation literals, but
+	 * the mod versions to try adding are only known from the failed deps and the removal simulation changes how root
+	 * mods are forced.
+	 */
+	private static Fix computeFix(List<ModCandidate> uniqueSelectedMods, List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, CandidateIndex candidateIndex,
 			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods,
-			Set<ModDependency> failedDeps, DependencyHelper<DomainObject, Explanation> dependencyHelper) throws ContradictionException, TimeoutException {
+			Set<ModDependency> failedDeps, DependencyHelper<DomainObject, Explanation> dependencyHelper, ResolutionMetrics metrics) throws ContradictionException, TimeoutException {
 		// group positive deps by mod id
 		Map<String, Set<Collection<VersionPredicate>>> depsById = new HashMap<>();
 
@@ -300,17 +356,18 @@ final class ModSolver {
 
 		// check the determined solution
 
-		fixSolveTime = System.nanoTime();
-
 		dependencyHelper.reset();
 		dependencyHelper = createDepHelper(dependencyHelper.getSolver()); // dependencyHelper.reset doesn't fully reset the dep helper
 
-		setupSolver(allModsSorted, modsById,
+		setupSolver(allModsSorted, modsById, candidateIndex,
 				priorities, selectedMods, uniqueSelectedMods,
-				false, installableMods, true,
+				null, installableMods, true,
 				dependencyHelper);
 
-		if (!dependencyHelper.hasASolution()) {
+		boolean hasSolution = dependencyHelper.hasASolution();
+		metrics.addSolver(dependencyHelper.getSolver());
+
+		if (!hasSolution) {
 			Log.warn(LogCategory.RESOLUTION, "Unable to find a solution to fix the mod set, reason: %s", dependencyHelper.why());
 			return null;
 		}
@@ -413,9 +470,10 @@ final class ModSolver {
 				if (allModsSorted.indexOf(mod) > allModsSorted.indexOf(active)) { // entry has lower prio (=higher index) than active
 					if (mod.getVersion().equals(active.getVersion())) {
 						entry.setValue(InactiveReason.SAME_ACTIVE);
-					} else {
-						assert mod.getVersion().compareTo(active.getVersion()) < 0;
+					} else if (mod.getVersion().compareTo(active.getVersion()) < 0) {
 						entry.setValue(InactiveReason.NEWER_ACTIVE);
+					} else { // newer nested mod losing against an older root mod
+						entry.setValue(InactiveReason.INCOMPATIBLE);
 					}
 				} else {
 					entry.setValue(InactiveReason.INCOMPATIBLE);
@@ -446,8 +504,6 @@ final class ModSolver {
 		return new Fix(modsToAdd, modsToRemove, modReplacements, activeMods, inactiveMods);
 	}
 
-	static long fixSolveTime;
-
 	private static Version deriveVersion(VersionInterval interval) {
 		if (!interval.isSemantic()) {
 			return interval.getMin() != null ? interval.getMin() : interval.getMax();
@@ -561,27 +617,36 @@ final class ModSolver {
 		}
 	}
 
-	private static void setupSolver(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+	/**
+	 * Encode the constraints and the objective for a solve.
+	 *
+	 * <p>With relaxVar set the hard deps can be disabled to find the deps preventing a solution. This applies only while
+	 * relaxVar is true, which also disables the soft deps. The regular solve is done by assuming relaxVar and all returned
+	 * dep disabling variables to be false, so both solves share the encoded constraints.
+	 *
+	 * @return the dep disabling variables, empty without relaxVar
+	 */
+	private static Collection<DomainObject> setupSolver(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, CandidateIndex candidateIndex,
 			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods,
-			boolean depDisableSim, Map<String, List<AddModVar>> installableMods, boolean removalSim,
+			RelaxDepsVar relaxVar, Map<String, List<AddModVar>> installableMods, boolean removalSim,
 			DependencyHelper<DomainObject, Explanation> dependencyHelper) throws ContradictionException {
 		Map<String, DomainObject> dummies = new HashMap<>();
-		Map<ModDependency, Map.Entry<DomainObject, Integer>> disabledDeps = depDisableSim ? new HashMap<>() : null;
+		Map<ModDependency, Map.Entry<DomainObject, Integer>> disabledDeps = relaxVar != null ? new LinkedHashMap<>() : null; // linked for a consistent assumption order
 		List<WeightedObject<DomainObject>> weightedObjects = new ArrayList<>();
 
-		generatePreselectConstraints(uniqueSelectedMods, modsById,
+		generatePreselectConstraints(uniqueSelectedMods, candidateIndex,
 				priorities, selectedMods,
-				depDisableSim, installableMods, removalSim,
+				relaxVar, installableMods, removalSim,
 				dummies, disabledDeps,
 				dependencyHelper, weightedObjects);
 
-		generateMainConstraints(allModsSorted, modsById,
+		generateMainConstraints(allModsSorted, modsById, candidateIndex,
 				priorities, selectedMods,
-				depDisableSim, installableMods, removalSim,
+				relaxVar, installableMods, removalSim,
 				dummies, disabledDeps,
 				dependencyHelper, weightedObjects);
 
-		if (depDisableSim) {
+		if (relaxVar != null) {
 			applyDisableDepVarWeights(disabledDeps, priorities.size(), weightedObjects);
 		}
 
@@ -589,33 +654,37 @@ final class ModSolver {
 		WeightedObject<DomainObject>[] weights = weightedObjects.toArray(new WeightedObject[0]);
 		dependencyHelper.setObjectiveFunction(weights);
 		//dependencyHelper.addWeightedCriterion(weightedObjects);
+
+		if (relaxVar == null) return Collections.emptyList();
+
+		List<DomainObject> ret = new ArrayList<>(disabledDeps.size());
+
+		for (Map.Entry<DomainObject, Integer> entry : disabledDeps.values()) {
+			ret.add(entry.getKey());
+		}
+
+		return ret;
 	}
 
-	private static void generatePreselectConstraints(List<ModCandidate> uniqueSelectedMods, Map<String, List<ModCandidate>> modsById,
+	private static void generatePreselectConstraints(List<ModCandidate> uniqueSelectedMods, CandidateIndex candidateIndex,
 			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods,
-			boolean depDisableSim, Map<String, List<AddModVar>> installableMods, boolean removalSim,
+			RelaxDepsVar relaxVar, Map<String, List<AddModVar>> installableMods, boolean removalSim,
 			Map<String, DomainObject> dummyMods, Map<ModDependency, Map.Entry<DomainObject, Integer>> disabledDeps,
 			DependencyHelper<DomainObject, Explanation> dependencyHelper, List<WeightedObject<DomainObject>> weightedObjects) throws ContradictionException {
-		boolean enableOptional = !depDisableSim && installableMods == null && !removalSim; // whether to enable optional mods (regular solve only, not for failure handling)
+		boolean enableOptional = installableMods == null && !removalSim; // whether to enable optional mods (regular solve only, not for failure handling, see relaxVar)
 		List<DomainObject> suitableMods = new ArrayList<>();
 
 		for (ModCandidate mod : uniqueSelectedMods) {
-			// add constraints for dependencies (skips deps that are already preselected outside depDisableSim)
+			// add constraints for dependencies (skips deps that are already preselected)
 
 			for (ModDependency dep : mod.getDependencies()) {
 				if (!enableOptional && dep.getKind().isSoft()) continue;
 				if (selectedMods.containsKey(dep.getModId())) continue;
 
-				List<? extends DomainObject.Mod> availableMods = modsById.get(dep.getModId());
-
-				if (availableMods != null) {
-					for (DomainObject.Mod m : availableMods) {
-						if (dep.matches(m.getVersion())) suitableMods.add(m);
-					}
-				}
+				suitableMods.addAll(candidateIndex.getMatches(dep));
 
 				if (installableMods != null) {
-					availableMods = installableMods.get(dep.getModId());
+					List<AddModVar> availableMods = installableMods.get(dep.getModId());
 
 					if (availableMods != null) {
 						for (DomainObject.Mod m : availableMods) {
@@ -624,16 +693,26 @@ final class ModSolver {
 					}
 				}
 
-				if (suitableMods.isEmpty() && !depDisableSim) continue;
+				if (suitableMods.isEmpty() && relaxVar == null) continue;
 
 				switch (dep.getKind()) {
-				case DEPENDS:
-					if (depDisableSim) {
-						suitableMods.add(getCreateDisableDepVar(dep, disabledDeps));
+				case DEPENDS: {
+					Explanation explanation = new Explanation(ErrorKind.PRESELECT_HARD_DEP, mod, dep);
+
+					if (relaxVar != null) {
+						DomainObject var = getCreateDisableDepVar(dep, disabledDeps);
+
+						if (suitableMods.isEmpty()) { // only disabling is possible
+							dependencyHelper.implication(relaxVar).implies(var).named(explanation);
+							break;
+						}
+
+						suitableMods.add(var);
 					}
 
-					dependencyHelper.clause(new Explanation(ErrorKind.PRESELECT_HARD_DEP, mod, dep), suitableMods.toArray(new DomainObject[0]));
+					dependencyHelper.clause(explanation, suitableMods.toArray(new DomainObject[0]));
 					break;
+				}
 				case RECOMMENDS:
 					// this will prioritize greedy over non-greedy loaded mods, regardless of modPrioComparator due to the objective weights
 
@@ -642,20 +721,30 @@ final class ModSolver {
 
 					if (!suitableMods.isEmpty()) {
 						suitableMods.add(getCreateDummy(dep.getModId(), OptionalDepVar::new, dummyMods, priorities.size(), weightedObjects));
+						if (relaxVar != null) suitableMods.add(relaxVar); // soft deps don't apply while relaxing
+
 						dependencyHelper.clause(new Explanation(ErrorKind.PRESELECT_SOFT_DEP, mod, dep), suitableMods.toArray(new DomainObject[0]));
 					}
 
 					break;
-				case BREAKS:
-					if (depDisableSim) {
-						dependencyHelper.setTrue(getCreateDisableDepVar(dep, disabledDeps), new Explanation(ErrorKind.PRESELECT_NEG_HARD_DEP, mod, dep));
+				case BREAKS: {
+					Explanation explanation = new Explanation(ErrorKind.PRESELECT_NEG_HARD_DEP, mod, dep);
+
+					if (relaxVar != null) { // always disabled while relaxing
+						DomainObject var = getCreateDisableDepVar(dep, disabledDeps);
+						dependencyHelper.implication(relaxVar).implies(var).named(explanation);
+
+						for (DomainObject match : suitableMods) {
+							dependencyHelper.implication(match).implies(var).named(explanation);
+						}
 					} else {
 						for (DomainObject match : suitableMods) {
-							dependencyHelper.setFalse(match, new Explanation(ErrorKind.PRESELECT_NEG_HARD_DEP, mod, dep));
+							dependencyHelper.setFalse(match, explanation);
 						}
 					}
 
 					break;
+				}
 				case CONFLICTS:
 					// TODO: soft negative dep?
 					break;
@@ -685,12 +774,12 @@ final class ModSolver {
 		}
 	}
 
-	private static void generateMainConstraints(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
+	private static void generateMainConstraints(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, CandidateIndex candidateIndex,
 			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods,
-			boolean depDisableSim, Map<String, List<AddModVar>> installableMods, boolean removalSim,
+			RelaxDepsVar relaxVar, Map<String, List<AddModVar>> installableMods, boolean removalSim,
 			Map<String, DomainObject> dummyMods, Map<ModDependency, Map.Entry<DomainObject, Integer>> disabledDeps,
 			DependencyHelper<DomainObject, Explanation> dependencyHelper, List<WeightedObject<DomainObject>> weightedObjects) throws ContradictionException {
-		boolean enableOptional = !depDisableSim && installableMods == null && !removalSim; // whether to enable optional mods (regular solve only, not for failure handling)
+		boolean enableOptional = installableMods == null && !removalSim; // whether to enable optional mods (regular solve only, not for failure handling, see relaxVar)
 		List<DomainObject> suitableMods = new ArrayList<>();
 
 		for (ModCandidate mod : allModsSorted) {
@@ -705,10 +794,14 @@ final class ModSolver {
 					if (!removalSim) {
 						if (!dep.getKind().isSoft() // .. and is a hard dep
 								&& dep.matches(selectedMod.getVersion()) != dep.getKind().isPositive()) { // ..but isn't suitable (DEPENDS without match or BREAKS with match)
-							if (depDisableSim) {
-								dependencyHelper.setTrue(getCreateDisableDepVar(dep, disabledDeps), new Explanation(ErrorKind.HARD_DEP, mod, dep));
+							Explanation explanation = new Explanation(ErrorKind.HARD_DEP_INCOMPATIBLE_PRESELECTED, mod, dep);
+
+							if (relaxVar != null) { // always disabled while relaxing
+								DomainObject var = getCreateDisableDepVar(dep, disabledDeps);
+								dependencyHelper.implication(relaxVar).implies(var).named(new Explanation(ErrorKind.HARD_DEP, mod, dep));
+								dependencyHelper.implication(mod).implies(var).named(explanation);
 							} else {
-								dependencyHelper.setFalse(mod, new Explanation(ErrorKind.HARD_DEP_INCOMPATIBLE_PRESELECTED, mod, dep));
+								dependencyHelper.setFalse(mod, explanation);
 							}
 						}
 
@@ -718,16 +811,10 @@ final class ModSolver {
 					}
 				}
 
-				List<? extends DomainObject.Mod> availableMods = modsById.get(dep.getModId());
-
-				if (availableMods != null) {
-					for (DomainObject.Mod m : availableMods) {
-						if (dep.matches(m.getVersion())) suitableMods.add(m);
-					}
-				}
+				suitableMods.addAll(candidateIndex.getMatches(dep));
 
 				if (installableMods != null) {
-					availableMods = installableMods.get(dep.getModId());
+					List<AddModVar> availableMods = installableMods.get(dep.getModId());
 
 					if (availableMods != null) {
 						for (DomainObject.Mod m : availableMods) {
@@ -737,18 +824,21 @@ final class ModSolver {
 				}
 
 				switch (dep.getKind()) {
-				case DEPENDS: // strong dep
-					if (depDisableSim) {
+				case DEPENDS: { // strong dep
+					Explanation explanation = new Explanation(suitableMods.isEmpty() ? ErrorKind.HARD_DEP_NO_CANDIDATE : ErrorKind.HARD_DEP, mod, dep);
+
+					if (relaxVar != null) {
 						suitableMods.add(getCreateDisableDepVar(dep, disabledDeps));
 					}
 
 					if (suitableMods.isEmpty()) {
-						dependencyHelper.setFalse(mod, new Explanation(ErrorKind.HARD_DEP_NO_CANDIDATE, mod, dep));
+						dependencyHelper.setFalse(mod, explanation);
 					} else {
-						dependencyHelper.implication(mod).implies(suitableMods.toArray(new DomainObject[0])).named(new Explanation(ErrorKind.HARD_DEP, mod, dep));
+						dependencyHelper.implication(mod).implies(suitableMods.toArray(new DomainObject[0])).named(explanation);
 					}
 
 					break;
+				}
 				case RECOMMENDS: // soft dep
 					// this will prioritize greedy over non-greedy loaded mods, regardless of modPrioComparator due to the objective weights
 
@@ -757,13 +847,15 @@ final class ModSolver {
 
 					if (!suitableMods.isEmpty()) {
 						suitableMods.add(getCreateDummy(dep.getModId(), OptionalDepVar::new, dummyMods, priorities.size(), weightedObjects));
+						if (relaxVar != null) suitableMods.add(relaxVar); // soft deps don't apply while relaxing
+
 						dependencyHelper.implication(mod).implies(suitableMods.toArray(new DomainObject[0])).named(new Explanation(ErrorKind.SOFT_DEP, mod, dep));
 					}
 
 					break;
 				case BREAKS: // strong negative dep
 					if (!suitableMods.isEmpty()) {
-						if (depDisableSim) {
+						if (relaxVar != null) {
 							DomainObject var = getCreateDisableDepVar(dep, disabledDeps);
 
 							for (DomainObject match : suitableMods) {
@@ -822,7 +914,7 @@ final class ModSolver {
 				if (mod.getLoadCondition().ordinal() >= ModLoadCondition.IF_RECOMMENDED.ordinal()) { // non-greedy (optional)
 					weight = TWO.pow(prio + 1);
 				} else { // greedy
-					weight = TWO.pow(allModsSorted.size() - prio).negate();
+					weight = TWO.pow(priorities.size() - prio).negate();
 				}
 
 				weightedObjects.add(WeightedObject.newWO(mod, weight));
@@ -981,6 +1073,18 @@ final class ModSolver {
 		}
 	}
 
+	private static final class RelaxDepsVar implements DomainObject {
+		@Override
+		public String getId() {
+			return "relaxDeps";
+		}
+
+		@Override
+		public String toString() {
+			return getId();
+		}
+	}
+
 	private static final class DisableDepVar implements DomainObject {
 		final ModDependency dep;
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import net.fabricmc.loader.impl.FormattedException;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+public final class NestedModExtractor {
+	/**
+	 * Extract all mods without their own file into outputDir concurrently and point them to the extracted jars.
+	 *
+	 * <p>The paths are only updated after all extraction tasks finished, so nested mods sourcing from other nested mods
+	 * consistently read from their parent's data.
+	 */
+	public static void extract(Collection<ModCandidate> modCandidates, Path outputDir) {
+		List<ModCandidate> modsToExtract = new ArrayList<>();
+
+		for (ModCandidate mod : modCandidates) {
+			if (!mod.hasPath() && !mod.isBuiltin()) {
+				modsToExtract.add(mod);
+			}
+		}
+
+		if (modsToExtract.isEmpty()) return;
+
+		long startTime = System.nanoTime();
+		DiscoveryExecutor executor = DiscoveryExecutor.create("Nested mod extraction", "Fabric Nested Mod Extraction");
+		List<FutureTask<Path>> futures = new ArrayList<>(modsToExtract.size());
+
+		for (ModCandidate mod : modsToExtract) {
+			FutureTask<Path> future = new FutureTask<>(() -> mod.copyToDir(outputDir, false));
+			futures.add(future);
+			executor.execute(future);
+		}
+
+		List<Path> paths = new ArrayList<>(modsToExtract.size());
+		int timeout = DiscoveryExecutor.getTimeout();
+
+		try {
+			if (!executor.awaitCompletion(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout))) {
+				throw new FormattedException("Nested mod extraction took too long!",
+						"Extracting the nested mod jars took longer than %d seconds. This may be caused by unusually slow hardware, pathological antivirus interference or other issues. The timeout can be changed with the system property %s (-D%<s=<desired timeout in seconds>).",
+						timeout, SystemProperties.DEBUG_DISCOVERY_TIMEOUT);
+			}
+
+			for (int i = 0; i < modsToExtract.size(); i++) {
+				try {
+					paths.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					throw new RuntimeException("Error extracting mod "+modsToExtract.get(i), e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Nested mod extraction interrupted", e);
+		} finally {
+			executor.shutdown();
+		}
+
+		for (int i = 0; i < modsToExtract.size(); i++) {
+			modsToExtract.get(i).setPaths(Collections.singletonList(paths.get(i)));
+		}
+
+		Log.debug(LogCategory.DISCOVERY, "Nested mod extraction time: %.1f ms (%d mods, %s executor)", (System.nanoTime() - startTime) * 1e-6, modsToExtract.size(), executor.getName());
+	}
+
+	private NestedModExtractor() {
+	}
+}
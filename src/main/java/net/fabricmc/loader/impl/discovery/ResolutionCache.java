@@ -0,0 +1,297 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Persistent record of the last successful mod resolution, allows an identical candidate set to skip the solver.
+ *
+ * <p>The record is keyed by a fingerprint over a canonical description of every candidate and every environment
+ * disabled mod: id, version, provides, dependencies after overrides, nesting and origin. The selection is stored as
+ * positions in the canonical candidate order. Any difference in the candidates yields a different fingerprint and thus
+ * a full solve, a restored selection is additionally checked by the resolver before being used.
+ */
+public final class ResolutionCache {
+	private static final int MAGIC = 0x46524358; // FRCX
+	private static final int FORMAT_VERSION = 1;
+
+	private final Path file;
+	private final EnvType envType;
+	private byte[] fingerprint; // null if there is no usable record
+	private int[] selection;
+	private boolean dirty;
+
+	public static ResolutionCache load(Path file, EnvType envType) {
+		byte[] fingerprint = null;
+		int[] selection = null;
+
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (is.readInt() != MAGIC
+					|| is.readInt() != FORMAT_VERSION
+					|| !is.readUTF().equals(FabricLoaderImpl.VERSION)
+					|| !is.readUTF().equals(envType.name())) {
+				Log.debug(LogCategory.RESOLUTION, "Discarding outdated resolution cache %s", file);
+			} else {
+				fingerprint = new byte[is.readUnsignedByte()];
+				is.readFully(fingerprint);
+				selection = new int[is.readInt()];
+
+				for (int i = 0; i < selection.length; i++) {
+					selection[i] = is.readInt();
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// first run
+		} catch (IOException e) {
+			Log.warn(LogCategory.RESOLUTION, "Error reading resolution cache %s, ignoring it", file, e);
+			fingerprint = null;
+			selection = null;
+		}
+
+		return new ResolutionCache(file, envType, fingerprint, selection);
+	}
+
+	private ResolutionCache(Path file, EnvType envType, byte[] fingerprint, int[] selection) {
+		this.file = file;
+		this.envType = envType;
+		this.fingerprint = fingerprint;
+		this.selection = selection;
+	}
+
+	/**
+	 * Compute the canonical form of the resolution input.
+	 *
+	 * @return the key or null if the candidates can't be told apart reliably
+	 */
+	Key createKey(Collection<ModCandidate> candidates, Map<String, Set<ModCandidate>> envDisabledMods) {
+		Map<ModCandidate, String> descriptions = new HashMap<>(candidates.size());
+		List<ModCandidate> sorted = new ArrayList<>(candidates);
+
+		for (ModCandidate mod : sorted) {
+			descriptions.put(mod, describe(mod));
+		}
+
+		sorted.sort((a, b) -> descriptions.get(a).compareTo(descriptions.get(b)));
+
+		List<String> disabled = new ArrayList<>();
+
+		for (Collection<ModCandidate> mods : envDisabledMods.values()) {
+			for (ModCandidate mod : mods) {
+				disabled.add(describe(mod));
+			}
+		}
+
+		Collections.sort(disabled);
+
+		MessageDigest digest = ContentHash.createDigest();
+		String prev = null;
+
+		for (ModCandidate mod : sorted) {
+			String desc = descriptions.get(mod);
+			if (desc.equals(prev)) return null; // ambiguous position
+
+			update(digest, desc);
+			prev = desc;
+		}
+
+		update(digest, "env-disabled");
+
+		for (String desc : disabled) {
+			update(digest, desc);
+		}
+
+		return new Key(digest.digest(), sorted);
+	}
+
+	private static String describe(ModCandidate mod) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(mod.getId()).append(' ').append(mod.getVersion().getFriendlyString());
+		sb.append(" type=").append(mod.getMetadata().getType());
+		sb.append(" schema=").append(mod.getMetadata().getSchemaVersion());
+		sb.append(" origin=").append(getOrigin(mod));
+		sb.append(" nest=").append(mod.getMinNestLevel());
+		sb.append(" provides=").append(sortedStrings(mod.getProvides()));
+
+		List<String> deps = new ArrayList<>();
+
+		for (ModDependency dep : mod.getDependencies()) {
+			StringBuilder depSb = new StringBuilder();
+			depSb.append(dep.getKind().getKey()).append(' ').append(dep.getModId());
+
+			for (VersionPredicate predicate : dep.getVersionRequirements()) {
+				depSb.append(' ').append(predicate);
+			}
+
+			deps.add(depSb.toString());
+		}
+
+		Collections.sort(deps);
+		sb.append(" deps=").append(deps);
+
+		List<String> parents = new ArrayList<>();
+
+		for (ModCandidate parent : mod.getParentMods()) {
+			parents.add(getOrigin(parent));
+		}
+
+		Collections.sort(parents);
+		sb.append(" parents=").append(parents);
+
+		return sb.toString();
+	}
+
+	private static String getOrigin(ModCandidate mod) {
+		if (mod.getOriginPaths() != null) {
+			return mod.getOriginPaths().toString();
+		} else {
+			return mod.getLocalPath() + "#" + mod.getHash();
+		}
+	}
+
+	private static List<String> sortedStrings(Collection<String> values) {
+		List<String> ret = new ArrayList<>(values);
+		Collections.sort(ret);
+
+		return ret;
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		byte[] data = s.getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) (data.length >>> 24));
+		digest.update((byte) (data.length >>> 16));
+		digest.update((byte) (data.length >>> 8));
+		digest.update((byte) data.length);
+		digest.update(data);
+	}
+
+	/**
+	 * Get the mods selected by the last resolution with the same input.
+	 *
+	 * @return the selected mods or null if there is no matching record
+	 */
+	List<ModCandidate> getSelection(Key key) {
+		if (fingerprint == null || !Arrays.equals(fingerprint, key.fingerprint)) return null;
+
+		List<ModCandidate> ret = new ArrayList<>(selection.length);
+
+		for (int idx : selection) {
+			if (idx < 0 || idx >= key.candidates.size()) return null;
+
+			ret.add(key.candidates.get(idx));
+		}
+
+		return ret;
+	}
+
+	void putSelection(Key key, Collection<ModCandidate> selectedMods) {
+		Map<ModCandidate, Integer> positions = new HashMap<>(key.candidates.size());
+
+		for (int i = 0; i < key.candidates.size(); i++) {
+			positions.put(key.candidates.get(i), i);
+		}
+
+		int[] newSelection = new int[selectedMods.size()];
+		int i = 0;
+
+		for (ModCandidate mod : selectedMods) {
+			Integer pos = positions.get(mod);
+			if (pos == null) return; // not part of the input?
+
+			newSelection[i++] = pos;
+		}
+
+		if (Arrays.equals(fingerprint, key.fingerprint) && Arrays.equals(selection, newSelection)) return;
+
+		fingerprint = key.fingerprint;
+		selection = newSelection;
+		dirty = true;
+	}
+
+	/**
+	 * Write the record back to disk if it changed.
+	 */
+	public void save() {
+		if (!dirty) return;
+
+		Path tmpFile = file.resolveSibling(file.getFileName().toString().concat(".tmp"));
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				os.writeInt(MAGIC);
+				os.writeInt(FORMAT_VERSION);
+				os.writeUTF(FabricLoaderImpl.VERSION);
+				os.writeUTF(envType.name());
+				os.writeByte(fingerprint.length);
+				os.write(fingerprint);
+				os.writeInt(selection.length);
+
+				for (int idx : selection) {
+					os.writeInt(idx);
+				}
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		} catch (IOException e) {
+			Log.warn(LogCategory.RESOLUTION, "Error writing resolution cache %s", file, e);
+
+			try {
+				Files.deleteIfExists(tmpFile);
+			} catch (IOException e2) {
+				// ignore
+			}
+		}
+	}
+
+	static final class Key {
+		final byte[] fingerprint;
+		final List<ModCandidate> candidates; // canonical order
+
+		Key(byte[] fingerprint, List<ModCandidate> candidates) {
+			this.fingerprint = fingerprint;
+			this.candidates = candidates;
+		}
+	}
+}
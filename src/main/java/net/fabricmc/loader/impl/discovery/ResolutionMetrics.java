@@ -0,0 +1,275 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.sat4j.pb.IPBSolver;
+
+/**
+ * Statistics of a single mod resolution, filled in by {@link ModResolver#resolve}.
+ *
+ * <p>The solver statistics and times are summed over all solver runs, including those running in parallel for
+ * independent parts of the mod set. They stay 0 if the result was restored from the cache or selected greedily.
+ */
+public final class ResolutionMetrics {
+	/**
+	 * Object share key the metrics of the game's mod resolution are published under, see {@link #toMap}.
+	 */
+	public static final String OBJECT_SHARE_KEY = "fabricloader:resolutionMetrics";
+
+	public enum Strategy {
+		/** Selection restored from the resolution cache. */
+		CACHE,
+		/** Highest priority candidates selected without the solver. */
+		GREEDY,
+		/** Independent parts of the mod set solved separately. */
+		COMPONENTS,
+		/** Whole mod set solved at once. */
+		SOLVER
+	}
+
+	private Strategy strategy;
+	private int candidateCount;
+	private int envDisabledCount;
+	private int preselectedCount;
+	private int solverCandidateCount;
+	private int selectedCount;
+	private int componentCount;
+	private int largestComponentSize;
+	private int solverRuns;
+	private long variables;
+	private long constraints;
+	private long conflicts;
+	private long decisions;
+	private long preparationTime;
+	private long setupTime;
+	private long solveTime;
+	private long failureAnalysisTime;
+	private long totalTime;
+
+	void setStrategy(Strategy strategy) {
+		this.strategy = strategy;
+	}
+
+	void setCandidateCounts(int candidateCount, int envDisabledCount) {
+		this.candidateCount = candidateCount;
+		this.envDisabledCount = envDisabledCount;
+	}
+
+	void setPreselection(int preselectedCount, int solverCandidateCount) {
+		this.preselectedCount = preselectedCount;
+		this.solverCandidateCount = solverCandidateCount;
+	}
+
+	void setSelectedCount(int selectedCount) {
+		this.selectedCount = selectedCount;
+	}
+
+	void setComponents(int componentCount, int largestComponentSize) {
+		this.componentCount = componentCount;
+		this.largestComponentSize = largestComponentSize;
+	}
+
+	/**
+	 * Record a solver run's problem size and search statistics, before it gets reset.
+	 */
+	synchronized void addSolver(IPBSolver solver) {
+		Map<String, Number> stats = solver.getStat();
+
+		solverRuns++;
+		variables += solver.nVars();
+		constraints += solver.nConstraints();
+		conflicts += getStat(stats, "conflicts");
+		decisions += getStat(stats, "decisions");
+	}
+
+	private static long getStat(Map<String, Number> stats, String key) {
+		Number ret = stats.get(key);
+
+		return ret != null ? ret.longValue() : 0;
+	}
+
+	synchronized void addSolveTimes(long setupTime, long solveTime) {
+		this.setupTime += setupTime;
+		this.solveTime += solveTime;
+	}
+
+	synchronized void addFailureAnalysisTime(long time) {
+		failureAnalysisTime += time;
+	}
+
+	void setPreparationTime(long time) {
+		preparationTime = time;
+	}
+
+	void setTotalTime(long time) {
+		totalTime = time;
+	}
+
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * @return number of mod candidates available for the current environment
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * @return number of mod ids only available for the other environment
+	 */
+	public int getEnvDisabledCount() {
+		return envDisabledCount;
+	}
+
+	/**
+	 * @return number of builtin mods, these aren't subject to selection
+	 */
+	public int getPreselectedCount() {
+		return preselectedCount;
+	}
+
+	/**
+	 * @return number of candidates to select from after preselection
+	 */
+	public int getSolverCandidateCount() {
+		return solverCandidateCount;
+	}
+
+	/**
+	 * @return number of selected mods including builtin mods
+	 */
+	public int getSelectedCount() {
+		return selectedCount;
+	}
+
+	/**
+	 * @return number of independent parts of the mod set, 0 if not determined
+	 */
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * @return candidate count of the largest independent part of the mod set, 0 if not determined
+	 */
+	public int getLargestComponentSize() {
+		return largestComponentSize;
+	}
+
+	public synchronized int getSolverRuns() {
+		return solverRuns;
+	}
+
+	public synchronized long getVariables() {
+		return variables;
+	}
+
+	public synchronized long getConstraints() {
+		return constraints;
+	}
+
+	public synchronized long getConflicts() {
+		return conflicts;
+	}
+
+	public synchronized long getDecisions() {
+		return decisions;
+	}
+
+	/**
+	 * @return time for sorting, indexing and preselecting the candidates in ns
+	 */
+	public long getPreparationTime() {
+		return preparationTime;
+	}
+
+	/**
+	 * @return time for encoding the constraints in ns
+	 */
+	public synchronized long getSetupTime() {
+		return setupTime;
+	}
+
+	/**
+	 * @return time spent solving in ns, excluding failure analysis
+	 */
+	public synchronized long getSolveTime() {
+		return solveTime;
+	}
+
+	/**
+	 * @return time spent determining the reason and fix for an incompatible mod set in ns
+	 */
+	public synchronized long getFailureAnalysisTime() {
+		return failureAnalysisTime;
+	}
+
+	/**
+	 * @return total resolution time in ns
+	 */
+	public long getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * Get the metrics as an unmodifiable map, keyed by the getter names without the get prefix.
+	 *
+	 * <p>The values are String for the strategy and Integer or Long otherwise, to be usable without depending on loader
+	 * internals.
+	 */
+	public synchronized Map<String, Object> toMap() {
+		Map<String, Object> ret = new LinkedHashMap<>();
+		ret.put("strategy", strategy != null ? strategy.name().toLowerCase(Locale.ENGLISH) : null);
+		ret.put("candidateCount", candidateCount);
+		ret.put("envDisabledCount", envDisabledCount);
+		ret.put("preselectedCount", preselectedCount);
+		ret.put("solverCandidateCount", solverCandidateCount);
+		ret.put("selectedCount", selectedCount);
+		ret.put("componentCount", componentCount);
+		ret.put("largestComponentSize", largestComponentSize);
+		ret.put("solverRuns", solverRuns);
+		ret.put("variables", variables);
+		ret.put("constraints", constraints);
+		ret.put("conflicts", conflicts);
+		ret.put("decisions", decisions);
+		ret.put("preparationTime", preparationTime);
+		ret.put("setupTime", setupTime);
+		ret.put("solveTime", solveTime);
+		ret.put("failureAnalysisTime", failureAnalysisTime);
+		ret.put("totalTime", totalTime);
+
+		return Collections.unmodifiableMap(ret);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(Locale.ENGLISH, "strategy %s, %d candidates (%d env disabled, %d preselected, %d to select from), %d selected, "
+				+ "%d components (largest %d), %d solver runs with %d variables, %d constraints, %d conflicts, %d decisions, "
+				+ "time %.1f ms (preparation %.1f ms, setup %.1f ms, solve %.1f ms, failure analysis %.1f ms)",
+				strategy != null ? strategy.name().toLowerCase(Locale.ENGLISH) : "none",
+				candidateCount, envDisabledCount, preselectedCount, solverCandidateCount, selectedCount,
+				componentCount, largestComponentSize, solverRuns, variables, constraints, conflicts, decisions,
+				totalTime * 1e-6, preparationTime * 1e-6, setupTime * 1e-6, solveTime * 1e-6, failureAnalysisTime * 1e-6);
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip reader operating directly on the central directory of a file or an in-memory buffer.
+ *
+ * <p>Only the end of central directory record and the central directory itself are read up front, entries are located
+ * by scanning the central directory without decoding any names that don't match. For in-memory zips STORED entries are
+ * exposed as slices of the backing buffer without copying, file backed zips read each requested entry into an exactly
+ * sized heap buffer. DEFLATED entries are inflated into exactly sized heap buffers and all entry data is checked
+ * against its CRC.
+ *
+ * <p>File backed readers hold an open file channel until {@link #close closed}, the returned buffers stay usable
+ * afterwards. No memory mappings are used since they can't be released deterministically, which would keep the files
+ * locked on Windows and turn a concurrent truncation into a crash instead of an {@link IOException}.
+ */
+final class ZipReader implements Closeable {
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CEN_SIG = 0x02014b50;
+	private static final int CEN_SIZE = 46;
+	private static final int EOCD_SIG = 0x06054b50;
+	private static final int EOCD_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_EOCD_SIG = 0x06064b50;
+	private static final int ZIP64_EOCD_SIZE = 56;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int MAX_COMMENT_SIZE = 0xffff;
+	private static final int INFLATE_CHUNK_SIZE = 64 * 1024;
+
+	private final FileChannel channel; // null for in-memory zips
+	private final ByteBuffer buffer; // little endian, covers the whole zip, null for file backed zips
+	private final long size;
+	private final long base; // offset of the zip start, non-0 for zips with prepended data
+	private final ByteBuffer cd; // little endian central directory
+
+	static ZipReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			return new ZipReader(channel, null, channel.size());
+		} catch (Throwable t) {
+			channel.close();
+			throw t;
+		}
+	}
+
+	static ZipReader of(ByteBuffer data) throws IOException {
+		data = data.slice();
+
+		return new ZipReader(null, data, data.remaining());
+	}
+
+	private ZipReader(FileChannel channel, ByteBuffer buffer, long size) throws IOException {
+		this.channel = channel;
+		this.buffer = buffer;
+		this.size = size;
+
+		int tailSize = (int) Math.min(size, EOCD_SIZE + MAX_COMMENT_SIZE);
+		long tailPos = size - tailSize;
+		ByteBuffer tail = read(tailPos, tailSize);
+		int eocdPos = -1;
+
+		for (int pos = tailSize - EOCD_SIZE; pos >= 0; pos--) {
+			if (tail.getInt(pos) == EOCD_SIG) {
+				eocdPos = pos;
+				break;
+			}
+		}
+
+		if (eocdPos < 0) throw new ZipException("no end of central directory record");
+
+		long cdSize = tail.getInt(eocdPos + 12) & 0xffffffffL;
+		long cdOffset = tail.getInt(eocdPos + 16) & 0xffffffffL;
+		long cdEnd = tailPos + eocdPos;
+
+		if ((cdSize == 0xffffffffL || cdOffset == 0xffffffffL) && cdEnd >= ZIP64_LOCATOR_SIZE + ZIP64_EOCD_SIZE) {
+			ByteBuffer locator = read(cdEnd - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+
+			if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+				// the recorded offset doesn't account for prepended data, the record usually directly precedes the locator
+				long zip64EocdPos = cdEnd - ZIP64_LOCATOR_SIZE - ZIP64_EOCD_SIZE;
+				ByteBuffer zip64Eocd = read(zip64EocdPos, ZIP64_EOCD_SIZE);
+
+				if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIG) {
+					zip64EocdPos = checkRange(locator.getLong(8), ZIP64_EOCD_SIZE);
+					zip64Eocd = read(zip64EocdPos, ZIP64_EOCD_SIZE);
+					if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIG) throw new ZipException("invalid zip64 end of central directory record");
+				}
+
+				cdSize = zip64Eocd.getLong(40);
+				cdOffset = zip64Eocd.getLong(48);
+				cdEnd = zip64EocdPos;
+			}
+		}
+
+		long base = cdEnd - cdSize - cdOffset;
+		if (cdSize < 0 || cdOffset < 0 || base < 0 || cdSize > cdEnd) throw new ZipException("invalid central directory location");
+		if (cdSize > Integer.MAX_VALUE) throw new ZipException("central directory too large");
+
+		this.base = base;
+		this.cd = read(base + cdOffset, (int) cdSize);
+	}
+
+	/**
+	 * Get the raw central directory, which includes the name, size and CRC of every entry.
+	 */
+	ByteBuffer getCentralDirectory() {
+		return cd.duplicate();
+	}
+
+	Entry getEntry(String name) throws IOException {
+		Map<String, Entry> ret = getEntries(Collections.singleton(name));
+
+		return ret.isEmpty() ? null : ret.values().iterator().next();
+	}
+
+	/**
+	 * Look up multiple entries in a single pass over the central directory.
+	 *
+	 * @return the found entries in the order of the supplied names, absent entries are omitted
+	 */
+	Map<String, Entry> getEntries(Collection<String> names) throws IOException {
+		List<byte[]> encodedNames = new ArrayList<>(names.size());
+
+		for (String name : names) {
+			encodedNames.add(name.getBytes(StandardCharsets.UTF_8));
+		}
+
+		Entry[] found = new Entry[encodedNames.size()];
+		int remaining = found.length;
+		int pos = 0;
+		int end = cd.limit();
+
+		while (remaining > 0 && pos < end) {
+			if (pos + CEN_SIZE > end || cd.getInt(pos) != CEN_SIG) throw new ZipException("invalid central directory entry at "+pos);
+
+			int nameLen = cd.getShort(pos + 28) & 0xffff;
+			int extraLen = cd.getShort(pos + 30) & 0xffff;
+			int commentLen = cd.getShort(pos + 32) & 0xffff;
+			if (pos + CEN_SIZE + nameLen + extraLen > end) throw new ZipException("truncated central directory entry at "+pos);
+
+			for (int i = 0; i < found.length; i++) {
+				if (found[i] == null && nameEquals(pos + CEN_SIZE, nameLen, encodedNames.get(i))) {
+					found[i] = readEntry(pos, nameLen, extraLen);
+					remaining--;
+					break;
+				}
+			}
+
+			pos += CEN_SIZE + nameLen + extraLen + commentLen;
+		}
+
+		Map<String, Entry> ret = new LinkedHashMap<>(found.length);
+
+		for (Entry entry : found) {
+			if (entry != null) ret.put(entry.name, entry);
+		}
+
+		return ret;
+	}
+
+	private boolean nameEquals(int pos, int len, byte[] name) {
+		if (len != name.length) return false;
+
+		for (int i = len - 1; i >= 0; i--) { // backwards since entries tend to share prefixes
+			if (cd.get(pos + i) != name[i]) return false;
+		}
+
+		return true;
+	}
+
+	private Entry readEntry(int pos, int nameLen, int extraLen) throws ZipException {
+		int flags = cd.getShort(pos + 8) & 0xffff;
+		int method = cd.getShort(pos + 10) & 0xffff;
+		long crc = cd.getInt(pos + 16) & 0xffffffffL;
+		long compressedSize = cd.getInt(pos + 20) & 0xffffffffL;
+		long size = cd.getInt(pos + 24) & 0xffffffffL;
+		long localHeaderOffset = cd.getInt(pos + 42) & 0xffffffffL;
+		byte[] name = new byte[nameLen];
+
+		for (int i = 0; i < nameLen; i++) {
+			name[i] = cd.get(pos + CEN_SIZE + i);
+		}
+
+		if (size == 0xffffffffL || compressedSize == 0xffffffffL || localHeaderOffset == 0xffffffffL) {
+			int extraPos = pos + CEN_SIZE + nameLen;
+			int extraEnd = extraPos + extraLen;
+
+			while (extraPos + 4 <= extraEnd) {
+				int id = cd.getShort(extraPos) & 0xffff;
+				int len = cd.getShort(extraPos + 2) & 0xffff;
+				int dataPos = extraPos + 4;
+				int dataEnd = Math.min(dataPos + len, extraEnd);
+
+				if (id == ZIP64_EXTRA_ID) {
+					if (size == 0xffffffffL && dataPos + 8 <= dataEnd) {
+						size = cd.getLong(dataPos);
+						dataPos += 8;
+					}
+
+					if (compressedSize == 0xffffffffL && dataPos + 8 <= dataEnd) {
+						compressedSize = cd.getLong(dataPos);
+						dataPos += 8;
+					}
+
+					if (localHeaderOffset == 0xffffffffL && dataPos + 8 <= dataEnd) {
+						localHeaderOffset = cd.getLong(dataPos);
+					}
+
+					break;
+				}
+
+				extraPos += 4 + len;
+			}
+		}
+
+		String nameStr = new String(name, StandardCharsets.UTF_8);
+
+		if ((flags & 1) != 0) throw new ZipException("encrypted entry "+nameStr);
+		if (size < 0 || compressedSize < 0 || localHeaderOffset < 0) throw new ZipException("invalid zip64 sizes for "+nameStr);
+
+		return new Entry(nameStr, method, crc, compressedSize, size, localHeaderOffset);
+	}
+
+	/**
+	 * Get an entry's uncompressed content.
+	 *
+	 * <p>STORED entries of in-memory zips return a slice of the zip's buffer, everything else a new heap buffer.
+	 */
+	ByteBuffer getData(Entry entry) throws IOException {
+		return decode(entry, getRawData(entry), null);
+	}
+
+	/**
+	 * Get an entry's data as stored in the zip, validating its location and compression method.
+	 *
+	 * <p>The result can be decoded with {@link #decode} after this reader has been closed.
+	 */
+	ByteBuffer getRawData(Entry entry) throws IOException {
+		long pos = checkRange(base + entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+		ByteBuffer header = read(pos, LOCAL_HEADER_SIZE);
+		if (header.getInt(0) != LOCAL_HEADER_SIG) throw new ZipException("invalid local header for "+entry.name);
+
+		pos += LOCAL_HEADER_SIZE + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+
+		if (entry.size > Integer.MAX_VALUE || entry.compressedSize > Integer.MAX_VALUE) throw new ZipException("entry too large: "+entry.name);
+
+		int compressedSize = (int) entry.compressedSize;
+
+		switch (entry.method) {
+		case ZipEntry.STORED:
+			if (entry.size != entry.compressedSize) throw new ZipException("invalid size for stored entry "+entry.name);
+			break;
+		case ZipEntry.DEFLATED:
+			break;
+		default:
+			throw new ZipException("unsupported compression method "+entry.method+" for "+entry.name);
+		}
+
+		return read(checkRange(pos, compressedSize), compressedSize);
+	}
+
+	/**
+	 * Decompress an entry's raw data from {@link #getRawData} and verify its CRC.
+	 *
+	 * @param digest digest to additionally pass the uncompressed data to, may be null
+	 */
+	static ByteBuffer decode(Entry entry, ByteBuffer rawData, MessageDigest digest) throws ZipException {
+		ByteBuffer ret;
+
+		if (entry.method == ZipEntry.STORED) {
+			ret = rawData;
+		} else {
+			byte[] out = new byte[(int) entry.size];
+			inflate(rawData.duplicate(), entry, out);
+			ret = ByteBuffer.wrap(out);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(ret.duplicate());
+		if (crc.getValue() != entry.crc) throw new ZipException("CRC mismatch for "+entry.name);
+
+		if (digest != null) digest.update(ret.duplicate());
+
+		return ret;
+	}
+
+	InputStream getInputStream(Entry entry) throws IOException {
+		return new BufferInputStream(getData(entry));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) channel.close();
+	}
+
+	private static void inflate(ByteBuffer in, Entry entry, byte[] out) throws ZipException {
+		Inflater inflater = new Inflater(true);
+
+		try {
+			byte[] chunk = null;
+			int offset = 0;
+
+			if (in.hasArray()) {
+				inflater.setInput(in.array(), in.arrayOffset() + in.position(), in.remaining());
+				in.position(in.limit());
+			}
+
+			while (offset < out.length) {
+				if (inflater.needsInput()) {
+					int len = Math.min(in.remaining(), INFLATE_CHUNK_SIZE);
+					if (len == 0) throw new ZipException("unexpected end of compressed data for "+entry.name);
+
+					if (chunk == null) chunk = new byte[len];
+					in.get(chunk, 0, len);
+					inflater.setInput(chunk, 0, len);
+				}
+
+				int len = inflater.inflate(out, offset, out.length - offset);
+
+				if (len == 0 && (inflater.finished() || inflater.needsDictionary())) {
+					break;
+				}
+
+				offset += len;
+			}
+
+			if (offset != out.length) throw new ZipException("size mismatch for "+entry.name);
+		} catch (DataFormatException e) {
+			throw new ZipException(String.format("invalid compressed data for %s: %s", entry.name, e.getMessage()));
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Read a region of the zip, as a slice of the buffer for in-memory zips or into a new heap buffer otherwise.
+	 */
+	private ByteBuffer read(long pos, int len) throws IOException {
+		ByteBuffer ret;
+
+		if (buffer != null) {
+			ret = buffer.duplicate();
+			ret.position((int) pos);
+			ret.limit((int) pos + len);
+			ret = ret.slice();
+		} else {
+			ret = ByteBuffer.allocate(len);
+
+			while (ret.hasRemaining()) {
+				if (channel.read(ret, pos + ret.position()) < 0) throw new ZipException("unexpected end of file");
+			}
+
+			ret.flip();
+		}
+
+		return ret.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private long checkRange(long pos, long len) throws ZipException {
+		if (pos < 0 || len < 0 || pos > size - len) throw new ZipException("offset out of bounds: "+pos);
+
+		return pos;
+	}
+
+	static final class Entry {
+		final String name;
+		final int method;
+		final long crc;
+		final long compressedSize;
+		final long size;
+		final long localHeaderOffset;
+
+		Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) return 0;
+			if (!buffer.hasRemaining()) return -1;
+
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+		@Override
+		public long skip(long n) {
+			int len = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + len);
+
+			return len;
+		}
+	}
+}
@@ -23,7 +23,9 @@ import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Reads a JSON (<a href="http://www.ietf.org/rfc/rfc7159.txt">RFC 7159</a>)
@@ -223,7 +225,7 @@ public class JsonReader implements Closeable {
 	private static final int NUMBER_CHAR_EXP_SIGN = 6;
 	private static final int NUMBER_CHAR_EXP_DIGIT = 7;
 
-	/** The input JSON. */
+	/** The input JSON, null if reading from bytes instead (Fabric). */
 	private final Reader in;
 
 	/** True to accept non-spec compliant JSON */
@@ -235,7 +237,7 @@ public class JsonReader implements Closeable {
 	 * We decode literals directly out of this buffer, so it must be at least as
 	 * long as the longest token that can be reported as a number.
 	 */
-	private char[] buffer = new char[8192]; // Fabric - increase buffer size, remove final for resizing
+	private char[] buffer; // Fabric - increase buffer size, remove final for resizing, initialize in the constructors
 	private int pos = 0;
 	private int limit = 0;
 
@@ -291,6 +293,31 @@ public class JsonReader implements Closeable {
 			throw new NullPointerException("in == null");
 		}
 		this.in = in;
+		this.bytes = null;
+		this.buffer = new char[BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates a new instance that reads UTF-8 encoded JSON from the remaining
+	 * bytes of {@code in}, without modifying its position. The bytes are decoded
+	 * as needed instead of going through a {@link Reader} and the character
+	 * buffer is borrowed from a thread local pool until {@link #close}.
+	 */
+	public JsonReader(ByteBuffer in) { // Fabric - added
+		if (in == null) {
+			throw new NullPointerException("in == null");
+		}
+		this.in = null;
+		this.bytes = in.duplicate();
+
+		char[] buffer = BUFFER_POOL.get();
+
+		if (buffer != null) {
+			BUFFER_POOL.set(null);
+			this.buffer = buffer;
+		} else {
+			this.buffer = new char[BUFFER_SIZE];
+		}
 	}
 
 	/**
@@ -409,6 +436,12 @@ public class JsonReader implements Closeable {
 	 * Returns true if the current array or object has another element.
 	 */
 	public boolean hasNext() throws IOException {
+		if (replayNames != null && stackSize == replayResume.stackSize) { // Fabric - serve replayed members first
+			if (replayIndex < replayNames.size()) return true;
+
+			finishReplay();
+		}
+
 		int p = peeked;
 		if (p == PEEKED_NONE) {
 			p = doPeek();
@@ -664,6 +697,7 @@ public class JsonReader implements Closeable {
 				}
 				p = pos;
 				l = limit;
+				buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 			}
 
 			char c = buffer[p + i];
@@ -774,6 +808,14 @@ public class JsonReader implements Closeable {
 	 *     name.
 	 */
 	public String nextName() throws IOException {
+		if (replayNames != null && stackSize == replayResume.stackSize && replayIndex < replayNames.size()) { // Fabric - serve replayed members first
+			String result = replayNames.get(replayIndex);
+			restore(replayMarks.get(replayIndex));
+			replayIndex++;
+			pathNames[stackSize - 1] = result;
+			return result;
+		}
+
 		int p = peeked;
 		if (p == PEEKED_NONE) {
 			p = doPeek();
@@ -987,6 +1029,7 @@ public class JsonReader implements Closeable {
 		char[] buffer = this.buffer;
 		StringBuilder builder = null;
 		while (true) {
+			buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 			int p = pos;
 			int l = limit;
 			/* the index of the first character not yet appended to the builder. */
@@ -1014,6 +1057,7 @@ public class JsonReader implements Closeable {
 					builder.append(readEscapeCharacter());
 					p = pos;
 					l = limit;
+					buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 					start = p;
 				} else if (c == '\n') {
 					lineNumber++;
@@ -1096,6 +1140,7 @@ public class JsonReader implements Closeable {
 		// Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
 		char[] buffer = this.buffer;
 		do {
+			buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 			int p = pos;
 			int l = limit;
 			/* the index of the first character not yet appended to the builder. */
@@ -1109,6 +1154,7 @@ public class JsonReader implements Closeable {
 					readEscapeCharacter();
 					p = pos;
 					l = limit;
+					buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 				} else if (c == '\n') {
 					lineNumber++;
 					lineStart = p;
@@ -1216,7 +1262,17 @@ public class JsonReader implements Closeable {
 		peeked = PEEKED_NONE;
 		stack[0] = JsonScope.CLOSED;
 		stackSize = 1;
-		in.close();
+
+		if (in != null) {
+			in.close();
+		} else if (buffer != null) { // Fabric - return the buffer to the pool
+			if (buffer.length <= MAX_POOLED_BUFFER_SIZE && BUFFER_POOL.get() == null) {
+				BUFFER_POOL.set(buffer);
+			}
+
+			buffer = null;
+			pos = limit = 0;
+		}
 	}
 
 	/**
@@ -1289,11 +1345,11 @@ public class JsonReader implements Closeable {
 
 			pos = 0;
 		} else if (buffer.length - limit < minimum) {
-			buffer = Arrays.copyOf(buffer, buffer.length + Math.max(buffer.length, minimum));
+			this.buffer = buffer = Arrays.copyOf(buffer, buffer.length + Math.max(buffer.length, minimum));
 		}
 
 		int total;
-		while ((total = in.read(buffer, limit, buffer.length - limit)) != -1) {
+		while ((total = read(buffer, limit, buffer.length - limit)) != -1) {
 			limit += total;
 
 			// if this is the first read, consume an optional byte order mark (BOM) if it exists
@@ -1336,6 +1392,7 @@ public class JsonReader implements Closeable {
 				}
 				p = pos;
 				l = limit;
+				buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 			}
 
 			int c = buffer[p++];
@@ -1352,6 +1409,7 @@ public class JsonReader implements Closeable {
 				if (p == l) {
 					pos--; // push back '/' so it's still in the buffer when this method returns
 					boolean charsLoaded = fillBuffer(2);
+					buffer = this.buffer; // Fabric - fillBuffer may have grown the buffer for rewinding
 					pos++; // consume the '/' again
 					if (!charsLoaded) {
 						return c;
@@ -1620,4 +1678,217 @@ public class JsonReader implements Closeable {
 
 		rewindEnabled = value;
 	}
+
+	// Fabric - added marks for replaying skipped object members
+
+	private List<String> replayNames;
+	private List<Mark> replayMarks;
+	private int replayIndex;
+	private Mark replayResume;
+
+	/**
+	 * Captures the current position for {@link #replay}, requires rewinding to
+	 * be enabled so the data stays available.
+	 */
+	public Mark mark() {
+		if (!rewindEnabled) throw new IllegalStateException("rewind disabled");
+
+		return new Mark(this);
+	}
+
+	/**
+	 * Returns previously skipped members of the current object again before
+	 * continuing with the remaining ones.
+	 *
+	 * <p>Each mark has to be taken right after {@link #nextName} returned the
+	 * corresponding name, before the value was skipped. The following
+	 * {@link #hasNext} and {@link #nextName} calls for the current object then
+	 * yield those members in order, positioned at their values, without
+	 * tokenizing anything in between. Once all of them are consumed, reading
+	 * resumes at the current position and rewinding gets disabled.
+	 */
+	public void replay(List<String> names, List<Mark> marks) {
+		if (names.size() != marks.size()) throw new IllegalArgumentException("names and marks don't match");
+		if (!rewindEnabled) throw new IllegalStateException("rewind disabled");
+
+		for (Mark mark : marks) {
+			if (mark.stackSize != stackSize) throw new IllegalArgumentException("mark from a different object");
+		}
+
+		replayNames = names;
+		replayMarks = marks;
+		replayIndex = 0;
+		replayResume = new Mark(this);
+	}
+
+	private void finishReplay() {
+		restore(replayResume);
+		replayNames = null;
+		replayMarks = null;
+		replayResume = null;
+		rewindEnabled = false;
+	}
+
+	private void restore(Mark mark) {
+		pos = mark.pos;
+		lineNumber = mark.lineNumber;
+		lineStart = mark.lineStart;
+		stack[stackSize - 1] = mark.scope;
+		peeked = mark.peeked;
+		peekedLong = mark.peekedLong;
+		peekedNumberLength = mark.peekedNumberLength;
+		peekedString = mark.peekedString;
+	}
+
+	public static final class Mark {
+		final int pos;
+		final int lineNumber;
+		final int lineStart;
+		final int stackSize;
+		final int scope;
+		final int peeked;
+		final long peekedLong;
+		final int peekedNumberLength;
+		final String peekedString;
+
+		Mark(JsonReader reader) {
+			this.pos = reader.pos;
+			this.lineNumber = reader.lineNumber;
+			this.lineStart = reader.lineStart;
+			this.stackSize = reader.stackSize;
+			this.scope = reader.stack[reader.stackSize - 1];
+			this.peeked = reader.peeked;
+			this.peekedLong = reader.peekedLong;
+			this.peekedNumberLength = reader.peekedNumberLength;
+			this.peekedString = reader.peekedString;
+		}
+	}
+
+	// Fabric - added direct UTF-8 decoding for ByteBuffer input
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_POOLED_BUFFER_SIZE = 65536;
+	private static final ThreadLocal<char[]> BUFFER_POOL = new ThreadLocal<>();
+
+	/** The input JSON if reading from bytes, in is null then. */
+	private final ByteBuffer bytes;
+	/** Low surrogate of a supplementary character that didn't fit into the buffer anymore, 0 if none. */
+	private char pendingChar;
+	/** Whether any invalid UTF-8 was replaced, which breaks the mapping between characters and bytes. */
+	private boolean malformedInput;
+
+	/**
+	 * Returns the position in the ByteBuffer input that corresponds to the
+	 * reader's current position, which is past any peeked token.
+	 *
+	 * @return the position or -1 if the input isn't a ByteBuffer or wasn't
+	 *     valid UTF-8 so far
+	 */
+	public int getBytePosition() {
+		if (bytes == null || malformedInput) return -1;
+
+		int ret = bytes.position();
+		if (pendingChar != 0) ret -= 2; // the high surrogate accounts for the other half of the 4 byte sequence
+
+		for (int i = pos; i < limit; i++) {
+			char c = buffer[i];
+
+			if (c < 0x80) {
+				ret--;
+			} else if (c < 0x800 || Character.isSurrogate(c)) {
+				ret -= 2;
+			} else {
+				ret -= 3;
+			}
+		}
+
+		return ret;
+	}
+
+	private int read(char[] buffer, int off, int len) throws IOException {
+		if (in != null) return in.read(buffer, off, len);
+
+		ByteBuffer bytes = this.bytes;
+		int srcPos = bytes.position();
+		int srcEnd = bytes.limit();
+		int dstPos = off;
+		int dstEnd = off + len;
+
+		if (pendingChar != 0 && dstPos < dstEnd) {
+			buffer[dstPos++] = pendingChar;
+			pendingChar = 0;
+		} else if (srcPos >= srcEnd) {
+			return -1;
+		}
+
+		while (dstPos < dstEnd && srcPos < srcEnd) {
+			int b = bytes.get(srcPos);
+
+			if (b >= 0) { // ASCII
+				buffer[dstPos++] = (char) b;
+				srcPos++;
+				continue;
+			}
+
+			// multi byte sequence, invalid input is replaced per maximal subpart (Unicode 3.9), like CharsetDecoder except for encoded surrogates
+			b &= 0xff;
+			int extra;
+			int cp;
+			int lo = 0x80; // valid range for the second byte, excludes overlong, surrogate and out of range encodings
+			int hi = 0xbf;
+
+			if (b >= 0xc2 && b <= 0xdf) {
+				extra = 1;
+				cp = b & 0x1f;
+			} else if (b >= 0xe0 && b <= 0xef) {
+				extra = 2;
+				cp = b & 0x0f;
+				if (b == 0xe0) lo = 0xa0;
+				if (b == 0xed) hi = 0x9f;
+			} else if (b >= 0xf0 && b <= 0xf4) {
+				extra = 3;
+				cp = b & 0x07;
+				if (b == 0xf0) lo = 0x90;
+				if (b == 0xf4) hi = 0x8f;
+			} else { // stray continuation byte or invalid lead byte
+				buffer[dstPos++] = '\ufffd';
+				srcPos++;
+				malformedInput = true;
+				continue;
+			}
+
+			int i = 1;
+
+			for (; i <= extra && srcPos + i < srcEnd; i++) {
+				int c = bytes.get(srcPos + i) & 0xff;
+				if (c < lo || c > hi) break;
+
+				cp = cp << 6 | c & 0x3f;
+				lo = 0x80;
+				hi = 0xbf;
+			}
+
+			if (i <= extra) { // invalid or truncated sequence
+				buffer[dstPos++] = '\ufffd';
+				srcPos += i;
+				malformedInput = true;
+			} else if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				buffer[dstPos++] = (char) cp;
+				srcPos += i;
+			} else {
+				buffer[dstPos++] = Character.highSurrogate(cp);
+				srcPos += i;
+
+				if (dstPos < dstEnd) {
+					buffer[dstPos++] = Character.lowSurrogate(cp);
+				} else {
+					pendingChar = Character.lowSurrogate(cp);
+				}
+			}
+		}
+
+		bytes.position(srcPos);
+
+		return dstPos - off;
+	}
 }
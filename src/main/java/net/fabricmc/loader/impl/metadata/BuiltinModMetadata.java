@@ -45,7 +45,7 @@ public final class BuiltinModMetadata extends AbstractModMetadata {
 	private final Collection<Person> contributors;
 	private final ContactInformation contact;
 	private final Collection<String> license;
-	private final NavigableMap<Integer, String> icons;
+	final NavigableMap<Integer, String> icons;
 	private final Collection<ModDependency> dependencies;
 
 	private BuiltinModMetadata(String id, Version version,
@@ -16,7 +16,10 @@
 
 package net.fabricmc.loader.impl.metadata;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -28,6 +31,7 @@ import java.util.Objects;
 
 import net.fabricmc.loader.api.metadata.CustomValue;
 import net.fabricmc.loader.impl.lib.gson.JsonReader;
+import net.fabricmc.loader.impl.lib.gson.JsonToken;
 
 abstract class CustomValueImpl implements CustomValue {
 	static final CustomValue BOOLEAN_TRUE = new BooleanImpl(true);
@@ -80,10 +84,116 @@ abstract class CustomValueImpl implements CustomValue {
 		}
 	}
 
+	/**
+	 * Read a custom value, deferring objects and arrays until their contents are first accessed.
+	 *
+	 * <p>Deferred values only remember where they start in {@code source} and decode a single level when materialized,
+	 * their own nested objects and arrays are deferred again. Each value drops its reference to {@code source} once
+	 * materialized, so the file contents are released after the whole tree has been accessed.
+	 *
+	 * @param source the input of {@code reader} as wrapped into its ByteBuffer, null to read eagerly
+	 */
+	static CustomValue readCustomValue(JsonReader reader, /* @Nullable */ byte[] source) throws IOException, ParseMetadataException {
+		if (source != null) {
+			JsonToken token = reader.peek();
+
+			if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+				int pos = reader.getBytePosition(); // after the peeked bracket
+
+				if (pos > 0) {
+					reader.skipValue();
+
+					return token == JsonToken.BEGIN_OBJECT ? new LazyObjectImpl(source, pos - 1) : new LazyArrayImpl(source, pos - 1);
+				}
+			}
+		}
+
+		return readCustomValue(reader);
+	}
+
+	/**
+	 * Encode a custom value tree for {@link ModMetadataCodec}, numbers are stored as double like they are parsed.
+	 */
+	static void writeCustomValue(CustomValue value, DataOutput out) throws IOException {
+		out.writeByte(value.getType().ordinal());
+
+		switch (value.getType()) {
+		case OBJECT: {
+			CvObject obj = value.getAsObject();
+			ModMetadataCodec.writeVarInt(obj.size(), out);
+
+			for (Entry<String, CustomValue> entry : obj) {
+				ModMetadataCodec.writeString(entry.getKey(), out);
+				writeCustomValue(entry.getValue(), out);
+			}
+
+			break;
+		}
+		case ARRAY: {
+			CvArray array = value.getAsArray();
+			ModMetadataCodec.writeVarInt(array.size(), out);
+
+			for (CustomValue entry : array) {
+				writeCustomValue(entry, out);
+			}
+
+			break;
+		}
+		case STRING:
+			ModMetadataCodec.writeString(value.getAsString(), out);
+			break;
+		case NUMBER:
+			out.writeDouble(value.getAsNumber().doubleValue());
+			break;
+		case BOOLEAN:
+			out.writeBoolean(value.getAsBoolean());
+			break;
+		case NULL:
+			break;
+		}
+	}
+
+	static CustomValue readCustomValue(DataInput in) throws IOException {
+		int type = in.readUnsignedByte();
+		if (type >= CvType.values().length) throw new IOException("Invalid encoded custom value type "+type);
+
+		switch (CvType.values()[type]) {
+		case OBJECT: {
+			int size = ModMetadataCodec.readVarInt(in);
+			// To preserve insertion order
+			Map<String, CustomValue> values = new LinkedHashMap<>(ModMetadataCodec.capacity(size));
+
+			for (int i = 0; i < size; i++) {
+				values.put(ModMetadataCodec.readString(in), readCustomValue(in));
+			}
+
+			return new ObjectImpl(values);
+		}
+		case ARRAY: {
+			int size = ModMetadataCodec.readVarInt(in);
+			List<CustomValue> entries = new ArrayList<>(size);
+
+			for (int i = 0; i < size; i++) {
+				entries.add(readCustomValue(in));
+			}
+
+			return new ArrayImpl(entries);
+		}
+		case STRING:
+			return new StringImpl(ModMetadataCodec.readString(in));
+		case NUMBER:
+			return new NumberImpl(in.readDouble());
+		case BOOLEAN:
+			return in.readBoolean() ? BOOLEAN_TRUE : BOOLEAN_FALSE;
+		default:
+			return NULL;
+		}
+	}
+
 	@Override
 	public final CvObject getAsObject() {
-		if (this instanceof ObjectImpl) {
-			return (ObjectImpl) this;
+		if (this instanceof CvObject) {
+			return (CvObject) this;
 		} else {
 			throw new ClassCastException("can't convert "+getType().name()+" to Object");
 		}
@@ -91,8 +201,8 @@ abstract class CustomValueImpl implements CustomValue {
 
 	@Override
 	public final CvArray getAsArray() {
-		if (this instanceof ArrayImpl) {
-			return (ArrayImpl) this;
+		if (this instanceof CvArray) {
+			return (CvArray) this;
 		} else {
 			throw new ClassCastException("can't convert "+getType().name()+" to Array");
 		}
@@ -186,6 +296,131 @@ abstract class CustomValueImpl implements CustomValue {
 		}
 	}
 
+	/**
+	 * Base for values decoded on first access, see {@link #readCustomValue(JsonReader, byte[])}.
+	 */
+	private abstract static class LazyImpl<T extends CustomValueImpl> extends CustomValueImpl {
+		private byte[] source; // null once materialized
+		private final int start;
+		private volatile T value;
+
+		LazyImpl(byte[] source, int start) {
+			this.source = source;
+			this.start = start;
+		}
+
+		final T get() {
+			T ret = value;
+			if (ret != null) return ret;
+
+			synchronized (this) {
+				ret = value;
+				if (ret != null) return ret;
+
+				try (JsonReader reader = new JsonReader(ByteBuffer.wrap(source, start, source.length - start))) {
+					ret = read(reader, source);
+				} catch (IOException | ParseMetadataException e) {
+					throw new RuntimeException("Error reading deferred custom value", e); // was already skipped successfully before
+				}
+
+				value = ret;
+				source = null;
+
+				return ret;
+			}
+		}
+
+		abstract T read(JsonReader reader, byte[] source) throws IOException, ParseMetadataException;
+	}
+
+	private static final class LazyObjectImpl extends LazyImpl<ObjectImpl> implements CvObject {
+		LazyObjectImpl(byte[] source, int start) {
+			super(source, start);
+		}
+
+		@Override
+		ObjectImpl read(JsonReader reader, byte[] source) throws IOException, ParseMetadataException {
+			reader.beginObject();
+
+			// To preserve insertion order
+			final Map<String, CustomValue> values = new LinkedHashMap<>();
+
+			while (reader.hasNext()) {
+				values.put(reader.nextName(), readCustomValue(reader, source));
+			}
+
+			reader.endObject();
+
+			return new ObjectImpl(values);
+		}
+
+		@Override
+		public CvType getType() {
+			return CvType.OBJECT;
+		}
+
+		@Override
+		public int size() {
+			return get().size();
+		}
+
+		@Override
+		public boolean containsKey(String key) {
+			return get().containsKey(key);
+		}
+
+		@Override
+		public CustomValue get(String key) {
+			return get().get(key);
+		}
+
+		@Override
+		public Iterator<Entry<String, CustomValue>> iterator() {
+			return get().iterator();
+		}
+	}
+
+	private static final class LazyArrayImpl extends LazyImpl<ArrayImpl> implements CvArray {
+		LazyArrayImpl(byte[] source, int start) {
+			super(source, start);
+		}
+
+		@Override
+		ArrayImpl read(JsonReader reader, byte[] source) throws IOException, ParseMetadataException {
+			reader.beginArray();
+
+			final List<CustomValue> entries = new ArrayList<>();
+
+			while (reader.hasNext()) {
+				entries.add(readCustomValue(reader, source));
+			}
+
+			reader.endArray();
+
+			return new ArrayImpl(entries);
+		}
+
+		@Override
+		public CvType getType() {
+			return CvType.ARRAY;
+		}
+
+		@Override
+		public int size() {
+			return get().size();
+		}
+
+		@Override
+		public CustomValue get(int index) {
+			return get().get(index);
+		}
+
+		@Override
+		public Iterator<CustomValue> iterator() {
+			return get().iterator();
+		}
+	}
+
 	private static final class StringImpl extends CustomValueImpl {
 		final String value;
 
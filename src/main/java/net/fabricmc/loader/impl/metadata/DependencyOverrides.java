@@ -16,20 +16,32 @@
 
 package net.fabricmc.loader.impl.metadata;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
 import net.fabricmc.loader.api.VersionParsingException;
@@ -38,31 +50,167 @@ import net.fabricmc.loader.impl.FormattedException;
 import net.fabricmc.loader.impl.lib.gson.JsonReader;
 import net.fabricmc.loader.impl.lib.gson.JsonToken;
 import net.fabricmc.loader.impl.util.LoaderUtil;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
 
+/**
+ * Dependency overrides from {@code config/fabric_loader_dependencies.json}.
+ *
+ * <p>The file is compiled into one {@link ModOverride} per mod id, which applies all operations in a single pass over
+ * the mod's dependencies. The compiled form can be kept in a cache file for the override file's SHA-256 hash, so an
+ * unchanged override file only gets read and hashed instead of parsed.
+ */
 public final class DependencyOverrides {
-	private final Map<String, List<Entry>> dependencyOverrides;
+	private static final int CACHE_MAGIC = 0x46444f56; // FDOV
+	private static final int CACHE_FORMAT_VERSION = 1;
+
+	private final Path path;
+	private final Path cacheFile; // may be null
+	private volatile byte[] digest; // null if the file is absent
+	private volatile Map<String, ModOverride> dependencyOverrides;
+	private final Set<String> appliedModIds = new ConcurrentSkipListSet<>();
 
 	public DependencyOverrides(Path configDir) {
-		Path path = configDir.resolve("fabric_loader_dependencies.json");
+		this(configDir, null);
+	}
+
+	/**
+	 * @param cacheFile file to store the compiled overrides in, may be null to always parse the override file
+	 */
+	public DependencyOverrides(Path configDir, /* @Nullable */ Path cacheFile) {
+		this.path = configDir.resolve("fabric_loader_dependencies.json");
+		this.cacheFile = cacheFile;
+
+		load();
+	}
+
+	/**
+	 * Read the override file again, e.g. after tooling regenerated it.
+	 *
+	 * <p>Only metadata the overrides get applied to afterwards is affected. A changed file also resets the applied mod
+	 * ids.
+	 *
+	 * @return whether the file's content changed
+	 */
+	public boolean reload() {
+		return load();
+	}
+
+	private synchronized boolean load() {
+		byte[] newDigest = null;
+		Map<String, ModOverride> overrides = Collections.emptyMap();
+
+		if (Files.exists(path)) {
+			try {
+				byte[] data = Files.readAllBytes(path);
+				newDigest = createDigest().digest(data);
+				if (Arrays.equals(newDigest, digest)) return false;
+
+				overrides = readCache(newDigest);
+
+				if (overrides == null) {
+					try (JsonReader reader = new JsonReader(ByteBuffer.wrap(data))) {
+						overrides = parse(reader);
+					}
+
+					writeCache(newDigest, overrides);
+				}
+			} catch (IOException | ParseMetadataException e) {
+				throw FormattedException.ofLocalized("exception.parsingOverride", "Failed to parse " + LoaderUtil.normalizePath(path), e);
+			}
+		} else if (dependencyOverrides != null && digest == null) { // still absent
+			return false;
+		}
+
+		digest = newDigest;
+		dependencyOverrides = overrides;
+		appliedModIds.clear();
+
+		return true;
+	}
 
-		if (!Files.exists(path)) {
-			dependencyOverrides = Collections.emptyMap();
-			return;
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e); // required to be present in every JRE
 		}
+	}
+
+	/**
+	 * @return the compiled overrides for the digest or null if the cache file doesn't hold them
+	 */
+	private /* @Nullable */ Map<String, ModOverride> readCache(byte[] digest) {
+		if (cacheFile == null) return null;
+
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			if (is.readInt() != CACHE_MAGIC
+					|| is.readInt() != CACHE_FORMAT_VERSION
+					|| !ModMetadataCodec.readHeader(is)) {
+				return null;
+			}
+
+			byte[] cachedDigest = new byte[is.readUnsignedByte()];
+			is.readFully(cachedDigest);
+			if (!Arrays.equals(cachedDigest, digest)) return null;
+
+			int count = ModMetadataCodec.readVarInt(is);
+			Map<String, ModOverride> ret = new HashMap<>(ModMetadataCodec.capacity(count));
+
+			for (int i = 0; i < count; i++) {
+				String modId = ModMetadataCodec.readString(is);
+				ret.put(modId, ModOverride.read(is));
+			}
+
+			return ret;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Error reading dependency overrides cache %s, ignoring it", cacheFile, e);
+			return null;
+		}
+	}
 
-		try (JsonReader reader = new JsonReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
-			dependencyOverrides = parse(reader);
-		} catch (IOException | ParseMetadataException e) {
-			throw FormattedException.ofLocalized("exception.parsingOverride", "Failed to parse " + LoaderUtil.normalizePath(path), e);
+	private void writeCache(byte[] digest, Map<String, ModOverride> overrides) {
+		if (cacheFile == null) return;
+
+		Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName().toString().concat(".tmp"));
+
+		try {
+			Files.createDirectories(cacheFile.getParent());
+
+			try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				os.writeInt(CACHE_MAGIC);
+				os.writeInt(CACHE_FORMAT_VERSION);
+				ModMetadataCodec.writeHeader(os);
+				os.writeByte(digest.length);
+				os.write(digest);
+				ModMetadataCodec.writeVarInt(overrides.size(), os);
+
+				for (Map.Entry<String, ModOverride> entry : overrides.entrySet()) {
+					ModMetadataCodec.writeString(entry.getKey(), os);
+					entry.getValue().write(os);
+				}
+			}
+
+			Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Error writing dependency overrides cache %s", cacheFile, e);
+
+			try {
+				Files.deleteIfExists(tmpFile);
+			} catch (IOException e2) {
+				// ignore
+			}
 		}
 	}
 
-	private static Map<String, List<Entry>> parse(JsonReader reader) throws ParseMetadataException, IOException {
+	private static Map<String, ModOverride> parse(JsonReader reader) throws ParseMetadataException, IOException {
 		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 			throw new ParseMetadataException("Root must be an object", reader);
 		}
 
-		Map<String, List<Entry>> ret = new HashMap<>();
+		Map<String, ModOverride> ret = new HashMap<>();
 		reader.beginObject();
 
 		if (!reader.nextName().equals("version")) {
@@ -96,7 +244,7 @@ public final class DependencyOverrides {
 		return ret;
 	}
 
-	private static List<Entry> readKeys(JsonReader reader) throws IOException, ParseMetadataException {
+	private static ModOverride readKeys(JsonReader reader) throws IOException, ParseMetadataException {
 		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 			throw new ParseMetadataException("Dependency container must be an object!", reader);
 		}
@@ -135,7 +283,9 @@ public final class DependencyOverrides {
 
 		reader.endObject();
 
-		List<Entry> ret = new ArrayList<>();
+		Set<ModDependency.Kind> replacedKinds = EnumSet.noneOf(ModDependency.Kind.class);
+		Map<ModDependency.Kind, Set<String>> removedIds = new EnumMap<>(ModDependency.Kind.class);
+		List<ModDependency> additions = new ArrayList<>();
 
 		for (Map.Entry<ModDependency.Kind, Map<Operation, List<ModDependency>>> entry : modOverrides.entrySet()) {
 			ModDependency.Kind kind = entry.getKey();
@@ -144,17 +294,27 @@ public final class DependencyOverrides {
 			List<ModDependency> values = map.get(Operation.REPLACE);
 
 			if (values != null) {
-				ret.add(new Entry(Operation.REPLACE, kind, values)); // suppresses add+remove
+				replacedKinds.add(kind); // suppresses add+remove
+				additions.addAll(values);
 			} else {
 				values = map.get(Operation.REMOVE);
-				if (values != null) ret.add(new Entry(Operation.REMOVE, kind, values));
+
+				if (values != null) {
+					Set<String> ids = new HashSet<>();
+
+					for (ModDependency dep : values) {
+						ids.add(dep.getModId());
+					}
+
+					removedIds.put(kind, ids);
+				}
 
 				values = map.get(Operation.ADD); // after remove
-				if (values != null) ret.add(new Entry(Operation.ADD, kind, values));
+				if (values != null) additions.addAll(values);
 			}
 		}
 
-		return ret;
+		return new ModOverride(replacedKinds, removedIds, additions);
 	}
 
 	private static List<ModDependency> readDependencies(JsonReader reader, ModDependency.Kind kind) throws IOException, ParseMetadataException {
@@ -203,63 +363,105 @@ public final class DependencyOverrides {
 	}
 
 	public void apply(LoaderModMetadata metadata) {
-		if (dependencyOverrides.isEmpty()) return;
+		Map<String, ModOverride> overrides = dependencyOverrides;
+		if (overrides.isEmpty()) return;
 
-		List<Entry> modOverrides = dependencyOverrides.get(metadata.getId());
-		if (modOverrides == null) return;
+		ModOverride modOverride = overrides.get(metadata.getId());
+		if (modOverride == null) return;
 
-		List<ModDependency> deps = new ArrayList<>(metadata.getDependencies());
+		Collection<ModDependency> deps = metadata.getDependencies();
+		List<ModDependency> ret = new ArrayList<>(deps.size() + modOverride.additions.size());
 
-		for (Entry entry : modOverrides) {
-			switch (entry.operation) {
-			case REPLACE:
-				for (Iterator<ModDependency> it = deps.iterator(); it.hasNext(); ) {
-					ModDependency dep = it.next();
+		for (ModDependency dep : deps) {
+			if (modOverride.retains(dep)) ret.add(dep);
+		}
 
-					if (dep.getKind() == entry.kind) {
-						it.remove();
-					}
-				}
+		ret.addAll(modOverride.additions);
+		metadata.setDependencies(ret);
+		appliedModIds.add(metadata.getId());
+	}
 
-				deps.addAll(entry.values);
-				break;
-			case REMOVE:
-				for (Iterator<ModDependency> it = deps.iterator(); it.hasNext(); ) {
-					ModDependency dep = it.next();
-
-					if (dep.getKind() == entry.kind) {
-						for (ModDependency value : entry.values) {
-							if (value.getModId().equals(dep.getModId())) {
-								it.remove();
-								break;
-							}
-						}
-					}
+	/**
+	 * Get the ids of all mods with configured overrides, whether present or not.
+	 *
+	 * <p>Unused by the loader itself since it reports {@link #getAppliedModIds}, kept for API compatibility.
+	 */
+	public Collection<String> getAffectedModIds() {
+		return dependencyOverrides.keySet();
+	}
+
+	/**
+	 * Get the ids of the mods the overrides have been applied to so far, sorted.
+	 */
+	public Collection<String> getAppliedModIds() {
+		return Collections.unmodifiableSet(appliedModIds);
+	}
+
+	/**
+	 * Compiled overrides for one mod id: existing dependencies are filtered by kind and id, then the replacement and
+	 * added dependencies get appended in kind order, equivalent to applying the operations one by one.
+	 */
+	private static final class ModOverride {
+		final Set<ModDependency.Kind> replacedKinds;
+		final Map<ModDependency.Kind, Set<String>> removedIds;
+		final List<ModDependency> additions;
+
+		ModOverride(Set<ModDependency.Kind> replacedKinds, Map<ModDependency.Kind, Set<String>> removedIds, List<ModDependency> additions) {
+			this.replacedKinds = replacedKinds;
+			this.removedIds = removedIds;
+			this.additions = additions;
+		}
+
+		static ModOverride read(DataInput in) throws IOException {
+			Set<ModDependency.Kind> replacedKinds = EnumSet.noneOf(ModDependency.Kind.class);
+
+			for (int i = ModMetadataCodec.readVarInt(in); i > 0; i--) {
+				replacedKinds.add(ModMetadataCodec.readEnum(ModDependency.Kind.values(), in));
+			}
+
+			Map<ModDependency.Kind, Set<String>> removedIds = new EnumMap<>(ModDependency.Kind.class);
+
+			for (int i = ModMetadataCodec.readVarInt(in); i > 0; i--) {
+				ModDependency.Kind kind = ModMetadataCodec.readEnum(ModDependency.Kind.values(), in);
+				Set<String> ids = new HashSet<>();
+
+				for (int j = ModMetadataCodec.readVarInt(in); j > 0; j--) {
+					ids.add(ModMetadataCodec.readString(in));
 				}
 
-				break;
-			case ADD:
-				deps.addAll(entry.values);
-				break;
+				removedIds.put(kind, ids);
 			}
+
+			return new ModOverride(replacedKinds, removedIds, ModMetadataCodec.readDependencies(in));
 		}
 
-		metadata.setDependencies(deps);
-	}
+		void write(DataOutput out) throws IOException {
+			ModMetadataCodec.writeVarInt(replacedKinds.size(), out);
 
-	public Collection<String> getAffectedModIds() {
-		return dependencyOverrides.keySet();
-	}
+			for (ModDependency.Kind kind : replacedKinds) {
+				out.writeByte(kind.ordinal());
+			}
+
+			ModMetadataCodec.writeVarInt(removedIds.size(), out);
+
+			for (Map.Entry<ModDependency.Kind, Set<String>> entry : removedIds.entrySet()) {
+				out.writeByte(entry.getKey().ordinal());
+				ModMetadataCodec.writeVarInt(entry.getValue().size(), out);
+
+				for (String id : entry.getValue()) {
+					ModMetadataCodec.writeString(id, out);
+				}
+			}
+
+			ModMetadataCodec.writeDependencies(additions, out);
+		}
+
+		boolean retains(ModDependency dep) {
+			if (replacedKinds.contains(dep.getKind())) return false;
 
-	private static final class Entry {
-		final Operation operation;
-		final ModDependency.Kind kind;
-		final List<ModDependency> values;
+			Set<String> ids = removedIds.get(dep.getKind());
 
-		Entry(Operation operation, ModDependency.Kind kind, List<ModDependency> values) {
-			this.operation = operation;
-			this.kind = kind;
-			this.values = values;
+			return ids == null || !ids.contains(dep.getModId());
 		}
 	}
 
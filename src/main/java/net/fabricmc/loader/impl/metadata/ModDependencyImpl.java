@@ -16,6 +16,7 @@
 
 package net.fabricmc.loader.impl.metadata;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +26,7 @@ import net.fabricmc.loader.api.VersionParsingException;
 import net.fabricmc.loader.api.metadata.ModDependency;
 import net.fabricmc.loader.api.metadata.version.VersionInterval;
 import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.util.DedupPool;
 
 public final class ModDependencyImpl implements ModDependency {
 	private Kind kind;
@@ -34,11 +36,33 @@ public final class ModDependencyImpl implements ModDependency {
 
 	public ModDependencyImpl(Kind kind, String modId, List<String> matcherStringList) throws VersionParsingException {
 		this.kind = kind;
-		this.modId = modId;
-		this.matcherStringList = matcherStringList;
+		this.modId = DedupPool.string(modId);
+		this.matcherStringList = dedup(matcherStringList);
 		this.ranges = VersionPredicate.parse(this.matcherStringList);
 	}
 
+	private static List<String> dedup(List<String> strings) {
+		switch (strings.size()) {
+		case 0:
+			return Collections.emptyList();
+		case 1:
+			return Collections.singletonList(DedupPool.string(strings.get(0)));
+		default: {
+			List<String> ret = new ArrayList<>(strings.size());
+
+			for (String s : strings) {
+				ret.add(DedupPool.string(s));
+			}
+
+			return ret;
+		}
+		}
+	}
+
+	List<String> getMatcherStrings() {
+		return matcherStringList;
+	}
+
 	@Override
 	public Kind getKind() {
 		return kind;
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.metadata;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.api.metadata.ContactInformation;
+import net.fabricmc.loader.api.metadata.CustomValue;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.api.metadata.ModEnvironment;
+import net.fabricmc.loader.api.metadata.ModMetadata;
+import net.fabricmc.loader.api.metadata.Person;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.util.DedupPool;
+import net.fabricmc.loader.impl.util.version.VersionParser;
+
+/**
+ * Compact binary encoding of parsed mod metadata, for caches that want to skip parsing {@code fabric.mod.json} again.
+ *
+ * <p>Schema 0 and 1 metadata as well as builtin metadata are supported. Strings are stored as length prefixed UTF-8,
+ * versions and dependency predicates as their string representation since they have to be parsed again anyway. Reading
+ * sizes every collection exactly, the decoded metadata doesn't hold on to any of the encoded data.
+ *
+ * <p>Schema 1 metadata whose details weren't decoded yet stores the raw {@code fabric.mod.json} contents in place of
+ * the details, so restoring it stays as lazy as parsing it.
+ *
+ * <p>The encoding is tied to the metadata implementation of the current loader version. Persistent caches have to write
+ * {@link #writeHeader} before any metadata and discard their contents if {@link #readHeader} reports a mismatch.
+ */
+public final class ModMetadataCodec {
+	private static final int MAGIC = 0x464d4d44; // FMMD
+	private static final int FORMAT_VERSION = 2;
+
+	private static final int TYPE_V0 = 0;
+	private static final int TYPE_V1 = 1;
+	private static final int TYPE_BUILTIN = 2;
+
+	private static final int DETAILS_ENCODED = 0;
+	private static final int DETAILS_SOURCE = 1;
+
+	private static final int ICON_NONE = 0;
+	private static final int ICON_SINGLE = 1;
+	private static final int ICON_MAP = 2;
+
+	public static void writeHeader(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeUTF(FabricLoaderImpl.VERSION);
+	}
+
+	/**
+	 * Read and check a header written by {@link #writeHeader}.
+	 *
+	 * @return whether metadata following the header can be read by this loader version
+	 */
+	public static boolean readHeader(DataInput in) throws IOException {
+		return in.readInt() == MAGIC
+				&& in.readInt() == FORMAT_VERSION
+				&& in.readUTF().equals(FabricLoaderImpl.VERSION);
+	}
+
+	/**
+	 * Encode metadata as returned by {@link ModMetadataParser} or {@link BuiltinModMetadata.Builder}.
+	 *
+	 * @throws IllegalArgumentException if the metadata is of any other type
+	 */
+	public static void write(ModMetadata metadata, DataOutput out) throws IOException {
+		if (metadata instanceof V1ModMetadata) {
+			out.writeByte(TYPE_V1);
+			writeV1((V1ModMetadata) metadata, out);
+		} else if (metadata instanceof V0ModMetadata) {
+			out.writeByte(TYPE_V0);
+			writeV0((V0ModMetadata) metadata, out);
+		} else if (metadata instanceof BuiltinModMetadata) {
+			out.writeByte(TYPE_BUILTIN);
+			writeBuiltin((BuiltinModMetadata) metadata, out);
+		} else {
+			throw new IllegalArgumentException("Unsupported mod metadata type "+metadata.getClass().getName());
+		}
+	}
+
+	public static ModMetadata read(DataInput in) throws IOException {
+		int type = in.readUnsignedByte();
+
+		switch (type) {
+		case TYPE_V1:
+			return readV1(in);
+		case TYPE_V0:
+			return readV0(in);
+		case TYPE_BUILTIN:
+			return readBuiltin(in);
+		default:
+			throw new IOException("Invalid mod metadata type "+type);
+		}
+	}
+
+	private static void writeV1(V1ModMetadata metadata, DataOutput out) throws IOException {
+		writeString(metadata.getId(), out);
+		writeString(metadata.getVersion().getFriendlyString(), out);
+		writeStrings(metadata.getProvides(), out);
+		out.writeByte(metadata.getEnvironment().ordinal());
+		writeVarInt(metadata.getJars().size(), out);
+
+		for (NestedJarEntry jar : metadata.getJars()) {
+			writeString(jar.getFile(), out);
+		}
+
+		writeDependencies(metadata.getDependencies(), out);
+		out.writeBoolean(metadata.hasRequires());
+
+		byte[] detailsSource = metadata.getDetailsSource();
+
+		if (detailsSource != null) { // keep the details deferred
+			out.writeByte(DETAILS_SOURCE);
+			writeVarInt(detailsSource.length, out);
+			out.write(detailsSource);
+			return;
+		}
+
+		out.writeByte(DETAILS_ENCODED);
+		V1ModMetadata.Details details = metadata.getDetails();
+		writeVarInt(details.entrypoints.size(), out);
+
+		for (Map.Entry<String, List<EntrypointMetadata>> entry : details.entrypoints.entrySet()) {
+			writeString(entry.getKey(), out);
+			writeVarInt(entry.getValue().size(), out);
+
+			for (EntrypointMetadata entrypoint : entry.getValue()) {
+				writeString(entrypoint.getAdapter(), out);
+				writeString(entrypoint.getValue(), out);
+			}
+		}
+
+		writeVarInt(details.mixins.size(), out);
+
+		for (V1ModMetadata.MixinEntry mixin : details.mixins) {
+			writeString(mixin.config, out);
+			out.writeByte(mixin.environment.ordinal());
+		}
+
+		writeString(details.accessWidener, out);
+		writeString(details.name, out);
+		writeString(details.description, out);
+		writePersons(details.authors, out);
+		writePersons(details.contributors, out);
+		writeContact(details.contact, out);
+		writeStrings(details.license, out);
+
+		if (details.icon instanceof V1ModMetadata.Single) {
+			out.writeByte(ICON_SINGLE);
+			writeString(((V1ModMetadata.Single) details.icon).icon, out);
+		} else if (details.icon instanceof V1ModMetadata.MapEntry) {
+			SortedMap<Integer, String> icons = ((V1ModMetadata.MapEntry) details.icon).icons;
+			out.writeByte(ICON_MAP);
+			writeIcons(icons, out);
+		} else {
+			out.writeByte(ICON_NONE);
+		}
+
+		writeStringMap(details.languageAdapters, out);
+		writeVarInt(details.customValues.size(), out);
+
+		for (Map.Entry<String, CustomValue> entry : details.customValues.entrySet()) {
+			writeString(entry.getKey(), out);
+			CustomValueImpl.writeCustomValue(entry.getValue(), out);
+		}
+	}
+
+	private static V1ModMetadata readV1(DataInput in) throws IOException {
+		String id = DedupPool.string(readString(in));
+		Version version = readVersion(in);
+		List<String> provides = readStrings(in, true);
+		ModEnvironment environment = readEnum(ModEnvironment.values(), in);
+		int count = readVarInt(in);
+		List<NestedJarEntry> jars = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			jars.add(new V1ModMetadata.JarEntry(readString(in)));
+		}
+
+		List<ModDependency> dependencies = readDependencies(in);
+		boolean hasRequires = in.readBoolean();
+		int detailsType = in.readUnsignedByte();
+
+		if (detailsType == DETAILS_SOURCE) {
+			byte[] detailsSource = new byte[readVarInt(in)];
+			in.readFully(detailsSource);
+
+			return new V1ModMetadata(id, version, provides, environment, jars, dependencies, hasRequires, null, detailsSource);
+		} else if (detailsType != DETAILS_ENCODED) {
+			throw new IOException("Invalid details type "+detailsType);
+		}
+
+		count = readVarInt(in);
+		Map<String, List<EntrypointMetadata>> entrypoints = new HashMap<>(capacity(count));
+
+		for (int i = 0; i < count; i++) {
+			String key = DedupPool.string(readString(in));
+			int entrypointCount = readVarInt(in);
+			List<EntrypointMetadata> list = new ArrayList<>(entrypointCount);
+
+			for (int j = 0; j < entrypointCount; j++) {
+				list.add(new V1ModMetadata.EntrypointMetadataImpl(DedupPool.string(readString(in)), readString(in)));
+			}
+
+			entrypoints.put(key, list);
+		}
+
+		count = readVarInt(in);
+		List<V1ModMetadata.MixinEntry> mixins = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			mixins.add(new V1ModMetadata.MixinEntry(readString(in), readEnum(ModEnvironment.values(), in)));
+		}
+
+		String accessWidener = readString(in);
+		String name = readString(in);
+		String description = readString(in);
+		List<Person> authors = readPersons(in);
+		List<Person> contributors = readPersons(in);
+		ContactInformation contact = readContact(in);
+		List<String> license = readStrings(in, true);
+		V1ModMetadata.IconEntry icon;
+		int iconType = in.readUnsignedByte();
+
+		switch (iconType) {
+		case ICON_NONE:
+			icon = null;
+			break;
+		case ICON_SINGLE:
+			icon = new V1ModMetadata.Single(readString(in));
+			break;
+		case ICON_MAP:
+			icon = new V1ModMetadata.MapEntry(readIcons(in));
+			break;
+		default:
+			throw new IOException("Invalid icon type "+iconType);
+		}
+
+		Map<String, String> languageAdapters = readStringMap(in);
+		count = readVarInt(in);
+		Map<String, CustomValue> customValues = new HashMap<>(capacity(count));
+
+		for (int i = 0; i < count; i++) {
+			customValues.put(DedupPool.string(readString(in)), CustomValueImpl.readCustomValue(in));
+		}
+
+		V1ModMetadata.Details details = new V1ModMetadata.Details(entrypoints, mixins, accessWidener,
+				name, description, authors, contributors, contact, license, icon,
+				languageAdapters, customValues);
+
+		return new V1ModMetadata(id, version, provides, environment, jars, dependencies, hasRequires, details, null);
+	}
+
+	private static void writeV0(V0ModMetadata metadata, DataOutput out) throws IOException {
+		writeString(metadata.getId(), out);
+		writeString(metadata.getVersion().getFriendlyString(), out);
+		writeDependencies(metadata.getDependencies(), out);
+		writeStrings(metadata.mixins.client, out);
+		writeStrings(metadata.mixins.common, out);
+		writeStrings(metadata.mixins.server, out);
+		out.writeByte(metadata.getEnvironment().ordinal());
+		writeString(metadata.initializer, out);
+		writeStrings(metadata.initializers, out);
+		writeString(metadata.name, out);
+		writeString(metadata.getDescription(), out);
+		writePersons(metadata.getAuthors(), out);
+		writePersons(metadata.getContributors(), out);
+		writeContact(metadata.getContact(), out);
+		writeString(metadata.license, out);
+	}
+
+	private static V0ModMetadata readV0(DataInput in) throws IOException {
+		String id = DedupPool.string(readString(in));
+		Version version = readVersion(in);
+		List<ModDependency> dependencies = readDependencies(in);
+		List<String> client = readStrings(in, false);
+		List<String> common = readStrings(in, false);
+		List<String> server = readStrings(in, false);
+		V0ModMetadata.Mixins mixins = client.isEmpty() && common.isEmpty() && server.isEmpty() ? null : new V0ModMetadata.Mixins(client, common, server);
+		ModEnvironment environment = readEnum(ModEnvironment.values(), in);
+		String initializer = readString(in);
+		List<String> initializers = readStrings(in, false);
+		String name = readString(in);
+		String description = readString(in);
+		List<Person> authors = readPersons(in);
+		List<Person> contributors = readPersons(in);
+		ContactInformation links = readContact(in);
+		String license = DedupPool.string(readString(in));
+
+		return new V0ModMetadata(id, version, dependencies, mixins, environment, initializer, initializers,
+				name, description, authors, contributors, links, license);
+	}
+
+	private static void writeBuiltin(BuiltinModMetadata metadata, DataOutput out) throws IOException {
+		writeString(metadata.getId(), out);
+		writeString(metadata.getVersion().getFriendlyString(), out);
+		out.writeByte(metadata.getEnvironment().ordinal());
+		writeString(metadata.getName(), out);
+		writeString(metadata.getDescription(), out);
+		writePersons(metadata.getAuthors(), out);
+		writePersons(metadata.getContributors(), out);
+		writeContact(metadata.getContact(), out);
+		writeStrings(metadata.getLicense(), out);
+		writeIcons(metadata.icons, out);
+		writeDependencies(metadata.getDependencies(), out);
+	}
+
+	private static ModMetadata readBuiltin(DataInput in) throws IOException {
+		BuiltinModMetadata.Builder builder = new BuiltinModMetadata.Builder(readString(in), readString(in));
+		builder.setEnvironment(readEnum(ModEnvironment.values(), in));
+		builder.setName(readString(in));
+		builder.setDescription(readString(in));
+
+		for (int i = readVarInt(in); i > 0; i--) {
+			builder.addAuthor(readString(in), readStringMap(in));
+		}
+
+		for (int i = readVarInt(in); i > 0; i--) {
+			builder.addContributor(readString(in), readStringMap(in));
+		}
+
+		builder.setContact(readContact(in));
+
+		for (int i = readVarInt(in); i > 0; i--) {
+			builder.addLicense(readString(in));
+		}
+
+		for (Map.Entry<Integer, String> entry : readIcons(in).entrySet()) {
+			builder.addIcon(entry.getKey(), entry.getValue());
+		}
+
+		for (ModDependency dependency : readDependencies(in)) {
+			builder.addDependency(dependency);
+		}
+
+		return builder.build();
+	}
+
+	private static Version readVersion(DataInput in) throws IOException {
+		String version = readString(in);
+
+		try {
+			return VersionParser.parse(version, false);
+		} catch (VersionParsingException e) {
+			throw new IOException("Invalid encoded version "+version, e);
+		}
+	}
+
+	static void writeDependencies(Collection<ModDependency> dependencies, DataOutput out) throws IOException {
+		writeVarInt(dependencies.size(), out);
+
+		for (ModDependency dependency : dependencies) {
+			out.writeByte(dependency.getKind().ordinal());
+			writeString(dependency.getModId(), out);
+
+			if (dependency instanceof ModDependencyImpl) {
+				writeStrings(((ModDependencyImpl) dependency).getMatcherStrings(), out);
+			} else {
+				Collection<VersionPredicate> predicates = dependency.getVersionRequirements();
+				writeVarInt(predicates.size(), out);
+
+				for (VersionPredicate predicate : predicates) {
+					writeString(predicate.toString(), out);
+				}
+			}
+		}
+	}
+
+	static List<ModDependency> readDependencies(DataInput in) throws IOException {
+		int count = readVarInt(in);
+		if (count == 0) return Collections.emptyList();
+
+		List<ModDependency> ret = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			ModDependency.Kind kind = readEnum(ModDependency.Kind.values(), in);
+			String modId = readString(in);
+			List<String> matchers = readStrings(in, false);
+
+			try {
+				ret.add(new ModDependencyImpl(kind, modId, matchers));
+			} catch (VersionParsingException e) {
+				throw new IOException(String.format("Invalid encoded dependency %s on %s", kind.getKey(), modId), e);
+			}
+		}
+
+		return ret;
+	}
+
+	private static void writePersons(Collection<Person> persons, DataOutput out) throws IOException {
+		writeVarInt(persons.size(), out);
+
+		for (Person person : persons) {
+			writeString(person.getName(), out);
+			writeContact(person.getContact(), out);
+		}
+	}
+
+	private static List<Person> readPersons(DataInput in) throws IOException {
+		int count = readVarInt(in);
+		if (count == 0) return Collections.emptyList();
+
+		List<Person> ret = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			ret.add(new ContactInfoBackedPerson(readString(in), readContact(in)));
+		}
+
+		return ret;
+	}
+
+	private static void writeContact(ContactInformation contact, DataOutput out) throws IOException {
+		writeStringMap(contact.asMap(), out);
+	}
+
+	private static ContactInformation readContact(DataInput in) throws IOException {
+		Map<String, String> map = readStringMap(in);
+
+		return map.isEmpty() ? ContactInformation.EMPTY : new ContactInformationImpl(map);
+	}
+
+	private static void writeIcons(SortedMap<Integer, String> icons, DataOutput out) throws IOException {
+		writeVarInt(icons.size(), out);
+
+		for (Map.Entry<Integer, String> entry : icons.entrySet()) {
+			writeVarInt(entry.getKey(), out);
+			writeString(entry.getValue(), out);
+		}
+	}
+
+	private static SortedMap<Integer, String> readIcons(DataInput in) throws IOException {
+		SortedMap<Integer, String> ret = new TreeMap<>();
+
+		for (int i = readVarInt(in); i > 0; i--) {
+			ret.put(readVarInt(in), readString(in));
+		}
+
+		return ret;
+	}
+
+	private static void writeStringMap(Map<String, String> map, DataOutput out) throws IOException {
+		writeVarInt(map.size(), out);
+
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			writeString(entry.getKey(), out);
+			writeString(entry.getValue(), out);
+		}
+	}
+
+	private static Map<String, String> readStringMap(DataInput in) throws IOException {
+		int count = readVarInt(in);
+		if (count == 0) return Collections.emptyMap();
+
+		Map<String, String> ret = new HashMap<>(capacity(count));
+
+		for (int i = 0; i < count; i++) {
+			ret.put(DedupPool.string(readString(in)), readString(in)); // keys are contact types or language adapter names
+		}
+
+		return ret;
+	}
+
+	private static void writeStrings(Collection<String> strings, DataOutput out) throws IOException {
+		writeVarInt(strings.size(), out);
+
+		for (String str : strings) {
+			writeString(str, out);
+		}
+	}
+
+	private static List<String> readStrings(DataInput in, boolean dedup) throws IOException {
+		int count = readVarInt(in);
+		if (count == 0) return Collections.emptyList();
+
+		List<String> ret = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			String str = readString(in);
+			ret.add(dedup ? DedupPool.string(str) : str);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Write a nullable string as its UTF-8 length + 1 followed by the UTF-8 bytes, 0 for null.
+	 */
+	static void writeString(/* @Nullable */ String str, DataOutput out) throws IOException {
+		if (str == null) {
+			writeVarInt(0, out);
+			return;
+		}
+
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length + 1, out);
+		out.write(bytes);
+	}
+
+	static /* @Nullable */ String readString(DataInput in) throws IOException {
+		int len = readVarInt(in) - 1;
+		if (len < 0) return null;
+		if (len == 0) return "";
+
+		byte[] bytes = new byte[len];
+		in.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeVarInt(int value, DataOutput out) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte(value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte(value);
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		int ret = 0;
+
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			ret |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return ret;
+		}
+
+		throw new IOException("Invalid encoded varint");
+	}
+
+	static <E extends Enum<E>> E readEnum(E[] values, DataInput in) throws IOException {
+		int ordinal = in.readUnsignedByte();
+		if (ordinal >= values.length) throw new IOException("Invalid encoded "+values[0].getDeclaringClass().getSimpleName()+" "+ordinal);
+
+		return values[ordinal];
+	}
+
+	/**
+	 * Initial hash map capacity to hold size entries without rehashing.
+	 */
+	static int capacity(int size) {
+		return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+	}
+
+	private ModMetadataCodec() {
+	}
+}
@@ -16,14 +16,19 @@
 
 package net.fabricmc.loader.impl.metadata;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import net.fabricmc.loader.api.metadata.ModMetadata;
 import net.fabricmc.loader.impl.lib.gson.JsonReader;
 import net.fabricmc.loader.impl.lib.gson.JsonToken;
 import net.fabricmc.loader.impl.util.log.Log;
@@ -40,8 +45,87 @@ public final class ModMetadataParser {
 	// For all intents and purposes of replicating the logic of Gson's fromJson before we have migrated to JsonReader, duplicate keys will replace previous entries.
 	public static LoaderModMetadata parseMetadata(InputStream is, String modPath, List<String> modParentPaths,
 			VersionOverrides versionOverrides, DependencyOverrides depOverrides, boolean isDevelopment) throws ParseMetadataException {
+		return parseMetadata(() -> {
+			try (JsonReader reader = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+				return readModMetadata(reader, null, isDevelopment);
+			}
+		}, modPath, modParentPaths, versionOverrides, depOverrides, isDevelopment);
+	}
+
+	/**
+	 * Parse the raw {@code fabric.mod.json} contents.
+	 *
+	 * @param lazy whether to only decode the fields needed for mod resolution right away and the rest on first access,
+	 *             errors in the latter then only surface once they are accessed
+	 */
+	public static LoaderModMetadata parseMetadata(byte[] data, String modPath, List<String> modParentPaths,
+			VersionOverrides versionOverrides, DependencyOverrides depOverrides, boolean isDevelopment, boolean lazy) throws ParseMetadataException {
+		return parseMetadata(data, modPath, modParentPaths, versionOverrides, depOverrides, isDevelopment, lazy, null);
+	}
+
+	/**
+	 * Parse the raw {@code fabric.mod.json} contents, optionally encoding the result for {@link #readMetadata}.
+	 *
+	 * @param encodedOut output for the {@link ModMetadataCodec} encoding of the metadata before applying any overrides,
+	 *                   lazily parsed metadata gets encoded with its deferred fields still undecoded
+	 */
+	public static LoaderModMetadata parseMetadata(byte[] data, String modPath, List<String> modParentPaths,
+			VersionOverrides versionOverrides, DependencyOverrides depOverrides, boolean isDevelopment, boolean lazy,
+			/* @Nullable */ DataOutput encodedOut) throws ParseMetadataException {
+		byte[] lazySource = lazy ? data : null;
+
+		return parseMetadata(() -> {
+			LoaderModMetadata ret;
+
+			try (JsonReader reader = new JsonReader(ByteBuffer.wrap(data))) {
+				ret = readModMetadata(reader, lazySource, isDevelopment);
+			}
+
+			if (encodedOut != null) ModMetadataCodec.write(ret, encodedOut);
+
+			return ret;
+		}, modPath, modParentPaths, versionOverrides, depOverrides, isDevelopment);
+	}
+
+	/**
+	 * Restore metadata encoded by {@link #parseMetadata(byte[], String, List, VersionOverrides, DependencyOverrides, boolean, boolean, DataOutput)},
+	 * applying the current overrides and verification like parsing does.
+	 *
+	 * @param lazy whether to keep fields that were encoded undecoded deferred, otherwise they are decoded right away
+	 */
+	public static LoaderModMetadata readMetadata(DataInput in, String modPath, List<String> modParentPaths,
+			VersionOverrides versionOverrides, DependencyOverrides depOverrides, boolean isDevelopment, boolean lazy) throws ParseMetadataException {
+		return parseMetadata(() -> {
+			ModMetadata ret = ModMetadataCodec.read(in);
+			if (!(ret instanceof LoaderModMetadata)) throw new IOException("Encoded metadata isn't mod metadata: "+ret.getType());
+			if (!lazy && ret instanceof V1ModMetadata) ((V1ModMetadata) ret).decodeDetails();
+
+			return (LoaderModMetadata) ret;
+		}, modPath, modParentPaths, versionOverrides, depOverrides, isDevelopment);
+	}
+
+	/**
+	 * Decode the fields of lazily parsed metadata that were deferred, failing like parsing would for malformed ones.
+	 */
+	public static void decodeDeferred(LoaderModMetadata metadata, String modPath, List<String> modParentPaths) throws ParseMetadataException {
+		if (!(metadata instanceof V1ModMetadata)) return;
+
 		try {
-			LoaderModMetadata ret = readModMetadata(is, isDevelopment);
+			((V1ModMetadata) metadata).decodeDetails();
+		} catch (ParseMetadataException e) {
+			e.setModPaths(modPath, modParentPaths);
+			throw e;
+		} catch (Throwable t) {
+			ParseMetadataException e = new ParseMetadataException(t);
+			e.setModPaths(modPath, modParentPaths);
+			throw e;
+		}
+	}
+
+	private static LoaderModMetadata parseMetadata(MetadataSource source, String modPath, List<String> modParentPaths,
+			VersionOverrides versionOverrides, DependencyOverrides depOverrides, boolean isDevelopment) throws ParseMetadataException {
+		try {
+			LoaderModMetadata ret = source.read();
 
 			versionOverrides.apply(ret);
 			depOverrides.apply(ret);
@@ -59,86 +143,76 @@ public final class ModMetadataParser {
 		}
 	}
 
-	private static LoaderModMetadata readModMetadata(InputStream is, boolean isDevelopment) throws IOException, ParseMetadataException {
+	private static LoaderModMetadata readModMetadata(JsonReader reader, byte[] lazySource, boolean isDevelopment) throws IOException, ParseMetadataException {
 		// So some context:
 		// Per the json specification, ordering of fields is not typically enforced.
 		// Furthermore we cannot guarantee the `schemaVersion` is the first field in every `fabric.mod.json`
 		//
 		// To work around this, we do the following:
-		// Try to read first field
+		// Read fields until the schemaVersion is found, remembering where the values of all skipped fields start.
 		// If the first field is the schemaVersion, read the file normally.
 		//
-		// If the first field is not the schema version, fallback to a more exhaustive check.
-		// Read the rest of the file, looking for the `schemaVersion` field.
-		// If we find the field, cache the value
-		// If there happens to be another `schemaVersion` that has a differing value, then fail.
+		// Otherwise the skipped fields are replayed from their marks before continuing after the schemaVersion, so the
+		// version specific parser sees every field exactly once without tokenizing the whole file twice.
 		// At the end, if we find no `schemaVersion` then assume the `schemaVersion` is 0
-		// Re-read the JSON file.
 		int schemaVersion = 0;
 
-		try (JsonReader reader = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-			reader.setRewindEnabled(true);
-
-			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
-				throw new ParseMetadataException("Root of \"fabric.mod.json\" must be an object", reader);
-			}
-
-			reader.beginObject();
-
-			boolean firstField = true;
+		reader.setRewindEnabled(true);
 
-			while (reader.hasNext()) {
-				// Try to read the schemaVersion
-				String key = reader.nextName();
-
-				if (key.equals("schemaVersion")) {
-					if (reader.peek() != JsonToken.NUMBER) {
-						throw new ParseMetadataException("\"schemaVersion\" must be a number.", reader);
-					}
+		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+			throw new ParseMetadataException("Root of \"fabric.mod.json\" must be an object", reader);
+		}
 
-					schemaVersion = reader.nextInt();
+		reader.beginObject();
 
-					if (firstField) {
-						reader.setRewindEnabled(false);
-						// Finish reading the metadata
-						LoaderModMetadata ret = readModMetadata(reader, schemaVersion);
-						reader.endObject();
+		boolean firstField = true;
+		List<String> skippedNames = new ArrayList<>();
+		List<JsonReader.Mark> skippedMarks = new ArrayList<>();
 
-						return ret;
-					}
+		while (reader.hasNext()) {
+			// Try to read the schemaVersion
+			String key = reader.nextName();
 
-					// schemaVersion found, but after some content -> start over to parse all data with the detected version
-					break;
-				} else {
-					reader.skipValue();
+			if (key.equals("schemaVersion")) {
+				if (reader.peek() != JsonToken.NUMBER) {
+					throw new ParseMetadataException("\"schemaVersion\" must be a number.", reader);
 				}
 
-				if (!IGNORED_KEYS.contains(key)) {
-					firstField = false;
-				}
+				schemaVersion = reader.nextInt();
+				break;
 			}
 
-			// Slow path, schema version wasn't specified early enough, re-read with detected/inferred version
+			skippedNames.add(key);
+			skippedMarks.add(reader.mark());
+			reader.skipValue();
 
-			reader.rewind();
-			reader.setRewindEnabled(false);
+			if (!IGNORED_KEYS.contains(key)) {
+				firstField = false;
+			}
+		}
 
-			reader.beginObject();
-			LoaderModMetadata ret = readModMetadata(reader, schemaVersion);
-			reader.endObject();
+		if (skippedNames.isEmpty()) {
+			reader.setRewindEnabled(false);
+		} else {
+			// schema version wasn't specified early enough, feed the skipped fields to the parser first
+			reader.replay(skippedNames, skippedMarks);
+		}
 
-			if (isDevelopment) {
-				Log.warn(LogCategory.METADATA, "\"fabric.mod.json\" from mod %s did not have \"schemaVersion\" as first field.", ret.getId());
-			}
+		// Finish reading the metadata
+		LoaderModMetadata ret = readModMetadata(reader, schemaVersion, lazySource);
+		reader.endObject();
 
-			return ret;
+		if (!firstField && isDevelopment) {
+			Log.warn(LogCategory.METADATA, "\"fabric.mod.json\" from mod %s did not have \"schemaVersion\" as first field.", ret.getId());
 		}
+
+		return ret;
 	}
 
-	private static LoaderModMetadata readModMetadata(JsonReader reader, int schemaVersion) throws IOException, ParseMetadataException {
+	private static LoaderModMetadata readModMetadata(JsonReader reader, int schemaVersion, byte[] lazySource) throws IOException, ParseMetadataException {
 		switch (schemaVersion) {
 		case 1:
-			return V1ModMetadataParser.parse(reader);
+			return V1ModMetadataParser.parse(reader, lazySource);
 		case 0:
 			return V0ModMetadataParser.parse(reader);
 		default:
@@ -166,6 +240,10 @@ public final class ModMetadataParser {
 		Log.warn(LogCategory.METADATA, message.toString());
 	}
 
+	private interface MetadataSource {
+		LoaderModMetadata read() throws IOException, ParseMetadataException;
+	}
+
 	private ModMetadataParser() {
 	}
 }
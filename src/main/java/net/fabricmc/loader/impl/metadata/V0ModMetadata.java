@@ -40,18 +40,18 @@ final class V0ModMetadata extends AbstractModMetadata implements LoaderModMetada
 	// Optional (Environment)
 	private Collection<ModDependency> dependencies;
 	private final String languageAdapter = "net.fabricmc.loader.language.JavaLanguageAdapter"; // TODO: Constants class?
-	private final Mixins mixins;
+	final Mixins mixins;
 	private final ModEnvironment environment; // REMOVEME: Replacing Side in old metadata with this
-	private final String initializer;
-	private final Collection<String> initializers;
+	final String initializer;
+	final Collection<String> initializers;
 
 	// Optional (metadata)
-	private final String name;
+	final String name;
 	private final String description;
 	private final Collection<Person> authors;
 	private final Collection<Person> contributors;
 	private final ContactInformation links;
-	private final String license;
+	final String license;
 
 	V0ModMetadata(String id, Version version, Collection<ModDependency> dependencies, Mixins mixins, ModEnvironment environment, String initializer, Collection<String> initializers,
 			String name, String description, Collection<Person> authors, Collection<Person> contributors, ContactInformation links, String license) {
@@ -34,6 +34,7 @@ import net.fabricmc.loader.api.metadata.ModEnvironment;
 import net.fabricmc.loader.api.metadata.Person;
 import net.fabricmc.loader.impl.lib.gson.JsonReader;
 import net.fabricmc.loader.impl.lib.gson.JsonToken;
+import net.fabricmc.loader.impl.util.DedupPool;
 import net.fabricmc.loader.impl.util.version.VersionParser;
 
 final class V0ModMetadataParser {
@@ -84,7 +85,7 @@ final class V0ModMetadataParser {
 					throw new ParseMetadataException("Mod id must be a non-empty string with a length of 3-64 characters.", reader);
 				}
 
-				id = reader.nextString();
+				id = DedupPool.string(reader.nextString());
 				break;
 			case "version":
 				if (reader.peek() != JsonToken.STRING) {
@@ -197,7 +198,7 @@ final class V0ModMetadataParser {
 					throw new ParseMetadataException("License name must be a string", reader);
 				}
 
-				license = reader.nextString();
+				license = DedupPool.string(reader.nextString());
 				break;
 			default:
 				if (!ModMetadataParser.IGNORED_KEYS.contains(key)) {
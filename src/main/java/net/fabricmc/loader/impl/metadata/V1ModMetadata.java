@@ -16,6 +16,7 @@
 
 package net.fabricmc.loader.impl.metadata;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -46,79 +47,74 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	// Optional (mod loading)
 	private final ModEnvironment environment;
-	private final Map<String, List<EntrypointMetadata>> entrypoints;
 	private final Collection<NestedJarEntry> jars;
-	private final Collection<MixinEntry> mixins;
-	/* @Nullable */
-	private final String accessWidener;
 
 	// Optional (dependency resolution)
 	private Collection<ModDependency> dependencies;
 	// Happy little accidents
 	private final boolean hasRequires;
 
-	// Optional (metadata)
-	/* @Nullable */
-	private final String name;
-	private final String description;
-	private final Collection<Person> authors;
-	private final Collection<Person> contributors;
-	private final ContactInformation contact;
-	private final Collection<String> license;
-	private final IconEntry icon;
-
-	// Optional (language adapter providers)
-	private final Map<String, String> languageAdapters;
-
-	// Optional (custom values)
-	private final Map<String, CustomValue> customValues;
+	// Everything else, decoded from detailsSource on first access if not eagerly parsed
+	private volatile Details details;
+	private byte[] detailsSource;
 
+	/**
+	 * @param details the eagerly parsed details, or null to decode them from {@code detailsSource} on first access
+	 * @param detailsSource the raw {@code fabric.mod.json} contents if the details weren't parsed eagerly
+	 */
 	V1ModMetadata(String id, Version version, Collection<String> provides,
-			ModEnvironment environment, Map<String, List<EntrypointMetadata>> entrypoints, Collection<NestedJarEntry> jars,
-			Collection<MixinEntry> mixins, /* @Nullable */ String accessWidener,
+			ModEnvironment environment, Collection<NestedJarEntry> jars,
 			Collection<ModDependency> dependencies, boolean hasRequires,
-			/* @Nullable */ String name, /* @Nullable */String description,
-			Collection<Person> authors, Collection<Person> contributors, /* @Nullable */ContactInformation contact, Collection<String> license, IconEntry icon,
-			Map<String, String> languageAdapters,
-			Map<String, CustomValue> customValues) {
+			/* @Nullable */ Details details, /* @Nullable */ byte[] detailsSource) {
 		this.id = id;
 		this.version = version;
 		this.provides = Collections.unmodifiableCollection(provides);
 		this.environment = environment;
-		this.entrypoints = Collections.unmodifiableMap(entrypoints);
 		this.jars = Collections.unmodifiableCollection(jars);
-		this.mixins = Collections.unmodifiableCollection(mixins);
-		this.accessWidener = accessWidener;
 		this.dependencies = Collections.unmodifiableCollection(dependencies);
 		this.hasRequires = hasRequires;
-		this.name = name;
+		this.details = details;
+		this.detailsSource = detailsSource;
+	}
 
-		// Empty description if not specified
-		if (description != null) {
-			this.description = description;
-		} else {
-			this.description = "";
+	Details getDetails() {
+		try {
+			return decodeDetails();
+		} catch (IOException | ParseMetadataException e) {
+			throw new RuntimeException(String.format("Error reading metadata of mod %s", id), e);
 		}
+	}
+
+	/**
+	 * Decode the details if that didn't happen yet, reporting malformed deferred fields as checked exceptions.
+	 */
+	Details decodeDetails() throws IOException, ParseMetadataException {
+		Details ret = details;
 
-		this.authors = Collections.unmodifiableCollection(authors);
-		this.contributors = Collections.unmodifiableCollection(contributors);
+		if (ret == null) {
+			synchronized (this) {
+				ret = details;
 
-		if (contact != null) {
-			this.contact = contact;
-		} else {
-			this.contact = ContactInformation.EMPTY;
+				if (ret == null) {
+					ret = V1ModMetadataParser.parseDetails(detailsSource, id);
+					details = ret;
+					detailsSource = null;
+				}
+			}
 		}
 
-		this.license = Collections.unmodifiableCollection(license);
+		return ret;
+	}
 
-		if (icon != null) {
-			this.icon = icon;
-		} else {
-			this.icon = V1ModMetadata.NO_ICON;
-		}
+	/**
+	 * @return the raw {@code fabric.mod.json} contents if the details weren't decoded yet, otherwise null
+	 */
+	synchronized /* @Nullable */ byte[] getDetailsSource() {
+		return details == null ? detailsSource : null;
+	}
 
-		this.languageAdapters = Collections.unmodifiableMap(languageAdapters);
-		this.customValues = Collections.unmodifiableMap(customValues);
+	boolean hasRequires() {
+		return hasRequires;
 	}
 
 	@Override
@@ -175,53 +171,55 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	@Override
 	public String getName() {
-		if (this.name == null || this.name.isEmpty()) {
+		String name = getDetails().name;
+
+		if (name == null || name.isEmpty()) {
 			return this.id;
 		}
 
-		return this.name;
+		return name;
 	}
 
 	@Override
 	public String getDescription() {
-		return this.description;
+		return getDetails().description;
 	}
 
 	@Override
 	public Collection<Person> getAuthors() {
-		return this.authors;
+		return getDetails().authors;
 	}
 
 	@Override
 	public Collection<Person> getContributors() {
-		return this.contributors;
+		return getDetails().contributors;
 	}
 
 	@Override
 	public ContactInformation getContact() {
-		return this.contact;
+		return getDetails().contact;
 	}
 
 	@Override
 	public Collection<String> getLicense() {
-		return this.license;
+		return getDetails().license;
 	}
 
 	@Override
 	public Optional<String> getIconPath(int size) {
-		return this.icon.getIconPath(size);
+		return getDetails().icon.getIconPath(size);
 	}
 
 	@Override
 	public Map<String, CustomValue> getCustomValues() {
-		return this.customValues;
+		return getDetails().customValues;
 	}
 
 	// Internal stuff
 
 	@Override
 	public Map<String, String> getLanguageAdapterDefinitions() {
-		return this.languageAdapters;
+		return getDetails().languageAdapters;
 	}
 
 	@Override
@@ -234,7 +232,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 		final List<String> mixinConfigs = new ArrayList<>();
 
 		// This is only ever called once, so no need to store the result of this.
-		for (MixinEntry mixin : this.mixins) {
+		for (MixinEntry mixin : getDetails().mixins) {
 			if (mixin.environment.matches(type)) {
 				mixinConfigs.add(mixin.config);
 			}
@@ -245,7 +243,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	@Override
 	public String getAccessWidener() {
-		return this.accessWidener;
+		return getDetails().accessWidener;
 	}
 
 	@Override
@@ -259,7 +257,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 			return Collections.emptyList();
 		}
 
-		final List<EntrypointMetadata> entrypoints = this.entrypoints.get(type);
+		final List<EntrypointMetadata> entrypoints = getDetails().entrypoints.get(type);
 
 		if (entrypoints != null) {
 			return entrypoints;
@@ -270,7 +268,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	@Override
 	public Collection<String> getEntrypointKeys() {
-		return this.entrypoints.keySet();
+		return getDetails().entrypoints.keySet();
 	}
 
 	@Override
@@ -280,6 +278,71 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 		}
 	}
 
+	/**
+	 * Metadata not required for mod resolution.
+	 */
+	static final class Details {
+		// Optional (mod loading)
+		final Map<String, List<EntrypointMetadata>> entrypoints;
+		final Collection<MixinEntry> mixins;
+		/* @Nullable */
+		final String accessWidener;
+
+		// Optional (metadata)
+		/* @Nullable */
+		final String name;
+		final String description;
+		final Collection<Person> authors;
+		final Collection<Person> contributors;
+		final ContactInformation contact;
+		final Collection<String> license;
+		final IconEntry icon;
+
+		// Optional (language adapter providers)
+		final Map<String, String> languageAdapters;
+
+		// Optional (custom values)
+		final Map<String, CustomValue> customValues;
+
+		Details(Map<String, List<EntrypointMetadata>> entrypoints, Collection<MixinEntry> mixins, /* @Nullable */ String accessWidener,
+				/* @Nullable */ String name, /* @Nullable */String description,
+				Collection<Person> authors, Collection<Person> contributors, /* @Nullable */ContactInformation contact, Collection<String> license, IconEntry icon,
+				Map<String, String> languageAdapters,
+				Map<String, CustomValue> customValues) {
+			this.entrypoints = Collections.unmodifiableMap(entrypoints);
+			this.mixins = Collections.unmodifiableCollection(mixins);
+			this.accessWidener = accessWidener;
+			this.name = name;
+
+			// Empty description if not specified
+			if (description != null) {
+				this.description = description;
+			} else {
+				this.description = "";
+			}
+
+			this.authors = Collections.unmodifiableCollection(authors);
+			this.contributors = Collections.unmodifiableCollection(contributors);
+
+			if (contact != null) {
+				this.contact = contact;
+			} else {
+				this.contact = ContactInformation.EMPTY;
+			}
+
+			this.license = Collections.unmodifiableCollection(license);
+
+			if (icon != null) {
+				this.icon = icon;
+			} else {
+				this.icon = V1ModMetadata.NO_ICON;
+			}
+
+			this.languageAdapters = Collections.unmodifiableMap(languageAdapters);
+			this.customValues = Collections.unmodifiableMap(customValues);
+		}
+	}
+
 	static final class EntrypointMetadataImpl implements EntrypointMetadata {
 		private final String adapter;
 		private final String value;
@@ -314,8 +377,8 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 	}
 
 	static final class MixinEntry {
-		private final String config;
-		private final ModEnvironment environment;
+		final String config;
+		final ModEnvironment environment;
 
 		MixinEntry(String config, ModEnvironment environment) {
 			this.config = config;
@@ -328,7 +391,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 	}
 
 	static final class Single implements IconEntry {
-		private final String icon;
+		final String icon;
 
 		Single(String icon) {
 			this.icon = icon;
@@ -341,7 +404,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 	}
 
 	static final class MapEntry implements IconEntry {
-		private final SortedMap<Integer, String> icons;
+		final SortedMap<Integer, String> icons;
 
 		MapEntry(SortedMap<Integer, String> icons) {
 			this.icons = icons;
@@ -17,12 +17,16 @@
 package net.fabricmc.loader.impl.metadata;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -35,6 +39,7 @@ import net.fabricmc.loader.api.metadata.ModEnvironment;
 import net.fabricmc.loader.api.metadata.Person;
 import net.fabricmc.loader.impl.lib.gson.JsonReader;
 import net.fabricmc.loader.impl.lib.gson.JsonToken;
+import net.fabricmc.loader.impl.util.DedupPool;
 import net.fabricmc.loader.impl.util.version.VersionParser;
 
 final class V1ModMetadataParser {
@@ -47,6 +52,22 @@ final class V1ModMetadataParser {
 	 * @throws IOException         if there was any issue reading the file
 	 */
 	static LoaderModMetadata parse(JsonReader reader) throws IOException, ParseMetadataException {
+		return parse(reader, null);
+	}
+
+	/**
+	 * Reads a {@code fabric.mod.json} file of schema version {@code 1}, optionally deferring everything not needed for
+	 * mod resolution.
+	 *
+	 * <p>Deferred fields are skipped and only decoded from {@code lazySource} through {@link #parseDetails} once any of
+	 * them is accessed, which avoids most of the work for mods that end up not being loaded.
+	 *
+	 * @param reader the json reader to read the file with
+	 * @param lazySource the raw file contents to decode the deferred fields from, null to parse everything eagerly
+	 * @return the metadata of this file
+	 * @throws IOException if there was any issue reading the file
+	 */
+	static LoaderModMetadata parse(JsonReader reader, /* @Nullable */ byte[] lazySource) throws IOException, ParseMetadataException {
 		List<ParseWarning> warnings = new ArrayList<>();
 
 		// All the values the `fabric.mod.json` may contain:
@@ -59,34 +80,29 @@ final class V1ModMetadataParser {
 
 		// Optional (mod loading)
 		ModEnvironment environment = ModEnvironment.UNIVERSAL; // Default is always universal
-		Map<String, List<EntrypointMetadata>> entrypoints = new HashMap<>();
 		List<NestedJarEntry> jars = new ArrayList<>();
-		List<V1ModMetadata.MixinEntry> mixins = new ArrayList<>();
-		String accessWidener = null;
 
 		// Optional (dependency resolution)
 		List<ModDependency> dependencies = new ArrayList<>();
 		// Happy little accidents
 		boolean hasRequires = false;
 
-		// Optional (metadata)
-		String name = null;
-		String description = null;
-		List<Person> authors = new ArrayList<>();
-		List<Person> contributors = new ArrayList<>();
-		ContactInformation contact = null;
-		List<String> license = new ArrayList<>();
-		V1ModMetadata.IconEntry icon = null;
-
-		// Optional (language adapter providers)
-		Map<String, String> languageAdapters = new HashMap<>();
-
-		// Optional (custom values)
-		Map<String, CustomValue> customValues = new HashMap<>();
+		// Optional (everything else)
+		DetailsReader details = lazySource == null ? new DetailsReader(null) : null;
 
 		while (reader.hasNext()) {
 			final String key = reader.nextName();
 
+			if (DetailsReader.KEYS.contains(key)) {
+				if (details != null) {
+					details.read(key, reader, warnings);
+				} else {
+					reader.skipValue();
+				}
+
+				continue;
+			}
+
 			// Work our way from required to entirely optional
 			switch (key) {
 			case "schemaVersion":
@@ -107,7 +123,7 @@ final class V1ModMetadataParser {
 					throw new ParseMetadataException("Mod id must be a non-empty string with a length of 3-64 characters.", reader);
 				}
 
-				id = reader.nextString();
+				id = DedupPool.string(reader.nextString());
 				break;
 			case "version":
 				if (reader.peek() != JsonToken.STRING) {
@@ -131,22 +147,9 @@ final class V1ModMetadataParser {
 
 				environment = readEnvironment(reader);
 				break;
-			case "entrypoints":
-				readEntrypoints(warnings, reader, entrypoints);
-				break;
 			case "jars":
 				readNestedJarEntries(warnings, reader, jars);
 				break;
-			case "mixins":
-				readMixinConfigs(warnings, reader, mixins);
-				break;
-			case "accessWidener":
-				if (reader.peek() != JsonToken.STRING) {
-					throw new ParseMetadataException("Access Widener file must be a string", reader);
-				}
-
-				accessWidener = reader.nextString();
-				break;
 			case "depends":
 				readDependenciesContainer(reader, ModDependency.Kind.DEPENDS, dependencies);
 				break;
@@ -166,6 +169,114 @@ final class V1ModMetadataParser {
 				hasRequires = true;
 				reader.skipValue();
 				break;
+			default:
+				if (!ModMetadataParser.IGNORED_KEYS.contains(key)) {
+					warnings.add(new ParseWarning(reader.getLineNumber(), reader.getColumn(), key, "Unsupported root entry"));
+				}
+
+				reader.skipValue();
+				break;
+			}
+		}
+
+		// Validate all required fields are resolved
+		if (id == null) {
+			throw new ParseMetadataException.MissingField("id");
+		}
+
+		if (version == null) {
+			throw new ParseMetadataException.MissingField("version");
+		}
+
+		ModMetadataParser.logWarningMessages(id, warnings);
+
+		if (details != null) {
+			return new V1ModMetadata(id, version, provides, environment, jars, dependencies, hasRequires, details.build(), null);
+		} else {
+			return new V1ModMetadata(id, version, provides, environment, jars, dependencies, hasRequires, null, lazySource);
+		}
+	}
+
+	/**
+	 * Decodes the fields deferred by {@link #parse(JsonReader, byte[])}.
+	 *
+	 * @param source the raw file contents, already verified to be a json object by the initial parse
+	 * @param id the mod id for warning messages
+	 */
+	static V1ModMetadata.Details parseDetails(byte[] source, String id) throws IOException, ParseMetadataException {
+		List<ParseWarning> warnings = new ArrayList<>();
+		DetailsReader details = new DetailsReader(source);
+
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(source))) {
+			reader.beginObject();
+
+			while (reader.hasNext()) {
+				final String key = reader.nextName();
+
+				if (DetailsReader.KEYS.contains(key)) {
+					details.read(key, reader, warnings);
+				} else {
+					reader.skipValue(); // already handled by the initial parse
+				}
+			}
+
+			reader.endObject();
+		}
+
+		ModMetadataParser.logWarningMessages(id, warnings);
+
+		return details.build();
+	}
+
+	/**
+	 * Accumulates the fields not needed for mod resolution.
+	 */
+	private static final class DetailsReader {
+		static final Set<String> KEYS = new HashSet<>(Arrays.asList("entrypoints", "mixins", "accessWidener",
+				"name", "description", "authors", "contributors", "contact", "license", "icon",
+				"languageAdapters", "custom"));
+
+		// Optional (mod loading)
+		final Map<String, List<EntrypointMetadata>> entrypoints = new HashMap<>();
+		final List<V1ModMetadata.MixinEntry> mixins = new ArrayList<>();
+		String accessWidener = null;
+
+		// Optional (metadata)
+		String name = null;
+		String description = null;
+		final List<Person> authors = new ArrayList<>();
+		final List<Person> contributors = new ArrayList<>();
+		ContactInformation contact = null;
+		final List<String> license = new ArrayList<>();
+		V1ModMetadata.IconEntry icon = null;
+
+		// Optional (language adapter providers)
+		final Map<String, String> languageAdapters = new HashMap<>();
+
+		// Optional (custom values)
+		final Map<String, CustomValue> customValues = new HashMap<>();
+		/** The file contents to defer nested custom values to, null to read them eagerly. */
+		private final byte[] source;
+
+		DetailsReader(/* @Nullable */ byte[] source) {
+			this.source = source;
+		}
+
+		void read(String key, JsonReader reader, List<ParseWarning> warnings) throws IOException, ParseMetadataException {
+			switch (key) {
+			case "entrypoints":
+				readEntrypoints(warnings, reader, entrypoints);
+				break;
+			case "mixins":
+				readMixinConfigs(warnings, reader, mixins);
+				break;
+			case "accessWidener":
+				if (reader.peek() != JsonToken.STRING) {
+					throw new ParseMetadataException("Access Widener file must be a string", reader);
+				}
+
+				accessWidener = reader.nextString();
+				break;
 			case "name":
 				if (reader.peek() != JsonToken.STRING) {
 					throw new ParseMetadataException("Mod name must be a string", reader);
@@ -199,33 +310,17 @@ final class V1ModMetadataParser {
 				readLanguageAdapters(reader, languageAdapters);
 				break;
 			case "custom":
-				readCustomValues(reader, customValues);
+				readCustomValues(reader, source, customValues);
 				break;
 			default:
-				if (!ModMetadataParser.IGNORED_KEYS.contains(key)) {
-					warnings.add(new ParseWarning(reader.getLineNumber(), reader.getColumn(), key, "Unsupported root entry"));
-				}
-
-				reader.skipValue();
-				break;
+				throw new IllegalArgumentException(key);
 			}
 		}
 
-		// Validate all required fields are resolved
-		if (id == null) {
-			throw new ParseMetadataException.MissingField("id");
-		}
-
-		if (version == null) {
-			throw new ParseMetadataException.MissingField("version");
+		V1ModMetadata.Details build() {
+			return new V1ModMetadata.Details(entrypoints, mixins, accessWidener,
+					name, description, authors, contributors, contact, license, icon, languageAdapters, customValues);
 		}
-
-		ModMetadataParser.logWarningMessages(id, warnings);
-
-		return new V1ModMetadata(id, version, provides,
-				environment, entrypoints, jars, mixins, accessWidener,
-				dependencies, hasRequires,
-				name, description, authors, contributors, contact, license, icon, languageAdapters, customValues);
 	}
 
 	private static void readProvides(JsonReader reader, List<String> provides) throws IOException, ParseMetadataException {
@@ -240,7 +335,7 @@ final class V1ModMetadataParser {
 				throw new ParseMetadataException("Provided id must be a string", reader);
 			}
 
-			provides.add(reader.nextString());
+			provides.add(DedupPool.string(reader.nextString()));
 		}
 
 		reader.endArray();
@@ -269,7 +364,7 @@ final class V1ModMetadataParser {
 		reader.beginObject();
 
 		while (reader.hasNext()) {
-			final String key = reader.nextName();
+			final String key = DedupPool.string(reader.nextName());
 
 			List<EntrypointMetadata> metadata = new ArrayList<>();
 
@@ -295,7 +390,7 @@ final class V1ModMetadataParser {
 						final String entryKey = reader.nextName();
 						switch (entryKey) {
 						case "adapter":
-							adapter = reader.nextString();
+							adapter = DedupPool.string(reader.nextString());
 							break;
 						case "value":
 							value = reader.nextString();
@@ -553,7 +648,7 @@ final class V1ModMetadataParser {
 				throw new ParseMetadataException("Contact information entries must be a string", reader);
 			}
 
-			map.put(key, reader.nextString());
+			map.put(DedupPool.string(key), reader.nextString());
 		}
 
 		reader.endObject();
@@ -565,7 +660,7 @@ final class V1ModMetadataParser {
 	private static void readLicense(JsonReader reader, List<String> license) throws IOException, ParseMetadataException {
 		switch (reader.peek()) {
 		case STRING:
-			license.add(reader.nextString());
+			license.add(DedupPool.string(reader.nextString()));
 			break;
 		case BEGIN_ARRAY:
 			reader.beginArray();
@@ -575,7 +670,7 @@ final class V1ModMetadataParser {
 					throw new ParseMetadataException("List of licenses must only contain strings", reader);
 				}
 
-				license.add(reader.nextString());
+				license.add(DedupPool.string(reader.nextString()));
 			}
 
 			reader.endArray();
@@ -642,13 +737,13 @@ final class V1ModMetadataParser {
 				throw new ParseMetadataException("Value of language adapter entry must be a string", reader);
 			}
 
-			languageAdapters.put(adapter, reader.nextString());
+			languageAdapters.put(DedupPool.string(adapter), DedupPool.string(reader.nextString()));
 		}
 
 		reader.endObject();
 	}
 
-	private static void readCustomValues(JsonReader reader, Map<String, CustomValue> customValues) throws IOException, ParseMetadataException {
+	private static void readCustomValues(JsonReader reader, /* @Nullable */ byte[] source, Map<String, CustomValue> customValues) throws IOException, ParseMetadataException {
 		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 			throw new ParseMetadataException("Custom values must be in an object!", reader);
 		}
@@ -656,7 +751,7 @@ final class V1ModMetadataParser {
 		reader.beginObject();
 
 		while (reader.hasNext()) {
-			customValues.put(reader.nextName(), CustomValueImpl.readCustomValue(reader));
+			customValues.put(DedupPool.string(reader.nextName()), CustomValueImpl.readCustomValue(reader, source));
 		}
 
 		reader.endObject();
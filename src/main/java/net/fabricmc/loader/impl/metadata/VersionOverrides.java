@@ -17,8 +17,11 @@
 package net.fabricmc.loader.impl.metadata;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import net.fabricmc.loader.api.Version;
 import net.fabricmc.loader.api.VersionParsingException;
@@ -27,6 +30,7 @@ import net.fabricmc.loader.impl.util.version.VersionParser;
 
 public final class VersionOverrides {
 	private final Map<String, Version> replacements = new HashMap<>();
+	private final Set<String> appliedModIds = new ConcurrentSkipListSet<>();
 
 	public VersionOverrides() {
 		String property = System.getProperty(SystemProperties.DEBUG_REPLACE_VERSION);
@@ -57,10 +61,21 @@ public final class VersionOverrides {
 
 		if (replacement != null) {
 			metadata.setVersion(replacement);
+			appliedModIds.add(metadata.getId());
 		}
 	}
 
+	/**
+	 * Get the ids of all mods with configured overrides, whether present or not.
+	 */
 	public Collection<String> getAffectedModIds() {
 		return replacements.keySet();
 	}
+
+	/**
+	 * Get the ids of the mods the overrides have been applied to so far, sorted.
+	 */
+	public Collection<String> getAppliedModIds() {
+		return Collections.unmodifiableSet(appliedModIds);
+	}
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.util.version.SemanticVersionImpl;
+import net.fabricmc.loader.impl.util.version.StringVersion;
+
+/**
+ * Process wide pool to share identical strings, versions and version predicates between the metadata of all mods.
+ *
+ * <p>Mod ids, entrypoint keys, language adapter names, licenses and version literals repeat across most mods and
+ * stay referenced for the whole runtime. Pooling them keeps a single instance of each. Only values from a small
+ * vocabulary should be pooled. Every pool is capped, and values beyond that are returned as is instead of being
+ * retained indefinitely.
+ *
+ * <p>Unlike {@link net.fabricmc.loader.impl.util.version.VersionParseCache}, which is keyed by the unparsed input and
+ * may be cleared or disabled, pooled values are never dropped. Versions and predicates parsed again after the cache
+ * discarded them thus still resolve to the instance already referenced by other mods' metadata.
+ */
+public final class DedupPool {
+	private static final int MAX_SIZE = 16384;
+
+	private static final Pool<String> STRINGS = new Pool<>(MAX_SIZE);
+	private static final Pool<Version> SEMANTIC_VERSIONS = new Pool<>(MAX_SIZE);
+	private static final Pool<Version> STRING_VERSIONS = new Pool<>(MAX_SIZE);
+	private static final Pool<VersionPredicate> PREDICATES = new Pool<>(MAX_SIZE);
+
+	public static String string(String s) {
+		if (s == null) return null;
+
+		return STRINGS.get(s, s);
+	}
+
+	/**
+	 * Get the pooled instance of a version.
+	 *
+	 * <p>Versions are matched by type and friendly string instead of {@link Version#equals}, which treats e.g. 1.0 and
+	 * 1.0.0 as equal despite formatting differently.
+	 */
+	public static <T extends Version> T version(T version) {
+		if (version == null) return null;
+
+		Pool<Version> pool;
+
+		if (version.getClass() == SemanticVersionImpl.class) {
+			pool = SEMANTIC_VERSIONS;
+		} else if (version.getClass() == StringVersion.class) {
+			pool = STRING_VERSIONS;
+		} else {
+			return version;
+		}
+
+		@SuppressWarnings("unchecked")
+		T ret = (T) pool.get(version.getFriendlyString(), version);
+
+		return ret;
+	}
+
+	/**
+	 * Get the pooled instance of a predicate created by
+	 * {@link net.fabricmc.loader.impl.util.version.VersionPredicateParser}, matched by its string representation.
+	 */
+	public static VersionPredicate predicate(VersionPredicate predicate) {
+		if (predicate == null) return null;
+
+		return PREDICATES.get(predicate.toString(), predicate);
+	}
+
+	static final class Pool<T> {
+		private final int maxSize;
+		private final ConcurrentMap<String, T> values = new ConcurrentHashMap<>();
+
+		Pool(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		T get(String key, T value) {
+			T ret = values.get(key);
+			if (ret != null) return ret;
+			if (values.size() >= maxSize) return value;
+
+			ret = values.putIfAbsent(key, value);
+
+			return ret != null ? ret : value;
+		}
+	}
+
+	private DedupPool() { }
+}
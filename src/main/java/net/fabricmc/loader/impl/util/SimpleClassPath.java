@@ -16,7 +16,9 @@
 
 package net.fabricmc.loader.impl.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -127,6 +129,38 @@ public final class SimpleClassPath implements Closeable {
 			}
 		}
 
+		/**
+		 * Read the entire entry contents.
+		 */
+		public byte[] getBytes() throws IOException {
+			if (!(instance instanceof ZipEntry)) {
+				return Files.readAllBytes((Path) instance);
+			}
+
+			ZipEntry entry = (ZipEntry) instance;
+
+			try (InputStream is = openJars[idx].getInputStream(entry)) {
+				long size = entry.getSize();
+
+				if (size >= 0 && size <= Integer.MAX_VALUE) {
+					byte[] ret = new byte[(int) size];
+					new DataInputStream(is).readFully(ret);
+
+					return ret;
+				}
+
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int len;
+
+				while ((len = is.read(buffer)) >= 0) {
+					os.write(buffer, 0, len);
+				}
+
+				return os.toByteArray();
+			}
+		}
+
 		@Override
 		public String toString() {
 			return String.format("%s:%s", getOrigin(), subPath);
@@ -40,6 +40,20 @@ public final class SystemProperties {
 	public static final String PATH_GROUPS = "fabric.classPathGroups";
 	// system level libraries, matching code sources will not be assumed to be part of the game or mods and remain on the system class path (paths separated by path separator)
 	public static final String SYSTEM_LIBRARIES = "fabric.systemLibraries";
+	// directory for extracted nested mod jars, files are content addressed so it may be shared between game instances
+	public static final String NESTED_JAR_STORE_DIR = "fabric.nestedJarStoreDir";
+	// byte budget for caching nested mod jar contents between discovery and extraction
+	public static final String MOD_DATA_CACHE_SIZE = "fabric.modDataCacheSize";
+	// keeps cached nested mod jar contents in direct memory instead of the heap
+	public static final String MOD_DATA_CACHE_DIRECT = "fabric.modDataCacheDirect";
+	// maximum number of cached parse results for versions and for version predicates each, 0 to disable caching
+	public static final String VERSION_PARSE_CACHE_SIZE = "fabric.versionParseCacheSize";
+	// mod discovery task execution: pool (bounded platform threads, default), virtual (virtual threads, Java 21+) or single (calling thread only, deterministic)
+	public static final String DISCOVERY_EXECUTOR = "fabric.discoveryExecutor";
+	// thread count for the pool discovery executor, defaults to the number of available processors
+	public static final String DISCOVERY_THREADS = "fabric.discoveryThreads";
+	// maximum thread count for solving independent parts of the mod set in parallel, defaults to the number of available processors
+	public static final String RESOLUTION_THREADS = "fabric.resolutionThreads";
 	// throw exceptions from entrypoints, discovery etc. directly instead of gathering and attaching as suppressed
 	public static final String DEBUG_THROW_DIRECTLY = "fabric.debug.throwDirectly";
 	// logs library classification activity
@@ -58,8 +72,18 @@ public final class SystemProperties {
 	public static final String DEBUG_LOAD_LATE = "fabric.debug.loadLate";
 	// override the mod discovery timeout, unit in seconds, <= 0 to disable
 	public static final String DEBUG_DISCOVERY_TIMEOUT = "fabric.debug.discoveryTimeout";
+	// disables the persistent discovery index, forcing all mod jars to be scanned again
+	public static final String DEBUG_DISABLE_DISCOVERY_INDEX = "fabric.debug.disableDiscoveryIndex";
+	// parses all mod metadata eagerly instead of deferring fields not needed for resolution until accessed, always the case in-dev
+	public static final String DEBUG_DISABLE_LAZY_METADATA = "fabric.debug.disableLazyMetadata";
+	// writes per-jar discovery timings and I/O statistics to .fabric/discoveryTrace.json
+	public static final String DEBUG_DISCOVERY_TRACE = "fabric.debug.discoveryTrace";
 	// override the mod resolution timeout, unit in seconds, <= 0 to disable
 	public static final String DEBUG_RESOLUTION_TIMEOUT = "fabric.debug.resolutionTimeout";
+	// always uses the solver for mod resolution instead of trying to select the highest priority mods directly first
+	public static final String DEBUG_DISABLE_GREEDY_RESOLUTION = "fabric.debug.disableGreedyResolution";
+	// disables the persistent resolution cache, forcing the mod set to be solved again
+	public static final String DEBUG_DISABLE_RESOLUTION_CACHE = "fabric.debug.disableResolutionCache";
 	// replace mod versions (modA:versionA,modB:versionB,...)
 	public static final String DEBUG_REPLACE_VERSION = "fabric.debug.replaceVersion";
 	// whether fabric loader is running in a unit test, this affects logging classpath setup
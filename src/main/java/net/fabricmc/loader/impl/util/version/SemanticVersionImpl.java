@@ -39,10 +39,13 @@ import net.fabricmc.loader.api.VersionParsingException;
 public class SemanticVersionImpl extends net.fabricmc.loader.util.version.SemanticVersionImpl implements SemanticVersion {
 	private static final Pattern DOT_SEPARATED_ID = Pattern.compile("|[-0-9A-Za-z]+(\\.[-0-9A-Za-z]+)*");
 	private static final Pattern UNSIGNED_INTEGER = Pattern.compile("0|[1-9][0-9]*");
+	private static final int[] COMPARISON_KEY_BITS = { 20, 16, 16, 10 }; // + 1 prerelease bit = 63 bits, never negative
+	private static final long NO_COMPARISON_KEY = -1;
 	private final int[] components;
 	private final String prerelease;
 	private final String build;
-	private String friendlyName;
+	private final String friendlyName; // final for safe sharing of parsed instances, see VersionParseCache
+	private final long comparisonKey;
 
 	public SemanticVersionImpl(String version, boolean storeX) throws VersionParsingException {
 		int buildDelimPos = version.indexOf('+');
@@ -124,8 +127,8 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 		}
 
 		this.components = components;
-
-		buildFriendlyName();
+		this.friendlyName = buildFriendlyName();
+		this.comparisonKey = computeComparisonKey();
 	}
 
 	public SemanticVersionImpl(int[] components, String prerelease, String build) {
@@ -134,11 +137,35 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 		this.components = components;
 		this.prerelease = prerelease;
 		this.build = build;
+		this.friendlyName = buildFriendlyName();
+		this.comparisonKey = computeComparisonKey();
+	}
+
+	/**
+	 * Pack the version components and prerelease presence into a long that orders like {@link #compareTo}.
+	 *
+	 * <p>Up to 4 components are stored with 20, 16, 16 and 10 bits from the most significant end, missing ones as 0
+	 * like {@link #getVersionComponent} does. The lowest bit is set without prerelease, so a prerelease sorts before
+	 * its release. Versions with wildcards or components not fitting get {@link #NO_COMPARISON_KEY}. Two equal keys
+	 * without the lowest bit still need their prerelease strings compared.
+	 */
+	private long computeComparisonKey() {
+		if (components.length > COMPARISON_KEY_BITS.length) return NO_COMPARISON_KEY;
+
+		long ret = 0;
+
+		for (int i = 0; i < COMPARISON_KEY_BITS.length; i++) {
+			int bits = COMPARISON_KEY_BITS[i];
+			int component = i < components.length ? components[i] : 0;
+			if (component < 0 || component >= 1 << bits) return NO_COMPARISON_KEY; // also excludes wildcards
+
+			ret = ret << bits | component;
+		}
 
-		buildFriendlyName();
+		return ret << 1 | (prerelease == null ? 1 : 0);
 	}
 
-	private void buildFriendlyName() {
+	private String buildFriendlyName() {
 		StringBuilder fnBuilder = new StringBuilder();
 		boolean first = true;
 
@@ -164,7 +191,7 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 			fnBuilder.append('+').append(build);
 		}
 
-		friendlyName = fnBuilder.toString();
+		return fnBuilder.toString();
 	}
 
 	@Override
@@ -257,6 +284,17 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 
 		SemanticVersion o = (SemanticVersion) other;
 
+		if (comparisonKey != NO_COMPARISON_KEY && o instanceof SemanticVersionImpl) {
+			long otherKey = ((SemanticVersionImpl) o).comparisonKey;
+
+			if (otherKey != NO_COMPARISON_KEY) {
+				if (comparisonKey != otherKey) return Long.compare(comparisonKey, otherKey);
+				if ((comparisonKey & 1) != 0) return 0; // same components, both without prerelease
+
+				return comparePrerelease(o); // same components, both with prerelease
+			}
+		}
+
 		for (int i = 0; i < Math.max(getVersionComponentCount(), o.getVersionComponentCount()); i++) {
 			int first = getVersionComponent(i);
 			int second = o.getVersionComponent(i);
@@ -269,6 +307,10 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 			if (compare != 0) return compare;
 		}
 
+		return comparePrerelease(o);
+	}
+
+	private int comparePrerelease(SemanticVersion o) {
 		Optional<String> prereleaseA = getPrereleaseKey();
 		Optional<String> prereleaseB = o.getPrereleaseKey();
 
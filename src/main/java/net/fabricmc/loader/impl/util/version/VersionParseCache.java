@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util.version;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Size bounded caches mapping version and version predicate strings to their parsed instances, which are immutable
+ * and get shared between all callers.
+ *
+ * <p>The same strings are parsed over and over for dependency declarations, version and dependency overrides and
+ * mixin config compatibility checks. Failed parses aren't cached.
+ *
+ * <p>Lookups happen concurrently from the discovery threads, so the caches don't track recency. Once a cache is full
+ * it gets cleared and refills with whatever is parsed next, which suits the mostly repetitive input.
+ *
+ * <p>This complements {@link net.fabricmc.loader.impl.util.DedupPool}: the caches skip parsing for a known input
+ * string, but they may be cleared or disabled. The pool keeps one instance of every version and predicate that ends
+ * up in mod metadata for the whole runtime, independent of how the value was obtained.
+ */
+public final class VersionParseCache {
+	private static final int CAPACITY = Integer.getInteger(SystemProperties.VERSION_PARSE_CACHE_SIZE, 4096);
+
+	static final Cache<Version> VERSIONS = new Cache<>("versions", CAPACITY);
+	static final Cache<Version> VERSIONS_STORE_X = new Cache<>("versions with x-ranges", CAPACITY);
+	static final Cache<VersionPredicate> PREDICATES = new Cache<>("predicates", CAPACITY);
+
+	/**
+	 * Log the statistics accumulated so far, intended to be called after each loading phase.
+	 */
+	public static void logStatistics(String phase) {
+		Log.debug(LogCategory.GENERAL, "Version parse cache after %s: %s; %s; %s", phase, VERSIONS, VERSIONS_STORE_X, PREDICATES);
+	}
+
+	public static long getHits() {
+		return VERSIONS.getHits() + VERSIONS_STORE_X.getHits() + PREDICATES.getHits();
+	}
+
+	public static long getMisses() {
+		return VERSIONS.getMisses() + VERSIONS_STORE_X.getMisses() + PREDICATES.getMisses();
+	}
+
+	static final class Cache<T> {
+		private final String name;
+		private final int capacity;
+		private final Map<String, T> entries = new ConcurrentHashMap<>();
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder evictions = new LongAdder();
+
+		/**
+		 * @param capacity maximum entry count, 0 to not cache anything
+		 */
+		Cache(String name, int capacity) {
+			this.name = name;
+			this.capacity = capacity;
+		}
+
+		T get(String key) {
+			T ret = entries.get(key);
+
+			if (ret == null) {
+				misses.increment();
+			} else {
+				hits.increment();
+			}
+
+			return ret;
+		}
+
+		void put(String key, T value) {
+			if (capacity <= 0) return;
+
+			if (entries.size() >= capacity) { // approximate with concurrent puts, may briefly exceed the capacity
+				int size = entries.size();
+				entries.clear();
+				evictions.add(size);
+			}
+
+			entries.put(key, value);
+		}
+
+		int size() {
+			return entries.size();
+		}
+
+		long getHits() {
+			return hits.sum();
+		}
+
+		long getMisses() {
+			return misses.sum();
+		}
+
+		long getEvictions() {
+			return evictions.sum();
+		}
+
+		@Override
+		public String toString() {
+			long hits = getHits();
+			long total = hits + getMisses();
+
+			return String.format(Locale.ENGLISH, "%s %d hits / %d lookups (%.1f%%), %d cached, %d evictions",
+					name, hits, total, total > 0 ? hits * 100.0 / total : 0, entries.size(), getEvictions());
+		}
+	}
+
+	private VersionParseCache() { }
+}
@@ -19,6 +19,7 @@ package net.fabricmc.loader.impl.util.version;
 import net.fabricmc.loader.api.SemanticVersion;
 import net.fabricmc.loader.api.Version;
 import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.impl.util.DedupPool;
 
 public final class VersionParser {
 	public static Version parse(String s, boolean storeX) throws VersionParsingException {
@@ -26,7 +27,9 @@ public final class VersionParser {
 			throw new VersionParsingException("Version must be a non-empty string!");
 		}
 
-		Version version;
+		VersionParseCache.Cache<Version> cache = storeX ? VersionParseCache.VERSIONS_STORE_X : VersionParseCache.VERSIONS;
+		Version version = cache.get(s);
+		if (version != null) return version;
 
 		try {
 			version = new SemanticVersionImpl(s, storeX);
@@ -34,6 +37,9 @@ public final class VersionParser {
 			version = new StringVersion(s);
 		}
 
+		version = DedupPool.version(version);
+		cache.put(s, version);
+
 		return version;
 	}
 
@@ -42,6 +48,9 @@ public final class VersionParser {
 			throw new VersionParsingException("Version must be a non-empty string!");
 		}
 
-		return new SemanticVersionImpl(s, false);
+		Version version = parse(s, false);
+		if (version instanceof SemanticVersion) return (SemanticVersion) version;
+
+		return new SemanticVersionImpl(s, false); // throws the semantic version parsing error
 	}
 }
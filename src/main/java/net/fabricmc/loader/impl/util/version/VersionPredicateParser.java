@@ -31,11 +31,23 @@ import net.fabricmc.loader.api.metadata.version.VersionComparisonOperator;
 import net.fabricmc.loader.api.metadata.version.VersionInterval;
 import net.fabricmc.loader.api.metadata.version.VersionPredicate;
 import net.fabricmc.loader.api.metadata.version.VersionPredicate.PredicateTerm;
+import net.fabricmc.loader.impl.util.DedupPool;
 
 public final class VersionPredicateParser {
 	private static final VersionComparisonOperator[] OPERATORS = VersionComparisonOperator.values();
 
 	public static VersionPredicate parse(String predicate) throws VersionParsingException {
+		VersionPredicate ret = VersionParseCache.PREDICATES.get(predicate);
+
+		if (ret == null) {
+			ret = parseUncached(predicate);
+			VersionParseCache.PREDICATES.put(predicate, ret);
+		}
+
+		return ret;
+	}
+
+	private static VersionPredicate parseUncached(String predicate) throws VersionParsingException {
 		List<SingleVersionPredicate> predicateList = new ArrayList<>();
 
 		for (String s : predicate.split(" ")) {
@@ -92,9 +104,9 @@ public final class VersionPredicateParser {
 		if (predicateList.isEmpty()) {
 			return AnyVersionPredicate.INSTANCE;
 		} else if (predicateList.size() == 1) {
-			return predicateList.get(0);
+			return DedupPool.predicate(predicateList.get(0));
 		} else {
-			return new MultiVersionPredicate(predicateList);
+			return DedupPool.predicate(new MultiVersionPredicate(predicateList));
 		}
 	}
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.loader.api.SemanticVersion;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.impl.metadata.ModDependencyImpl;
+
+/**
+ * Property tests comparing the candidate index against checking every candidate.
+ */
+final class CandidateIndexTests {
+	private static final int ITERATIONS = 500;
+	private static final String[] VERSIONS = { "1", "1.0", "1.0.0", "1.0.0-alpha", "1.0.0-alpha.2", "1.0.0-beta", "1.0.0+build",
+			"1.0.1", "1.1", "1.1.5", "1.2.0-rc.1", "1.2", "1.2.3.4", "2.0.0-", "2.0.0-pre", "2.0", "2.5.1", "3", "10.0.0",
+			"snapshot", "1.0-custom_build", "abc" };
+	private static final String[] PREDICATES = { "*", "1.0.0", "=1.2", ">=1.0", ">1.0.0", "<2", "<=1.1.5", ">=1.0.0-alpha <1.2",
+			"~1.0", "~1.2.0", "^1.0.0", "^2.0.0-", "1.x", "1.0.x", "2.x", ">=2.0.0-pre <=3", "<1.0.0-beta", "snapshot", "abc", ">=10" };
+
+	@Test
+	@DisplayName("Matches equal checking every candidate")
+	public void testMatchesNaiveScan() throws Exception {
+		for (int i = 0; i < ITERATIONS; i++) {
+			long seed = 0x1dcL + i;
+			Random random = new Random(seed);
+			Map<String, List<ModCandidate>> modsById = generate(random);
+			CandidateIndex index = new CandidateIndex(modsById);
+
+			for (int j = 0; j < 10; j++) {
+				List<String> predicates = new ArrayList<>();
+
+				for (int k = 1 + random.nextInt(random.nextInt(4) == 0 ? 3 : 1); k > 0; k--) { // multiple predicates are or'ed
+					predicates.add(PREDICATES[random.nextInt(PREDICATES.length)]);
+				}
+
+				ModDependency dep = new ModDependencyImpl(ModDependency.Kind.DEPENDS, "mod", predicates);
+				List<ModCandidate> expected = new ArrayList<>();
+
+				for (ModCandidate mod : modsById.get("mod")) {
+					if (dep.matches(mod.getVersion())) expected.add(mod);
+				}
+
+				List<ModCandidate> actual = index.getMatches(dep);
+				String desc = "seed "+seed+", predicates "+predicates;
+
+				assertEquals(expected.size(), actual.size(), desc);
+				assertEquals(new HashSet<>(expected), new HashSet<>(actual), desc);
+				checkOrder(actual, desc);
+			}
+		}
+	}
+
+	/**
+	 * Check that semantic versions come first in descending order.
+	 */
+	private static void checkOrder(List<ModCandidate> mods, String desc) {
+		for (int i = 1; i < mods.size(); i++) {
+			if (!(mods.get(i).getVersion() instanceof SemanticVersion)) continue;
+
+			assertTrue(mods.get(i - 1).getVersion() instanceof SemanticVersion, desc);
+			assertTrue(mods.get(i - 1).getVersion().compareTo(mods.get(i).getVersion()) >= 0, desc);
+		}
+	}
+
+	/**
+	 * Generate candidates for the id "mod", some of them through provides.
+	 */
+	private static Map<String, List<ModCandidate>> generate(Random random) throws Exception {
+		List<ModCandidate> mods = new ArrayList<>();
+
+		for (int i = random.nextInt(12); i >= 0; i--) {
+			String version = VERSIONS[random.nextInt(VERSIONS.length)];
+			boolean provider = random.nextInt(4) == 0;
+			String json = String.format("{\"schemaVersion\": 1, \"id\": \"%s\", \"version\": \"%s\"%s}",
+					provider ? "provider" : "mod", version, provider ? ", \"provides\": [\"mod\"]" : "");
+
+			mods.add(TestCandidates.createMod(json, "mod"+i+".jar"));
+		}
+
+		mods.sort(ModResolver.modPrioComparator);
+		Map<String, List<ModCandidate>> ret = new LinkedHashMap<>();
+		ret.put("mod", new ArrayList<>());
+
+		for (ModCandidate mod : mods) {
+			ret.computeIfAbsent(mod.getId(), ignore -> new ArrayList<>()).add(mod);
+
+			for (String provided : mod.getProvides()) {
+				ret.computeIfAbsent(provided, ignore -> new ArrayList<>()).add(mod);
+			}
+		}
+
+		return ret;
+	}
+}
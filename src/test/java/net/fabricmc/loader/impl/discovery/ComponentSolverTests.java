@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.util.SystemProperties;
+
+/**
+ * Property tests comparing solving independent parts of the mod set separately against solving it at once.
+ */
+final class ComponentSolverTests {
+	private static final int ITERATIONS = 1000;
+	private static final String[] IDS = { "mod-a", "mod-b", "mod-c", "mod-d", "mod-e", "mod-f", "mod-g", "mod-h", "mod-i" };
+	private static final int MAX_ROOTS = 6;
+
+	@BeforeEach
+	public void setUp() {
+		System.setProperty(SystemProperties.DEBUG_DISABLE_GREEDY_RESOLUTION, "true");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty(SystemProperties.DEBUG_DISABLE_GREEDY_RESOLUTION);
+		System.clearProperty(SystemProperties.RESOLUTION_THREADS);
+	}
+
+	@Test
+	@DisplayName("Solving by components matches the full solve")
+	public void testMatchesFullSolve() throws Exception {
+		int componentCount = 0;
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			long seed = 0xc0e9L + i;
+
+			System.setProperty(SystemProperties.RESOLUTION_THREADS, "1");
+			String expected = resolve(TestCandidates.generate(seed, IDS, MAX_ROOTS), new ResolutionMetrics());
+
+			System.setProperty(SystemProperties.RESOLUTION_THREADS, "4");
+			ResolutionMetrics metrics = new ResolutionMetrics();
+			assertEquals(expected, resolve(TestCandidates.generate(seed, IDS, MAX_ROOTS), metrics), "seed "+seed);
+
+			if (metrics.getStrategy() == ResolutionMetrics.Strategy.COMPONENTS) componentCount++;
+		}
+
+		assertTrue(componentCount >= ITERATIONS / 10, "solved by components only "+componentCount+" times");
+	}
+
+	private static String resolve(List<ModCandidate> candidates, ResolutionMetrics metrics) {
+		try {
+			List<String> ret = new ArrayList<>();
+
+			for (ModCandidate mod : ModResolver.resolve(candidates, EnvType.CLIENT, new HashMap<>(), null, metrics)) {
+				ret.add(mod.getId()+" "+mod.getVersion().getFriendlyString()+" "+mod.getLocalPath());
+			}
+
+			return ret.toString();
+		} catch (ModResolutionException e) {
+			return "failed";
+		}
+	}
+}
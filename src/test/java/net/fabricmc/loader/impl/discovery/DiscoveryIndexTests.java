@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.api.EnvType;
+
+final class DiscoveryIndexTests {
+	private static final byte[] METADATA = "encoded".getBytes(StandardCharsets.UTF_8);
+
+	private Path dir;
+	private Path indexFile;
+	private Path jar;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("discoveryIndexTest");
+		indexFile = dir.resolve("discoveryIndex.bin");
+		jar = dir.resolve("mod.jar");
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		try (Stream<Path> stream = Files.walk(dir)) {
+			stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	@DisplayName("Unchanged jars restore without opening them")
+	public void testRoundTrip() throws IOException {
+		writeJar("a");
+		setJarTime(-60);
+		ContentHash nestedHash = new ContentHash(1, new byte[32]);
+		DiscoveryIndex index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		index.putJar(jar, getState(), new DiscoveryIndex.ModRecord(METADATA, Collections.singletonList(new DiscoveryIndex.NestedRef("nested.jar", nestedHash))));
+		index.putNested(nestedHash, DiscoveryIndex.ModRecord.NO_MOD);
+		index.save();
+
+		index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		DiscoveryIndex.ModRecord record = index.getJar(jar, readAttributes());
+		assertNotNull(record);
+		assertArrayEquals(METADATA, record.metadata);
+		assertEquals("nested.jar", record.nestedJars.get(0).localPath);
+		assertTrue(index.isComplete(record));
+		assertNull(index.getNested(nestedHash).metadata);
+
+		// recorded for another env
+
+		assertNull(DiscoveryIndex.load(indexFile, EnvType.SERVER).getJar(jar, readAttributes()));
+	}
+
+	@Test
+	@DisplayName("Changed jars are detected through their size, modification time and central directory")
+	public void testInvalidation() throws IOException {
+		writeJar("a");
+		addJar(new DiscoveryIndex.ModRecord(METADATA, Collections.emptyList()));
+
+		// touched but same content: needs opening, then restores with the new modification time
+
+		setJarTime(-30);
+		DiscoveryIndex index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNull(index.getJar(jar, readAttributes()));
+		assertNotNull(index.getJar(jar, getState()));
+		index.save();
+
+		assertNotNull(DiscoveryIndex.load(indexFile, EnvType.CLIENT).getJar(jar, readAttributes()));
+
+		// same size, different content
+
+		writeJar("b");
+		setJarTime(-30);
+		index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNull(index.getJar(jar, readAttributes()));
+		assertNull(index.getJar(jar, getState()));
+	}
+
+	@Test
+	@DisplayName("Jars modified close to writing the index are validated by content")
+	public void testRacyModificationTime() throws IOException {
+		writeJar("a");
+		setJarTime(0);
+		DiscoveryIndex index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		index.putJar(jar, getState(), new DiscoveryIndex.ModRecord(METADATA, Collections.emptyList()));
+		index.save();
+
+		index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNull(index.getJar(jar, readAttributes()));
+		assertNotNull(index.getJar(jar, getState()));
+	}
+
+	@Test
+	@DisplayName("Records with missing nested jars aren't used and unreferenced nested jars get dropped")
+	public void testNestedRecords() throws IOException {
+		writeJar("a");
+		ContentHash nestedHash = new ContentHash(1, new byte[32]);
+		ContentHash unusedHash = new ContentHash(2, new byte[32]);
+		addJar(new DiscoveryIndex.ModRecord(METADATA, Collections.singletonList(new DiscoveryIndex.NestedRef("nested.jar", nestedHash))));
+
+		DiscoveryIndex index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNull(index.getJar(jar, readAttributes()));
+
+		index.putNested(nestedHash, new DiscoveryIndex.ModRecord(METADATA, null));
+		index.putNested(unusedHash, DiscoveryIndex.ModRecord.NO_MOD);
+		assertNotNull(index.getJar(jar, readAttributes()));
+		index.save();
+
+		index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNotNull(index.getNested(nestedHash));
+		assertNull(index.getNested(nestedHash).nestedJars);
+		assertNull(index.getNested(unusedHash));
+	}
+
+	@Test
+	@DisplayName("Corrupted index files are ignored")
+	public void testCorruption() throws IOException {
+		writeJar("a");
+		addJar(new DiscoveryIndex.ModRecord(METADATA, Collections.emptyList()));
+		byte[] data = Files.readAllBytes(indexFile);
+
+		Files.write(indexFile, Arrays.copyOf(data, data.length - 3));
+		assertNull(DiscoveryIndex.load(indexFile, EnvType.CLIENT).getJar(jar, readAttributes()));
+
+		data[0] ^= 1;
+		Files.write(indexFile, data);
+		assertNull(DiscoveryIndex.load(indexFile, EnvType.CLIENT).getJar(jar, readAttributes()));
+
+		Files.delete(indexFile);
+		assertNull(DiscoveryIndex.load(indexFile, EnvType.CLIENT).getJar(jar, readAttributes()));
+	}
+
+	/**
+	 * Record the jar with a modification time well before writing the index.
+	 */
+	private void addJar(DiscoveryIndex.ModRecord record) throws IOException {
+		setJarTime(-60);
+		DiscoveryIndex index = DiscoveryIndex.load(indexFile, EnvType.CLIENT);
+		assertNull(index.getJar(jar, readAttributes()));
+		index.putJar(jar, getState(), record);
+		index.save();
+	}
+
+	private void writeJar(String content) throws IOException {
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zos.putNextEntry(new ZipEntry("fabric.mod.json"));
+			zos.write(content.getBytes(StandardCharsets.UTF_8));
+			zos.closeEntry();
+		}
+	}
+
+	private void setJarTime(int offsetSeconds) throws IOException {
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(offsetSeconds)));
+	}
+
+	private BasicFileAttributes readAttributes() throws IOException {
+		return Files.readAttributes(jar, BasicFileAttributes.class);
+	}
+
+	private DiscoveryIndex.JarState getState() throws IOException {
+		return DiscoveryIndex.getState(readAttributes(), ZipReader.open(jar));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.util.SystemProperties;
+
+/**
+ * Property tests comparing the greedy resolution fast path against the solver on generated mod sets.
+ */
+final class GreedyResolverTests {
+	private static final int ITERATIONS = 1000;
+	private static final String[] IDS = { "mod-a", "mod-b", "mod-c", "mod-d", "mod-e" };
+	private static final int MAX_ROOTS = 5;
+
+	@Test
+	@DisplayName("Greedy resolution matches the solver")
+	public void testMatchesSolver() throws Exception {
+		int greedyCount = 0;
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			long seed = 0x6ee0L + i;
+
+			if (trySelectGreedy(TestCandidates.generate(seed, IDS, MAX_ROOTS))) greedyCount++;
+
+			String expected;
+
+			// plain full solve, without splitting the mod set into components
+			System.setProperty(SystemProperties.DEBUG_DISABLE_GREEDY_RESOLUTION, "true");
+			System.setProperty(SystemProperties.RESOLUTION_THREADS, "1");
+
+			try {
+				expected = resolve(TestCandidates.generate(seed, IDS, MAX_ROOTS));
+			} finally {
+				System.clearProperty(SystemProperties.DEBUG_DISABLE_GREEDY_RESOLUTION);
+				System.clearProperty(SystemProperties.RESOLUTION_THREADS);
+			}
+
+			assertEquals(expected, resolve(TestCandidates.generate(seed, IDS, MAX_ROOTS)), "seed "+seed);
+		}
+
+		assertTrue(greedyCount >= ITERATIONS / 10, "greedy path taken only "+greedyCount+" times");
+	}
+
+	private static String resolve(List<ModCandidate> candidates) {
+		try {
+			List<String> ret = new ArrayList<>();
+
+			for (ModCandidate mod : ModResolver.resolve(candidates, EnvType.CLIENT, new HashMap<>())) {
+				ret.add(mod.getId()+" "+mod.getVersion().getFriendlyString()+" "+mod.getLocalPath());
+			}
+
+			return ret.toString();
+		} catch (ModResolutionException e) {
+			return "failed";
+		}
+	}
+
+	private static boolean trySelectGreedy(List<ModCandidate> candidates) throws ModResolutionException {
+		List<ModCandidate> allModsSorted = new ArrayList<>(candidates);
+		allModsSorted.sort(ModResolver.modPrioComparator);
+
+		Map<String, List<ModCandidate>> modsById = new LinkedHashMap<>();
+
+		for (ModCandidate mod : allModsSorted) {
+			modsById.computeIfAbsent(mod.getId(), ignore -> new ArrayList<>()).add(mod);
+
+			for (String provided : mod.getProvides()) {
+				modsById.computeIfAbsent(provided, ignore -> new ArrayList<>()).add(mod);
+			}
+		}
+
+		return GreedyResolver.trySelect(allModsSorted, modsById, new HashMap<>(), new ArrayList<>());
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class ModDataCacheTests {
+	@Test
+	@DisplayName("Least recently used entries get evicted to stay within the budget")
+	public void testEviction() {
+		ModDataCache cache = new ModDataCache(100, false);
+		ModCandidate a = createMod();
+		ModCandidate b = createMod();
+		ModCandidate c = createMod();
+		ByteBuffer data = ByteBuffer.allocate(40);
+
+		cache.put(a, data);
+		cache.put(b, ByteBuffer.allocate(40));
+		assertSame(data, cache.get(a)); // b is now least recently used
+		assertNull(cache.get(c));
+
+		cache.put(c, ByteBuffer.allocate(40));
+		assertTrue(cache.contains(a));
+		assertFalse(cache.contains(b));
+		assertTrue(cache.contains(c));
+		assertNull(cache.get(b));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(80, cache.getSize());
+		assertEquals(80, cache.getPeakSize()); // the 120 bytes before evicting were never held
+
+		// replacing an entry doesn't double count
+
+		cache.put(a, ByteBuffer.allocate(20));
+		assertEquals(60, cache.getSize());
+
+		cache.remove(c);
+		assertEquals(20, cache.getSize());
+
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertFalse(cache.contains(a));
+	}
+
+	@Test
+	@DisplayName("Heap slices are charged with their whole backing array, oversized data isn't cached")
+	public void testCharge() {
+		ModDataCache cache = new ModDataCache(100, false);
+		ModCandidate mod = createMod();
+
+		ByteBuffer slice = ByteBuffer.allocate(80);
+		slice.position(10);
+		slice.limit(20);
+		cache.put(mod, slice.slice());
+		assertEquals(80, cache.getSize());
+
+		cache.put(mod, ByteBuffer.allocate(101));
+		assertFalse(cache.contains(mod));
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getEvictions());
+	}
+
+	@Test
+	@DisplayName("Direct mode copies heap data and charges its exact size")
+	public void testDirect() {
+		ModDataCache cache = new ModDataCache(100, true);
+		ModCandidate mod = createMod();
+
+		ByteBuffer data = ByteBuffer.allocate(80);
+		data.put(15, (byte) 42);
+		data.position(10);
+		data.limit(20);
+		cache.put(mod, data);
+
+		ByteBuffer cached = cache.get(mod);
+		assertTrue(cached.isDirect());
+		assertEquals(10, cached.remaining());
+		assertEquals(42, cached.get(5));
+		assertEquals(10, cache.getSize());
+		assertEquals(10, data.position());
+	}
+
+	private static ModCandidate createMod() {
+		return ModCandidate.createNested("mod.jar", null, null, false, Collections.emptyList());
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.api.EnvType;
+
+final class ResolutionCacheTests {
+	private static final String MOD_A = "{\"schemaVersion\": 1, \"id\": \"mod-a\", \"version\": \"1.0.0\", \"depends\": {\"mod-b\": \"%s\"}}";
+	private static final String MOD_B = "{\"schemaVersion\": 1, \"id\": \"mod-b\", \"version\": \"%s\"}";
+
+	private Path dir;
+	private Path file;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("resolutionCacheTest");
+		file = dir.resolve("resolution.bin");
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+		Files.delete(dir);
+	}
+
+	@Test
+	@DisplayName("An unchanged mod set restores the previous selection")
+	public void testHit() throws Exception {
+		ResolutionMetrics metrics = new ResolutionMetrics();
+		List<String> expected = resolve(generate("*"), ResolutionCache.load(file, EnvType.CLIENT), metrics);
+		assertNotEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+		assertEquals(Arrays.asList("mod-a 1.0.0", "mod-b 1.1.0"), expected);
+
+		metrics = new ResolutionMetrics();
+		assertEquals(expected, resolve(generate("*"), ResolutionCache.load(file, EnvType.CLIENT), metrics));
+		assertEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+
+		// the record is bound to the environment
+
+		metrics = new ResolutionMetrics();
+		resolve(generate("*"), ResolutionCache.load(file, EnvType.SERVER), metrics);
+		assertNotEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+	}
+
+	@Test
+	@DisplayName("A changed dependency misses the fingerprint")
+	public void testChangedDependency() throws Exception {
+		resolve(generate("*"), ResolutionCache.load(file, EnvType.CLIENT), new ResolutionMetrics());
+
+		ResolutionCache cache = ResolutionCache.load(file, EnvType.CLIENT);
+		List<ModCandidate> candidates = generate(">=1.1");
+		ResolutionCache.Key key = cache.createKey(candidates, new HashMap<>());
+		assertNotNull(key);
+		assertNull(cache.getSelection(key));
+
+		ResolutionMetrics metrics = new ResolutionMetrics();
+		assertEquals(Arrays.asList("mod-a 1.0.0", "mod-b 1.1.0"), resolve(candidates, cache, metrics));
+		assertNotEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+	}
+
+	@Test
+	@DisplayName("A cached selection violating a dependency is rejected and solved again")
+	public void testTamperedSelection() throws Exception {
+		ResolutionCache cache = ResolutionCache.load(file, EnvType.CLIENT);
+		List<ModCandidate> candidates = generate("*");
+		ResolutionCache.Key key = cache.createKey(candidates, new HashMap<>());
+
+		for (ModCandidate mod : candidates) {
+			if (mod.getId().equals("mod-a")) cache.putSelection(key, Collections.singletonList(mod)); // mod-b missing
+		}
+
+		cache.save();
+
+		ResolutionMetrics metrics = new ResolutionMetrics();
+		assertEquals(Arrays.asList("mod-a 1.0.0", "mod-b 1.1.0"), resolve(generate("*"), ResolutionCache.load(file, EnvType.CLIENT), metrics));
+		assertNotEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+
+		// the solved selection replaced the invalid one
+
+		metrics = new ResolutionMetrics();
+		resolve(generate("*"), ResolutionCache.load(file, EnvType.CLIENT), metrics);
+		assertEquals(ResolutionMetrics.Strategy.CACHE, metrics.getStrategy());
+	}
+
+	@Test
+	@DisplayName("Candidates that can't be told apart aren't cached")
+	public void testDuplicateDescriptions() throws Exception {
+		List<ModCandidate> candidates = generate("*");
+		candidates.add(TestCandidates.createMod(String.format(MOD_B, "1.1.0"), "mod-b-1.1.0.jar"));
+
+		ResolutionCache cache = ResolutionCache.load(file, EnvType.CLIENT);
+		assertNull(cache.createKey(candidates, new HashMap<>()));
+
+		ResolutionMetrics metrics = new ResolutionMetrics();
+		assertEquals(Arrays.asList("mod-a 1.0.0", "mod-b 1.1.0"), resolve(candidates, cache, metrics));
+		assertFalse(Files.exists(file));
+	}
+
+	private static List<String> resolve(List<ModCandidate> candidates, ResolutionCache cache, ResolutionMetrics metrics) throws ModResolutionException {
+		List<String> ret = new ArrayList<>();
+
+		for (ModCandidate mod : ModResolver.resolve(candidates, EnvType.CLIENT, new HashMap<>(), cache, metrics)) {
+			ret.add(mod.getId()+" "+mod.getVersion().getFriendlyString());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Generate mod-a depending on mod-b with the given predicate and two versions of mod-b.
+	 */
+	private static List<ModCandidate> generate(String predicate) throws Exception {
+		List<ModCandidate> ret = new ArrayList<>();
+		ret.add(TestCandidates.createMod(String.format(MOD_A, predicate), "mod-a.jar"));
+		ret.add(TestCandidates.createMod(String.format(MOD_B, "1.0.0"), "mod-b-1.0.0.jar"));
+		ret.add(TestCandidates.createMod(String.format(MOD_B, "1.1.0"), "mod-b-1.1.0.jar"));
+
+		return ret;
+	}
+}
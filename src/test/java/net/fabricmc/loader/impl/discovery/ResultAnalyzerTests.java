@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.api.EnvType;
+
+/**
+ * Checks the failure analysis output for mod sets without a solution, the expected texts are the default English ones.
+ */
+final class ResultAnalyzerTests {
+	private static final String HEADER = "Mod resolution encountered an incompatible mod set!"
+			+ "\nA potential solution has been determined:";
+
+	@Test
+	@DisplayName("A missing dependency suggests installing it")
+	public void testMissingDependency() throws Exception {
+		List<ModCandidate> candidates = new ArrayList<>();
+		candidates.add(TestCandidates.createMod("{\"schemaVersion\": 1, \"id\": \"mod-a\", \"version\": \"1.0.0\", \"depends\": {\"mod-b\": \">=2.0.0\"}}", "mod-a.jar"));
+
+		assertEquals(HEADER
+				+ "\n\t - Install mod-b, version 2.0.0 or later."
+				+ "\nUnmet dependency listing:"
+				+ "\n\t - Mod 'mod-a' (mod-a) 1.0.0 requires version 2.0.0 or later of mod-b, which is missing!",
+				resolveError(candidates));
+	}
+
+	@Test
+	@DisplayName("A dependency on a different version suggests replacing it")
+	public void testVersionMismatch() throws Exception {
+		List<ModCandidate> candidates = new ArrayList<>();
+		candidates.add(TestCandidates.createMod("{\"schemaVersion\": 1, \"id\": \"mod-a\", \"version\": \"1.0.0\", \"depends\": {\"mod-b\": \">=2.0.0\"}}", "mod-a.jar"));
+		candidates.add(TestCandidates.createMod("{\"schemaVersion\": 1, \"id\": \"mod-b\", \"version\": \"1.0.0\"}", "mod-b.jar"));
+
+		assertEquals(HEADER
+				+ "\n\t - Replace mod 'mod-b' (mod-b) 1.0.0 with version 2.0.0 or later."
+				+ "\nUnmet dependency listing:"
+				+ "\n\t - Mod 'mod-a' (mod-a) 1.0.0 requires version 2.0.0 or later of mod 'mod-b' (mod-b), but only the wrong version is present: 1.0.0!",
+				resolveError(candidates));
+	}
+
+	private static String resolveError(List<ModCandidate> candidates) {
+		return assertThrows(ModResolutionException.class, () -> ModResolver.resolve(candidates, EnvType.CLIENT, new HashMap<>())).getMessage();
+	}
+}
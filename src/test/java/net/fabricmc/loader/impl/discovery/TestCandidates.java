@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.fabricmc.loader.impl.metadata.DependencyOverrides;
+import net.fabricmc.loader.impl.metadata.LoaderModMetadata;
+import net.fabricmc.loader.impl.metadata.ModMetadataParser;
+import net.fabricmc.loader.impl.metadata.VersionOverrides;
+
+/**
+ * Mod candidates for the resolution tests, either from given fabric.mod.json content or randomly generated.
+ */
+final class TestCandidates {
+	private static final String[] DEP_KINDS = { "depends", "depends", "recommends", "breaks", "suggests" };
+	private static final String[] PREDICATES = { "*", ">=1.1", "<1.2", "1.0.x", ">=2" };
+
+	/**
+	 * Create a plain candidate without nested mods.
+	 */
+	static ModCandidate createMod(String json, String path) throws Exception {
+		return ModCandidate.createPlain(Collections.singletonList(Paths.get(path)), parseMetadata(json), false, Collections.emptyList());
+	}
+
+	/**
+	 * Generate 1 to maxRoots root mods with up to 2 nested mods each. Every mod picks its id, provides and up to 2
+	 * dependencies from ids, a small id space makes duplicates, provides and conflicting dependencies common while a
+	 * larger one makes the mod set fall apart into independent parts.
+	 */
+	static List<ModCandidate> generate(long seed, String[] ids, int maxRoots) throws Exception {
+		Random random = new Random(seed);
+		List<ModCandidate> ret = new ArrayList<>();
+		int rootCount = 1 + random.nextInt(maxRoots);
+		int nestedCount = 0;
+
+		for (int i = 0; i < rootCount; i++) {
+			List<ModCandidate> nestedMods = new ArrayList<>();
+
+			for (int j = random.nextInt(3); j > 0; j--) {
+				byte[] digest = new byte[32];
+				digest[0] = (byte) ++nestedCount;
+
+				nestedMods.add(ModCandidate.createNested("nested"+nestedCount+".jar", new ContentHash(1, digest), generateMetadata(random, ids), false, Collections.emptyList()));
+			}
+
+			ModCandidate mod = ModCandidate.createPlain(Collections.singletonList(Paths.get("root"+i+".jar")), generateMetadata(random, ids), false, nestedMods);
+
+			for (ModCandidate nestedMod : nestedMods) {
+				nestedMod.addParent(mod);
+			}
+
+			ret.add(mod);
+			ret.addAll(nestedMods);
+		}
+
+		return ret;
+	}
+
+	private static LoaderModMetadata generateMetadata(Random random, String[] ids) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"schemaVersion\": 1, \"id\": \"").append(ids[random.nextInt(ids.length)]).append('"');
+		sb.append(", \"version\": \"1.").append(random.nextInt(3)).append(".0\"");
+
+		if (random.nextInt(8) == 0) {
+			sb.append(", \"provides\": [\"").append(ids[random.nextInt(ids.length)]).append("\"]");
+		}
+
+		Map<String, List<String>> deps = new LinkedHashMap<>();
+
+		for (int i = random.nextInt(3); i > 0; i--) {
+			String kind = DEP_KINDS[random.nextInt(DEP_KINDS.length)];
+			deps.computeIfAbsent(kind, ignore -> new ArrayList<>()).add("\""+ids[random.nextInt(ids.length)]+"\": \""+PREDICATES[random.nextInt(PREDICATES.length)]+"\"");
+		}
+
+		for (Map.Entry<String, List<String>> entry : deps.entrySet()) {
+			sb.append(", \"").append(entry.getKey()).append("\": {").append(String.join(", ", entry.getValue())).append('}');
+		}
+
+		sb.append('}');
+
+		return parseMetadata(sb.toString());
+	}
+
+	private static LoaderModMetadata parseMetadata(String json) throws Exception {
+		return ModMetadataParser.parseMetadata(json.getBytes(StandardCharsets.UTF_8), "generated", Collections.emptyList(),
+				new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, false);
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class ZipReaderTests {
+	private static final String STORED_CONTENT = "stored content";
+	private static final String DEFLATED_CONTENT = new String(new char[200]).replace("\0", "deflated content,");
+	private static final int PREFIX_SIZE = 100;
+
+	@Test
+	@DisplayName("Entries are read from regular, zip64 and prefixed archives in memory and from files")
+	public void testRead() throws IOException {
+		for (boolean zip64 : new boolean[] { false, true }) {
+			for (int prefixSize : new int[] { 0, PREFIX_SIZE }) {
+				byte[] zip = createZip(prefixSize, zip64);
+				String desc = String.format("zip64 %s, prefix %d", zip64, prefixSize);
+
+				checkEntries(ZipReader.of(ByteBuffer.wrap(zip)), desc+", in memory");
+
+				Path file = Files.createTempFile("zipReaderTest", ".jar");
+
+				try {
+					Files.write(file, zip);
+
+					try (ZipReader reader = ZipReader.open(file)) {
+						checkEntries(reader, desc+", file");
+					}
+				} finally {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	private static void checkEntries(ZipReader reader, String desc) throws IOException {
+		Map<String, ZipReader.Entry> entries = reader.getEntries(Arrays.asList("deflated.txt", "missing.txt", "stored.txt", "dir/"));
+		assertEquals(Arrays.asList("deflated.txt", "stored.txt", "dir/"), Arrays.asList(entries.keySet().toArray()), desc);
+
+		ZipReader.Entry stored = entries.get("stored.txt");
+		ZipReader.Entry deflated = entries.get("deflated.txt");
+		assertEquals(ZipEntry.STORED, stored.method, desc);
+		assertEquals(ZipEntry.DEFLATED, deflated.method, desc);
+		assertTrue(entries.get("dir/").isDirectory(), desc);
+		assertEquals(STORED_CONTENT, toString(reader.getData(stored)), desc);
+		assertEquals(DEFLATED_CONTENT, toString(reader.getData(deflated)), desc);
+		assertEquals(DEFLATED_CONTENT, toString(ZipReader.decode(deflated, reader.getRawData(deflated), null)), desc);
+		assertNull(reader.getEntry("missing.txt"), desc);
+		assertNotNull(reader.getEntry("dir/"), desc);
+	}
+
+	@Test
+	@DisplayName("STORED entries of in-memory archives are slices without copying")
+	public void testStoredSlice() throws IOException {
+		byte[] zip = createZip(PREFIX_SIZE, false);
+		ZipReader reader = ZipReader.of(ByteBuffer.wrap(zip));
+		ByteBuffer data = reader.getData(reader.getEntry("stored.txt"));
+
+		assertSame(zip, data.array());
+		assertEquals(STORED_CONTENT, toString(data));
+
+		// nested archive in a slice of a bigger buffer
+
+		ByteBuffer outer = ByteBuffer.allocate(zip.length + 10);
+		outer.position(5);
+		outer.put(zip);
+		outer.position(5);
+		outer.limit(5 + zip.length);
+		reader = ZipReader.of(outer);
+		assertEquals(DEFLATED_CONTENT, toString(reader.getData(reader.getEntry("deflated.txt"))));
+	}
+
+	@Test
+	@DisplayName("Corrupted archives fail with ZipException")
+	public void testCorrupted() throws IOException {
+		byte[] zip = createZip(0, false);
+		int cdOffset = indexOf(zip, 0x02014b50);
+
+		// stored data not matching its CRC
+		byte[] data = zip.clone();
+		data[30 + "stored.txt".length()] ^= 1;
+		ZipReader reader = ZipReader.of(ByteBuffer.wrap(data));
+		assertThrows(ZipException.class, () -> reader.getData(reader.getEntry("stored.txt")));
+
+		// invalid local header
+		data = zip.clone();
+		data[0] ^= 1;
+		ZipReader reader2 = ZipReader.of(ByteBuffer.wrap(data));
+		assertThrows(ZipException.class, () -> reader2.getData(reader2.getEntry("stored.txt")));
+
+		// invalid compressed data
+		data = zip.clone();
+		int deflatedOffset = indexOf(Arrays.copyOfRange(zip, 1, zip.length), 0x04034b50) + 1;
+		data[deflatedOffset + 30 + "deflated.txt".length()] = (byte) 0xff;
+		ZipReader reader3 = ZipReader.of(ByteBuffer.wrap(data));
+		assertThrows(ZipException.class, () -> reader3.getData(reader3.getEntry("deflated.txt")));
+
+		// invalid central directory entry
+		data = zip.clone();
+		data[cdOffset] ^= 1;
+		ZipReader reader4 = ZipReader.of(ByteBuffer.wrap(data));
+		assertThrows(ZipException.class, () -> reader4.getEntry("dir/"));
+
+		// central directory offset out of bounds
+		data = zip.clone();
+		data[data.length - 3] = 0x7f;
+		byte[] data5 = data;
+		assertThrows(ZipException.class, () -> ZipReader.of(ByteBuffer.wrap(data5)));
+
+		// truncated, no end of central directory record
+		assertThrows(ZipException.class, () -> ZipReader.of(ByteBuffer.wrap(zip, 0, zip.length - 1)));
+		assertThrows(ZipException.class, () -> ZipReader.of(ByteBuffer.allocate(0)));
+	}
+
+	@Test
+	@DisplayName("File backed readers report truncation as IOException and release the file on close")
+	public void testFile() throws IOException {
+		Path file = Files.createTempFile("zipReaderTest", ".jar");
+
+		try {
+			Files.write(file, createZip(0, false));
+			ByteBuffer data;
+
+			try (ZipReader reader = ZipReader.open(file)) {
+				ZipReader.Entry entry = reader.getEntry("stored.txt");
+				data = reader.getData(entry);
+
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+					channel.truncate(30);
+				}
+
+				assertThrows(IOException.class, () -> reader.getData(entry));
+			}
+
+			assertEquals(STORED_CONTENT, toString(data));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Create an archive with a STORED, a DEFLATED and a directory entry.
+	 *
+	 * @param prefixSize amount of bytes to prepend, offsets within the archive don't account for them
+	 * @param zip64 whether to store the entry and central directory sizes and offsets in zip64 records only
+	 */
+	private static byte[] createZip(int prefixSize, boolean zip64) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream cd = new ByteArrayOutputStream();
+		out.write(new byte[prefixSize]);
+
+		writeEntry("stored.txt", STORED_CONTENT.getBytes(StandardCharsets.UTF_8), false, zip64, prefixSize, out, cd);
+		writeEntry("deflated.txt", DEFLATED_CONTENT.getBytes(StandardCharsets.UTF_8), true, zip64, prefixSize, out, cd);
+		writeEntry("dir/", new byte[0], false, zip64, prefixSize, out, cd);
+		int count = 3;
+
+		int cdOffset = out.size() - prefixSize;
+		cd.writeTo(out);
+
+		if (zip64) {
+			int zip64EocdOffset = out.size() - prefixSize;
+			ByteBuffer buf = allocate(56 + 20);
+			buf.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+			buf.putLong(count).putLong(count).putLong(cd.size()).putLong(cdOffset);
+			buf.putInt(0x07064b50).putInt(0).putLong(zip64EocdOffset).putInt(1);
+			out.write(buf.array());
+		}
+
+		ByteBuffer buf = allocate(22);
+		buf.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) count).putShort((short) count);
+		buf.putInt(zip64 ? -1 : cd.size()).putInt(zip64 ? -1 : cdOffset).putShort((short) 0);
+		out.write(buf.array());
+
+		return out.toByteArray();
+	}
+
+	private static void writeEntry(String name, byte[] content, boolean deflate, boolean zip64, int prefixSize, ByteArrayOutputStream out, ByteArrayOutputStream cd) throws IOException {
+		byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+		byte[] data = deflate ? deflate(content) : content;
+		short method = (short) (deflate ? ZipEntry.DEFLATED : ZipEntry.STORED);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		int offset = out.size() - prefixSize;
+
+		ByteBuffer buf = allocate(30 + encodedName.length);
+		buf.putInt(0x04034b50).putShort((short) 20).putShort((short) 0).putShort(method).putInt(0);
+		buf.putInt((int) crc.getValue()).putInt(data.length).putInt(content.length);
+		buf.putShort((short) encodedName.length).putShort((short) 0).put(encodedName);
+		out.write(buf.array());
+		out.write(data);
+
+		buf = allocate(46 + encodedName.length + (zip64 ? 28 : 0));
+		buf.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort(method).putInt(0);
+		buf.putInt((int) crc.getValue()).putInt(zip64 ? -1 : data.length).putInt(zip64 ? -1 : content.length);
+		buf.putShort((short) encodedName.length).putShort((short) (zip64 ? 28 : 0)).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+		buf.putInt(zip64 ? -1 : offset).put(encodedName);
+		if (zip64) buf.putShort((short) 1).putShort((short) 24).putLong(content.length).putLong(data.length).putLong(offset);
+		cd.write(buf.array());
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(data);
+		deflater.finish();
+
+		ByteArrayOutputStream ret = new ByteArrayOutputStream();
+		byte[] buf = new byte[256];
+
+		while (!deflater.finished()) {
+			ret.write(buf, 0, deflater.deflate(buf));
+		}
+
+		deflater.end();
+
+		return ret.toByteArray();
+	}
+
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static int indexOf(byte[] data, int signature) {
+		ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+		for (int i = 0; i <= data.length - 4; i++) {
+			if (buf.getInt(i) == signature) return i;
+		}
+
+		throw new IllegalArgumentException("signature not found");
+	}
+
+	private static String toString(ByteBuffer data) {
+		byte[] bytes = new byte[data.remaining()];
+		data.duplicate().get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
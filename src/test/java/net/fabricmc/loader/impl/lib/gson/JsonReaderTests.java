@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.lib.gson;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class JsonReaderTests {
+	private static final int BUFFER_SIZE = 8192; // initial character buffer size of JsonReader
+	private static final String MULTI_BYTE = "\u00e9\u20ac\ud83d\ude00"; // 2, 3 and 4 byte UTF-8 sequences
+
+	@Test
+	@DisplayName("Multi byte sequences and surrogate pairs split across buffer refills")
+	public void testSplitSequences() throws IOException {
+		for (int padding = BUFFER_SIZE - 16; padding < BUFFER_SIZE + 4; padding++) {
+			String json = "[\""+repeat('a', padding)+"\", \""+repeat(MULTI_BYTE, BUFFER_SIZE / 2)+"\", true, 1.5, null]";
+
+			for (boolean rewind : new boolean[] { false, true }) {
+				assertEquals(readTokens(json), readTokens(json.getBytes(StandardCharsets.UTF_8), rewind), "padding "+padding+", rewind "+rewind);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Malformed and truncated sequences are replaced per maximal subpart")
+	public void testMalformedSequences() throws IOException {
+		assertEquals("a\ufffdb", readString(0x61, 0x80, 0x62)); // stray continuation byte
+		assertEquals("\ufffd\ufffd", readString(0xc0, 0xaf)); // overlong encoding
+		assertEquals("\ufffd\ufffd\ufffd", readString(0xed, 0xa0, 0x80)); // encoded surrogate, CharsetDecoder yields a single replacement
+		assertEquals("\ufffd\ufffd\ufffd\ufffd", readString(0xf4, 0x90, 0x80, 0x80)); // above U+10FFFF
+		assertEquals("\ufffdb", readString(0xf0, 0x9f, 0x98, 0x62)); // truncated 4 byte sequence
+		assertEquals("\ufffd\u00e9", readString(0xe2, 0x82, 0xc3, 0xa9)); // truncated 3 byte sequence
+
+		// truncated at the end of the input
+
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(new byte[] { '[', '"', (byte) 0xf0, (byte) 0x9f }))) {
+			reader.beginArray();
+			assertThrows(IOException.class, reader::nextString);
+		}
+	}
+
+	@Test
+	@DisplayName("A leading byte order mark is skipped and counted for the byte position")
+	public void testByteOrderMark() throws IOException {
+		byte[] json = "\ufeff{\"a\": \"\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(json))) {
+			reader.beginObject();
+			assertEquals("a", reader.nextName());
+			assertEquals(3 + "{\"a\"".length(), reader.getBytePosition());
+			assertEquals("\u00e9", reader.nextString());
+			assertEquals(json.length - 1, reader.getBytePosition());
+			reader.endObject();
+			assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+		}
+	}
+
+	@Test
+	@DisplayName("Rewinding returns all data after the buffer grew")
+	public void testRewindAfterGrowth() throws IOException {
+		StringBuilder sb = new StringBuilder("{");
+
+		for (int i = 0; i < 1000; i++) {
+			if (i > 0) sb.append(", ");
+			sb.append("\"key").append(i).append("\": [\"").append(MULTI_BYTE).append("\", ").append(i).append(", false]");
+		}
+
+		String json = sb.append('}').toString();
+		List<String> expected = readTokens(json);
+
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))) {
+			reader.setRewindEnabled(true);
+			assertEquals(expected, readTokens(reader));
+
+			reader.rewind();
+			reader.setRewindEnabled(false);
+			assertEquals(expected, readTokens(reader));
+		}
+	}
+
+	private static String readString(int... bytes) throws IOException {
+		byte[] json = new byte[bytes.length + 4];
+		json[0] = '[';
+		json[1] = '"';
+
+		for (int i = 0; i < bytes.length; i++) {
+			json[i + 2] = (byte) bytes[i];
+		}
+
+		json[json.length - 2] = '"';
+		json[json.length - 1] = ']';
+
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(json))) {
+			reader.beginArray();
+			String ret = reader.nextString();
+			assertEquals(-1, reader.getBytePosition());
+			reader.endArray();
+
+			return ret;
+		}
+	}
+
+	private static List<String> readTokens(String json) throws IOException {
+		try (JsonReader reader = new JsonReader(new StringReader(json))) {
+			return readTokens(reader);
+		}
+	}
+
+	private static List<String> readTokens(byte[] json, boolean rewind) throws IOException {
+		try (JsonReader reader = new JsonReader(ByteBuffer.wrap(json))) {
+			reader.setRewindEnabled(rewind);
+
+			return readTokens(reader);
+		}
+	}
+
+	private static List<String> readTokens(JsonReader reader) throws IOException {
+		List<String> ret = new ArrayList<>();
+		JsonToken token;
+
+		while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+			switch (token) {
+			case BEGIN_ARRAY:
+				reader.beginArray();
+				break;
+			case END_ARRAY:
+				reader.endArray();
+				break;
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				break;
+			case END_OBJECT:
+				reader.endObject();
+				break;
+			case NAME:
+				ret.add(reader.nextName());
+				continue;
+			case STRING:
+			case NUMBER:
+				ret.add(reader.nextString());
+				continue;
+			case BOOLEAN:
+				ret.add(Boolean.toString(reader.nextBoolean()));
+				continue;
+			case NULL:
+				reader.nextNull();
+				break;
+			default:
+				throw new IllegalStateException(token.name());
+			}
+
+			ret.add(token.name());
+		}
+
+		return ret;
+	}
+
+	private static String repeat(char c, int count) {
+		char[] ret = new char[count];
+
+		for (int i = 0; i < count; i++) {
+			ret[i] = c;
+		}
+
+		return new String(ret);
+	}
+
+	private static String repeat(String str, int count) {
+		StringBuilder ret = new StringBuilder(str.length() * count);
+
+		for (int i = 0; i < count; i++) {
+			ret.append(str);
+		}
+
+		return ret.toString();
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.metadata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.loader.api.metadata.ModDependency;
+
+final class DependencyOverridesTests {
+	private static final String MOD = "{\"schemaVersion\": 1, \"id\": \"mod-a\", \"version\": \"1.0.0\", \"depends\": {\"mod-b\": \"*\", \"mod-c\": \"*\"}}";
+	private static final String OVERRIDES = "{\"version\": 1, \"overrides\": {\"mod-a\": {\"-depends\": {\"mod-b\": \"*\"}, \"+breaks\": {\"mod-d\": \"<2\"}}}}";
+
+	private Path dir;
+	private Path cacheFile;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("dependencyOverridesTest");
+		cacheFile = dir.resolve("cache").resolve("dependencyOverrides.bin");
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(cacheFile);
+		Files.deleteIfExists(cacheFile.getParent());
+		Files.deleteIfExists(dir.resolve("fabric_loader_dependencies.json"));
+		Files.delete(dir);
+	}
+
+	@Test
+	@DisplayName("Cached compiled overrides apply like freshly parsed ones")
+	public void testCache() throws Exception {
+		writeOverrides(OVERRIDES);
+
+		List<String> expected = apply(new DependencyOverrides(dir));
+		assertEquals(2, expected.size());
+		assertFalse(Files.exists(cacheFile));
+
+		assertEquals(expected, apply(new DependencyOverrides(dir, cacheFile)));
+		assertTrue(Files.exists(cacheFile));
+		assertEquals(expected, apply(new DependencyOverrides(dir, cacheFile)));
+
+		// a different file doesn't match the cached hash
+
+		writeOverrides(OVERRIDES.replace("mod-b", "mod-c"));
+		assertEquals(apply(new DependencyOverrides(dir)), apply(new DependencyOverrides(dir, cacheFile)));
+	}
+
+	@Test
+	@DisplayName("Reloading picks up a changed override file")
+	public void testReload() throws Exception {
+		DependencyOverrides overrides = new DependencyOverrides(dir, cacheFile);
+		assertFalse(overrides.reload());
+		assertEquals(2, apply(overrides).size());
+		assertTrue(overrides.getAppliedModIds().isEmpty());
+
+		writeOverrides(OVERRIDES);
+		assertTrue(overrides.reload());
+		assertFalse(overrides.reload());
+		assertEquals(apply(new DependencyOverrides(dir)), apply(overrides));
+		assertEquals(Collections.singleton("mod-a"), overrides.getAppliedModIds());
+
+		Files.delete(dir.resolve("fabric_loader_dependencies.json"));
+		assertTrue(overrides.reload());
+		assertTrue(overrides.getAppliedModIds().isEmpty());
+	}
+
+	private void writeOverrides(String json) throws IOException {
+		Files.write(dir.resolve("fabric_loader_dependencies.json"), json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<String> apply(DependencyOverrides overrides) throws Exception {
+		LoaderModMetadata metadata = ModMetadataParser.parseMetadata(MOD.getBytes(StandardCharsets.UTF_8), "generated", Collections.emptyList(),
+				new VersionOverrides(), overrides, false, false);
+		List<String> ret = new ArrayList<>();
+
+		for (ModDependency dep : metadata.getDependencies()) {
+			ret.add(dep.getKind().getKey()+" "+dep.getModId()+" "+dep.getVersionRequirements());
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.impl.util.version.SemanticVersionImpl;
+import net.fabricmc.loader.impl.util.version.StringVersion;
+
+final class DedupPoolTests {
+	@Test
+	@DisplayName("Equal strings resolve to the same instance")
+	public void testStrings() {
+		String a = new String("dedupPoolTest");
+		String b = new String("dedupPoolTest");
+
+		assertSame(DedupPool.string(a), DedupPool.string(b));
+		assertNull(DedupPool.string(null));
+	}
+
+	@Test
+	@DisplayName("Versions are pooled by type and friendly string")
+	public void testVersions() throws VersionParsingException {
+		Version a = new SemanticVersionImpl("1.0.0-dedup", false);
+		Version b = new SemanticVersionImpl("1.0.0-dedup", false);
+		assertSame(DedupPool.version(a), DedupPool.version(b));
+
+		// equal but formatted differently
+		Version shortened = new SemanticVersionImpl("1.0-dedup", false);
+		assertEquals(0, shortened.compareTo(a));
+		assertNotSame(DedupPool.version(a), DedupPool.version(shortened));
+
+		Version string = new StringVersion("1.0.0-dedup");
+		assertSame(string, DedupPool.version(string));
+		assertNotSame(DedupPool.version(a), DedupPool.version(string));
+	}
+
+	@Test
+	@DisplayName("Full pools return new values as is and keep the pooled ones")
+	public void testMaxSize() {
+		DedupPool.Pool<String> pool = new DedupPool.Pool<>(2);
+		String a = new String("a");
+		String b = new String("b");
+		String c = new String("c");
+
+		assertSame(a, pool.get("a", a));
+		assertSame(b, pool.get("b", b));
+		assertSame(c, pool.get("c", c));
+		assertSame(a, pool.get("a", new String("a")));
+
+		String c2 = new String("c");
+		assertSame(c2, pool.get("c", c2));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util.version;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.loader.api.Version;
+import net.fabricmc.loader.api.VersionParsingException;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+
+final class VersionParseCacheTests {
+	@Test
+	@DisplayName("Full caches get cleared before adding more entries")
+	public void testClearOnOverflow() {
+		VersionParseCache.Cache<String> cache = new VersionParseCache.Cache<>("test", 2);
+		cache.put("a", "A");
+		cache.put("b", "B");
+		assertEquals("A", cache.get("a"));
+		assertEquals(2, cache.size());
+
+		cache.put("c", "C");
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getEvictions());
+		assertNull(cache.get("a"));
+		assertEquals("C", cache.get("c"));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	@DisplayName("A size of 0 disables caching")
+	public void testDisabled() {
+		VersionParseCache.Cache<String> cache = new VersionParseCache.Cache<>("test", 0);
+		cache.put("a", "A");
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, cache.getEvictions());
+	}
+
+	@Test
+	@DisplayName("Concurrent use keeps the cache approximately bounded")
+	public void testConcurrent() throws InterruptedException {
+		int capacity = 100;
+		int threadCount = 4;
+		VersionParseCache.Cache<String> cache = new VersionParseCache.Cache<>("test", capacity);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < threadCount; t++) {
+			String prefix = Integer.toString(t);
+
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					String key = prefix+"-"+i % 300;
+					String value = cache.get(key);
+
+					if (value == null) {
+						cache.put(key, key);
+					} else if (!value.equals(key)) {
+						throw new AssertionError("wrong value "+value+" for "+key);
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertTrue(cache.size() <= capacity + threadCount, "size "+cache.size());
+		assertEquals(threadCount * 10000, cache.getHits() + cache.getMisses());
+	}
+
+	@Test
+	@DisplayName("Parsers return the cached instances")
+	public void testParsers() throws VersionParsingException {
+		long hits = VersionParseCache.getHits();
+
+		Version version = VersionParser.parse("1.2.3+cache", false);
+		assertSame(version, VersionParser.parse("1.2.3+cache", false));
+
+		VersionPredicate predicate = VersionPredicateParser.parse(">=1.2.3 <2");
+		assertSame(predicate, VersionPredicateParser.parse(">=1.2.3 <2"));
+
+		assertTrue(VersionParseCache.getHits() - hits >= 2);
+	}
+}
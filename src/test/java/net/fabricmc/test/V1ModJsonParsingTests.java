@@ -21,20 +21,30 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.api.SemanticVersion;
 import net.fabricmc.loader.api.metadata.CustomValue;
 import net.fabricmc.loader.impl.metadata.DependencyOverrides;
@@ -81,6 +91,33 @@ final class V1ModJsonParsingTests {
 		validateRequiredValues(reversedMetadata);
 	}
 
+	@Test
+	@DisplayName("Test fields before a late schema version")
+	public void testLateSchemaVersion() throws IOException, ParseMetadataException {
+		// Fields skipped while looking for the schema version, including nested objects and arrays, have to be replayed
+		for (String file : new String[] { "schema_version_last.json", "schema_version_middle.json" }) {
+			final Path path = specPath.resolve(file);
+
+			for (LoaderModMetadata metadata : new LoaderModMetadata[] { parseMetadata(path), parseMetadata(Files.readAllBytes(path), true) }) {
+				validateRequiredValues(metadata);
+
+				final Set<String> dependencies = new HashSet<>();
+				metadata.getDependencies().forEach(dependency -> dependencies.add(dependency.getModId()));
+				assertEquals(new HashSet<>(Arrays.asList("fabricloader", "minecraft")), dependencies, file);
+
+				assertEquals(1, metadata.getJars().size(), file);
+				assertEquals("nested/jar.jar", metadata.getJars().iterator().next().getFile(), file);
+				assertEquals(2, metadata.getAuthors().size(), file);
+				assertEquals("FabricMC", metadata.getAuthors().iterator().next().getName(), file);
+
+				final CustomValue.CvArray array = metadata.getCustomValue("object").getAsObject().get("array").getAsArray();
+				assertEquals(3, array.size(), file);
+				assertEquals(2, array.get(1).getAsArray().size(), file);
+				assertEquals(2, array.get(2).getAsObject().get("schemaVersion").getAsNumber().intValue(), file);
+			}
+		}
+	}
+
 	@Test
 	@DisplayName("Read custom values")
 	public void customValues() throws IOException, ParseMetadataException {
@@ -159,6 +196,147 @@ final class V1ModJsonParsingTests {
 		}
 	}
 
+	@Test
+	@DisplayName("Lazily parsed long test file")
+	public void testLazyLongFile() throws IOException, ParseMetadataException {
+		final Path path = specPath.resolve("long.json");
+		final LoaderModMetadata eager = parseMetadata(path);
+		final LoaderModMetadata lazy = parseMetadata(Files.readAllBytes(path), true);
+
+		assertEquals(eager.getId(), lazy.getId());
+		assertEquals(eager.getVersion(), lazy.getVersion());
+		assertEquals(eager.getDependencies().size(), lazy.getDependencies().size());
+		assertEquals(eager.getJars().size(), lazy.getJars().size());
+		assertEquals(eager.getName(), lazy.getName());
+		assertEquals(eager.getDescription(), lazy.getDescription());
+		assertEquals(eager.getAccessWidener(), lazy.getAccessWidener());
+		assertEquals(eager.getEntrypointKeys(), lazy.getEntrypointKeys());
+		assertEquals(eager.getMixinConfigs(EnvType.CLIENT), lazy.getMixinConfigs(EnvType.CLIENT));
+		assertEquals(eager.getAuthors().size(), lazy.getAuthors().size());
+		assertEquals(new ArrayList<>(eager.getLicense()), new ArrayList<>(lazy.getLicense()));
+		assertEquals(eager.getIconPath(64), lazy.getIconPath(64));
+		assertEquals(eager.getCustomValues().keySet(), lazy.getCustomValues().keySet());
+	}
+
+	@Test
+	@DisplayName("Lazily parsed custom values")
+	public void testLazyCustomValues() throws IOException, ParseMetadataException {
+		final Path path = specPath.resolve("custom_values.json");
+		final LoaderModMetadata eager = parseMetadata(path);
+		final LoaderModMetadata lazy = parseMetadata(Files.readAllBytes(path), true);
+
+		assertEquals(eager.getCustomValues().keySet(), lazy.getCustomValues().keySet());
+
+		for (String key : eager.getCustomValues().keySet()) {
+			assertCustomValueEquals(eager.getCustomValue(key), lazy.getCustomValue(key));
+		}
+	}
+
+	@Test
+	@DisplayName("Encoded metadata round trip")
+	public void testEncodedRoundTrip() throws IOException, ParseMetadataException {
+		for (String file : new String[] { "long.json", "custom_values.json", "icon_sizes.json" }) {
+			for (boolean lazy : new boolean[] { false, true }) {
+				final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+				final LoaderModMetadata parsed = ModMetadataParser.parseMetadata(Files.readAllBytes(specPath.resolve(file)), "dummy", Collections.emptyList(),
+						new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, lazy, new DataOutputStream(encoded));
+				final LoaderModMetadata decoded = readEncoded(encoded.toByteArray(), lazy);
+				checkRoundTrip(parsed, decoded);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Encoded lazily parsed metadata keeps its details undecoded")
+	public void testEncodedLazy() throws ParseMetadataException {
+		final byte[] data = "{\"schemaVersion\": 1, \"id\": \"test\", \"version\": \"1.0.0\", \"name\": 5}".getBytes(StandardCharsets.UTF_8);
+		final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		ModMetadataParser.parseMetadata(data, "dummy", Collections.emptyList(),
+				new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, true, new DataOutputStream(encoded));
+
+		// the invalid name only surfaces once the details get decoded
+		final LoaderModMetadata decoded = readEncoded(encoded.toByteArray(), true);
+		assertEquals("test", decoded.getId());
+		assertThrows(RuntimeException.class, decoded::getName);
+
+		assertThrows(ParseMetadataException.class, () -> readEncoded(encoded.toByteArray(), false));
+	}
+
+	@Test
+	@DisplayName("Malformed deferred fields fail decoding with the mod's path")
+	public void testDeferredError() throws ParseMetadataException {
+		final byte[] data = "{\"schemaVersion\": 1, \"id\": \"test\", \"version\": \"1.0.0\", \"entrypoints\": 5}".getBytes(StandardCharsets.UTF_8);
+		final LoaderModMetadata metadata = ModMetadataParser.parseMetadata(data, "nested.jar", Collections.singletonList("outer.jar"),
+				new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, true);
+
+		final ParseMetadataException e = assertThrows(ParseMetadataException.class,
+				() -> ModMetadataParser.decodeDeferred(metadata, "nested.jar", Collections.singletonList("outer.jar")));
+		assertTrue(e.getMessage().startsWith("Error reading fabric.mod.json file for mod at outer.jar -> nested.jar: "), e.getMessage());
+	}
+
+	private static void checkRoundTrip(LoaderModMetadata parsed, LoaderModMetadata decoded) {
+		assertEquals(parsed.getId(), decoded.getId());
+		assertEquals(parsed.getVersion(), decoded.getVersion());
+		assertEquals(new ArrayList<>(parsed.getProvides()), new ArrayList<>(decoded.getProvides()));
+		assertEquals(parsed.getEnvironment(), decoded.getEnvironment());
+		assertEquals(new ArrayList<>(parsed.getDependencies()), new ArrayList<>(decoded.getDependencies()));
+		assertEquals(parsed.getJars().size(), decoded.getJars().size());
+		assertEquals(parsed.getName(), decoded.getName());
+		assertEquals(parsed.getDescription(), decoded.getDescription());
+		assertEquals(parsed.getAccessWidener(), decoded.getAccessWidener());
+		assertEquals(parsed.getEntrypointKeys(), decoded.getEntrypointKeys());
+		assertEquals(parsed.getMixinConfigs(EnvType.CLIENT), decoded.getMixinConfigs(EnvType.CLIENT));
+		assertEquals(parsed.getMixinConfigs(EnvType.SERVER), decoded.getMixinConfigs(EnvType.SERVER));
+		assertEquals(parsed.getAuthors().size(), decoded.getAuthors().size());
+		assertEquals(parsed.getContact().asMap(), decoded.getContact().asMap());
+		assertEquals(new ArrayList<>(parsed.getLicense()), new ArrayList<>(decoded.getLicense()));
+		assertEquals(parsed.getLanguageAdapterDefinitions(), decoded.getLanguageAdapterDefinitions());
+
+		for (int size : new int[] { 8, 16, 32, 64, 128 }) {
+			assertEquals(parsed.getIconPath(size), decoded.getIconPath(size));
+		}
+
+		assertEquals(parsed.getCustomValues().keySet(), decoded.getCustomValues().keySet());
+
+		for (String key : parsed.getCustomValues().keySet()) {
+			assertCustomValueEquals(parsed.getCustomValue(key), decoded.getCustomValue(key));
+		}
+	}
+
+	private static void assertCustomValueEquals(CustomValue expected, CustomValue actual) {
+		assertEquals(expected.getType(), actual.getType());
+
+		switch (expected.getType()) {
+		case OBJECT:
+			assertEquals(expected.getAsObject().size(), actual.getAsObject().size());
+
+			for (Map.Entry<String, CustomValue> entry : expected.getAsObject()) {
+				assertCustomValueEquals(entry.getValue(), actual.getAsObject().get(entry.getKey()));
+			}
+
+			break;
+		case ARRAY:
+			assertEquals(expected.getAsArray().size(), actual.getAsArray().size());
+
+			for (int i = 0; i < expected.getAsArray().size(); i++) {
+				assertCustomValueEquals(expected.getAsArray().get(i), actual.getAsArray().get(i));
+			}
+
+			break;
+		case STRING:
+			assertEquals(expected.getAsString(), actual.getAsString());
+			break;
+		case NUMBER:
+			assertEquals(expected.getAsNumber().doubleValue(), actual.getAsNumber().doubleValue());
+			break;
+		case BOOLEAN:
+			assertEquals(expected.getAsBoolean(), actual.getAsBoolean());
+			break;
+		case NULL:
+			break;
+		}
+	}
+
 	@Test
 	@DisplayName("Any icon size test file")
 	public void testAnyIconSizeFile() throws IOException, ParseMetadataException {
@@ -226,4 +404,13 @@ final class V1ModJsonParsingTests {
 			return ModMetadataParser.parseMetadata(is, "dummy", Collections.emptyList(), new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false);
 		}
 	}
+
+	private static LoaderModMetadata parseMetadata(byte[] data, boolean lazy) throws ParseMetadataException {
+		return ModMetadataParser.parseMetadata(data, "dummy", Collections.emptyList(), new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, lazy);
+	}
+
+	private static LoaderModMetadata readEncoded(byte[] encoded, boolean lazy) throws ParseMetadataException {
+		return ModMetadataParser.readMetadata(new DataInputStream(new ByteArrayInputStream(encoded)), "dummy", Collections.emptyList(),
+				new VersionOverrides(), new DependencyOverrides(Paths.get("randomMissing")), false, lazy);
+	}
 }
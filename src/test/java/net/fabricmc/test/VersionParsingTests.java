@@ -318,5 +318,15 @@ public class VersionParsingTests {
 			testFalse(predicate.test(new SemanticVersionImpl("2.0.0", false)));
 			testFalse(predicate.test(new SemanticVersionImpl("2.0.0-beta.2", false)));
 		}
+
+		// Test: comparisons mixing versions within and beyond the packed comparison key range
+		{
+			testTrue(new SemanticVersionImpl("1.2.3", false).compareTo((Version) new SemanticVersionImpl("1.2.3.0.0", false)) == 0);
+			testTrue(new SemanticVersionImpl("1.2.3", false).compareTo((Version) new SemanticVersionImpl("1.2.3.0.1", false)) < 0);
+			testTrue(new SemanticVersionImpl("1048576.0", false).compareTo((Version) new SemanticVersionImpl("1048575.9", false)) > 0);
+			testTrue(new SemanticVersionImpl("1.0.0-beta.2", false).compareTo((Version) new SemanticVersionImpl("1.0.0-beta.11", false)) < 0);
+			testTrue(new SemanticVersionImpl("1.0.0-rc.1", false).compareTo((Version) new SemanticVersionImpl("1.0", false)) < 0);
+			testTrue(new SemanticVersionImpl("1.0.0+build.1", false).compareTo((Version) new SemanticVersionImpl("1.0.0+build.2", false)) == 0);
+		}
 	}
 }